@@ -0,0 +1,46 @@
+package com.rhmanagement.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calendrier des jours fériés (préfixe app.jours-feries).
+ * Les valeurs par défaut correspondent aux jours fériés légaux de Madagascar ;
+ * chaque organisation peut ajouter ses propres jours ou désactiver les fêtes mobiles.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.jours-feries")
+public class JoursFeriesProperties {
+
+    /**
+     * Jours fériés fixes, au format MM-dd
+     */
+    private List<String> fixes = new ArrayList<>(List.of(
+            "01-01",    // Jour de l'An
+            "03-08",    // Journée internationale de la femme
+            "03-29",    // Commémoration des martyrs de 1947
+            "05-01",    // Fête du Travail
+            "06-26",    // Fête de l'Indépendance
+            "08-15",    // Assomption
+            "11-01",    // Toussaint
+            "12-25"     // Noël
+    ));
+
+    /**
+     * Fêtes mobiles calculées à partir de la date de Pâques
+     */
+    private boolean lundiPaques = true;
+    private boolean ascension = true;
+    private boolean lundiPentecote = true;
+
+    /**
+     * Jours fériés propres à l'organisation ou ponctuels (ex. : 2025-06-27)
+     */
+    private List<LocalDate> supplementaires = new ArrayList<>();
+}
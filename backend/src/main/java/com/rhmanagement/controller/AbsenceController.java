@@ -1,11 +1,17 @@
 package com.rhmanagement.controller;
 
+import com.rhmanagement.dto.PageDTO;
 import com.rhmanagement.entity.Absence;
 import com.rhmanagement.service.AbsenceService;
+import com.rhmanagement.service.IdempotenceService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,12 +25,30 @@ public class AbsenceController {
     @Autowired
     private AbsenceService absenceService;
 
+    @Autowired
+    private IdempotenceService idempotenceService;
+
     @GetMapping
     public ResponseEntity<List<Map<String, Object>>> getAllAbsences() {
         List<Map<String, Object>> absences = absenceService.getAllAbsencesWithDetails();
         return ResponseEntity.ok(absences);
     }
 
+    // Page d'absences filtrable (employé, statut, type, année, période), même format que la liste complète
+    @GetMapping("/page")
+    public ResponseEntity<PageDTO<Map<String, Object>>> getAbsencesPage(
+            @RequestParam(required = false) Long employeId,
+            @RequestParam(required = false) Absence.StatutAbsence statut,
+            @RequestParam(required = false) Integer typeAbsenceId,
+            @RequestParam(required = false) Integer annee,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @RequestParam(defaultValue = "0") Integer page,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(absenceService.getAbsencesWithDetailsPage(
+                employeId, statut, typeAbsenceId, annee, debut, fin, page, size));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Absence> getAbsenceById(@PathVariable Long id) {
         Optional<Absence> absence = absenceService.getAbsenceById(id);
@@ -38,14 +62,21 @@ public class AbsenceController {
         return ResponseEntity.ok(nouvelleAbsence);
     }
 
+    // La version lue est obligatoire, le statut envoyé est ignoré
     @PutMapping("/{id}")
-    public ResponseEntity<Absence> updateAbsence(@PathVariable Long id, @RequestBody Absence absence) {
+    public ResponseEntity<?> updateAbsence(@PathVariable Long id, @RequestBody Absence absence) {
         if (absenceService.getAbsenceById(id).isEmpty()) {
             return ResponseEntity.notFound().build();
         }
         absence.setId(id);
-        Absence absenceMaj = absenceService.saveAbsence(absence);
-        return ResponseEntity.ok(absenceMaj);
+        try {
+            return ResponseEntity.ok(absenceService.saveAbsence(absence));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        }
     }
 
     @DeleteMapping("/{id}")
@@ -70,48 +101,49 @@ public class AbsenceController {
     }
 
     @PutMapping("/{id}/validate")
-    public ResponseEntity<Map<String, Object>> validerAbsence(@PathVariable Long id) {
-        try {
-            // Pour l'instant, utiliser un ID fixe pour le validateur
-            Long validateurId = 1L;
-
-            Absence absenceValidee = absenceService.validerAbsence(id, validateurId);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Absence validée avec succès");
-            response.put("absence", absenceValidee);
-
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.badRequest().body(errorResponse);
-        }
+    public ResponseEntity<Map<String, Object>> validerAbsence(
+            @PathVariable Long id,
+            @RequestHeader(value = IdempotenceService.EN_TETE, required = false) String cleIdempotence) {
+        return idempotenceService.executer(cleIdempotence, "absence:validate:" + id, () -> {
+            try {
+                // Pour l'instant, utiliser un ID fixe pour le validateur
+                Long validateurId = 1L;
+
+                Absence absenceValidee = absenceService.validerAbsence(id, validateurId);
+
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("message", "Absence validée avec succès");
+                response.put("absence", absenceValidee);
+
+                return ResponseEntity.ok(response);
+            } catch (Exception e) {
+                return IdempotenceService.reponseErreur(e);
+            }
+        });
     }
 
     @PutMapping("/{id}/reject")
     public ResponseEntity<Map<String, Object>> rejeterAbsence(
             @PathVariable Long id,
-            @RequestBody Map<String, String> request) {
-        try {
-            String motifRejet = request.get("motifRejet");
-
-            Absence absenceRejetee = absenceService.rejeterAbsence(id, motifRejet);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Absence rejetée avec succès");
-            response.put("absence", absenceRejetee);
-
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.badRequest().body(errorResponse);
-        }
+            @RequestBody Map<String, String> request,
+            @RequestHeader(value = IdempotenceService.EN_TETE, required = false) String cleIdempotence) {
+        return idempotenceService.executer(cleIdempotence, "absence:reject:" + id + ":" + idempotenceService.empreinte(request), () -> {
+            try {
+                String motifRejet = request.get("motifRejet");
+
+                Absence absenceRejetee = absenceService.rejeterAbsence(id, motifRejet);
+
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("message", "Absence rejetée avec succès");
+                response.put("absence", absenceRejetee);
+
+                return ResponseEntity.ok(response);
+            } catch (Exception e) {
+                return IdempotenceService.reponseErreur(e);
+            }
+        });
     }
 
     @PutMapping("/{id}/cancel")
@@ -172,4 +204,17 @@ public class AbsenceController {
             return ResponseEntity.status(500).body(errorResponse);
         }
     }
-}
\ No newline at end of file
+
+    // Quotas de l'année (plafond, utilisées, restantes) pour tous les types d'absence, en un appel
+    @GetMapping("/employe/{employeId}/quotas")
+    public ResponseEntity<Map<String, Object>> getQuotas(@PathVariable Long employeId,
+                                                         @RequestParam(required = false) Integer annee) {
+        int anneeEffective = annee != null ? annee : LocalDate.now().getYear();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("employeId", employeId);
+        response.put("annee", anneeEffective);
+        response.put("quotas", absenceService.getQuotas(employeId, anneeEffective));
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,5 +1,6 @@
 package com.rhmanagement.controller;
 
+import com.rhmanagement.service.CompteurAbsenceService;
 import com.rhmanagement.service.CongeStatusService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +18,9 @@ public class AdminController {
     @Autowired
     private CongeStatusService congeStatusService;
 
+    @Autowired
+    private CompteurAbsenceService compteurAbsenceService;
+
     /**
      * Synchronise manuellement le statut d'un employé
      */
@@ -42,4 +46,17 @@ public class AdminController {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+
+    /**
+     * Réconcilie les compteurs d'absence avec les absences validées
+     */
+    @PostMapping("/reconcilier-compteurs-absence")
+    public ResponseEntity<?> reconcilierCompteursAbsence() {
+        try {
+            int lignes = compteurAbsenceService.reconcilier();
+            return ResponseEntity.ok().body(Map.of("message", "Compteurs d'absence réconciliés", "lignes", lignes));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 }
@@ -0,0 +1,49 @@
+package com.rhmanagement.controller;
+
+import com.rhmanagement.service.CalendrierCongeService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/conges")
+@CrossOrigin(origins = "http://localhost:5173")
+public class CalendrierCongeController {
+
+    private final CalendrierCongeService calendrierCongeService;
+
+    public CalendrierCongeController(CalendrierCongeService calendrierCongeService) {
+        this.calendrierCongeService = calendrierCongeService;
+    }
+
+    // Nombre de personnes en congé approuvé par jour (et par poste, affectation ou district) sur une fenêtre
+    @GetMapping("/calendar")
+    public ResponseEntity<Map<String, Object>> getCalendrier(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "poste") String groupBy) {
+        Map<String, Object> response = new HashMap<>();
+        CalendrierCongeService.Regroupement regroupement;
+        try {
+            regroupement = CalendrierCongeService.Regroupement.valueOf(groupBy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", "Regroupement invalide : poste, affectation ou district");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            response.put("success", true);
+            response.put("data", calendrierCongeService.getCalendrier(from, to, regroupement));
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+}
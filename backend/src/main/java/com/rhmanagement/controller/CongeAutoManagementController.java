@@ -25,8 +25,12 @@ public class CongeAutoManagementController {
     }
 
     @PostMapping("/verifier-conges-termines")
-    public ResponseEntity<String> verifierCongesTermines() {
-        congeAutoManagementService.verifierEtMettreAJourCongesTermines();
-        return ResponseEntity.ok("Vérification des congés terminés effectuée");
+    public ResponseEntity<?> verifierCongesTermines() {
+        Map<String, Object> rapport = congeAutoManagementService.verifierEtMettreAJourCongesTermines();
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Vérification des congés terminés effectuée",
+                "rapport", rapport
+        ));
     }
 }
\ No newline at end of file
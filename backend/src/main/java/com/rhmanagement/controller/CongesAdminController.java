@@ -2,8 +2,9 @@ package com.rhmanagement.controller;
 
 import com.rhmanagement.entity.Employe;
 import com.rhmanagement.service.CongeStatusService;
-import com.rhmanagement.service.DemandeCongeService;
 import com.rhmanagement.service.EmployeService;
+import com.rhmanagement.service.IncoherenceStatutService;
+import com.rhmanagement.service.TableauDeBordService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -23,40 +24,23 @@ public class CongesAdminController {
     @Autowired
     private EmployeService employeService;
 
+
     @Autowired
-    private DemandeCongeService demandeCongeService;
+    private CongeStatusService congeStatusService;
 
+    @Autowired
+    private IncoherenceStatutService incoherenceStatutService;
 
     @Autowired
-    private CongeStatusService congeStatusService;
+    private TableauDeBordService tableauDeBordService;
 
     @GetMapping("/statistiques-sync")
     public ResponseEntity<?> getStatistiquesSync() {
         try {
-            Map<String, Object> stats = new HashMap<>();
-
-            // Récupérer les statistiques
-            int totalEmployes = employeService.getTotalEmployes();
-            int employesEnConge = employeService.getEmployesEnCongeCount();
-            int congesActifs = demandeCongeService.getCongesActifsCount();
-
-            // Calculer les incohérences (employés marqués EN_CONGE mais sans congé actif)
-            int incoherences = employeService.getIncoherencesStatutCount();
-            double coherencePercent = totalEmployes > 0 ?
-                    ((double) (totalEmployes - incoherences) / totalEmployes) * 100 : 100.0;
-
-            // Structurez la réponse avec les données dans un objet "data"
+            // Compteurs calculés en une requête et partagés quelques secondes entre les utilisateurs
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-
-            Map<String, Object> data = new HashMap<>();
-            data.put("totalEmployes", totalEmployes);
-            data.put("employesEnConge", employesEnConge);
-            data.put("congesActifs", congesActifs);
-            data.put("incoherences", incoherences);
-            data.put("coherencePercent", Math.round(coherencePercent * 10.0) / 10.0);
-
-            response.put("data", data);
+            response.put("data", tableauDeBordService.getStatistiques());
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -124,4 +108,41 @@ public class CongesAdminController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
         }
     }
-}
\ No newline at end of file
+
+    // Employés dont le statut ne correspond pas aux congés approuvés, page par page
+    @GetMapping("/incoherences")
+    public ResponseEntity<?> getIncoherences(
+            @RequestParam(defaultValue = "EN_CONGE_SANS_CONGE") IncoherenceStatutService.TypeIncoherence type,
+            @RequestParam(defaultValue = "0") Integer page,
+            @RequestParam(required = false) Integer size) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", incoherenceStatutService.getIncoherences(type, page, size));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", "Erreur lors de la détection des incohérences: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
+    @PostMapping("/incoherences/corriger")
+    public ResponseEntity<?> corrigerIncoherences() {
+        try {
+            int corriges = incoherenceStatutService.corrigerIncoherences();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", corriges + " statut(s) corrigé(s)");
+            response.put("count", corriges);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", "Erreur lors de la correction des incohérences: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+}
@@ -1,9 +1,18 @@
 package com.rhmanagement.controller;
 
+import com.rhmanagement.dto.DecisionLotDTO;
+import com.rhmanagement.dto.DemandeCongeDetailDTO;
+import com.rhmanagement.dto.PageDTO;
 import com.rhmanagement.entity.DemandeConge;
+import com.rhmanagement.service.DecisionCongeService;
 import com.rhmanagement.service.DemandeCongeService;
+import com.rhmanagement.service.IdempotenceService;
+import com.rhmanagement.service.SoldeCongeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
@@ -21,52 +30,86 @@ public class DemandeCongeController {
     @Autowired
     private DemandeCongeService demandeCongeService;
 
-    // Approuver une demande
-    @PutMapping("/{id}/approve")
-    public ResponseEntity<Map<String, Object>> approuverDemande(@PathVariable Long id) {
-        try {
-            // Pour l'instant, utiliser un ID fixe pour l'approbateur
-            Long approbateurId = 1L;
+    @Autowired
+    private SoldeCongeService soldeCongeService;
 
-            DemandeConge demandeApprouvee = demandeCongeService.approuverDemande(id, approbateurId);
+    @Autowired
+    private DecisionCongeService decisionCongeService;
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Demande approuvée avec succès");
-            response.put("demande", demandeApprouvee);
+    @Autowired
+    private IdempotenceService idempotenceService;
 
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.badRequest().body(errorResponse);
-        }
+    // Approuver une demande
+    @PutMapping("/{id}/approve")
+    public ResponseEntity<Map<String, Object>> approuverDemande(
+            @PathVariable Long id,
+            @RequestHeader(value = IdempotenceService.EN_TETE, required = false) String cleIdempotence) {
+        return idempotenceService.executer(cleIdempotence, "demande-conge:approve:" + id, () -> {
+            try {
+                // Pour l'instant, utiliser un ID fixe pour l'approbateur
+                Long approbateurId = 1L;
+
+                DemandeConge demandeApprouvee = demandeCongeService.approuverDemande(id, approbateurId);
+
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("message", "Demande approuvée avec succès");
+                response.put("demande", demandeApprouvee);
+
+                return ResponseEntity.ok(response);
+            } catch (Exception e) {
+                return IdempotenceService.reponseErreur(e);
+            }
+        });
     }
 
     // Rejeter une demande
     @PutMapping("/{id}/reject")
     public ResponseEntity<Map<String, Object>> rejeterDemande(
             @PathVariable Long id,
-            @RequestBody Map<String, String> request) {
-        try {
-            Long approbateurId = 1L; // ID fixe pour l'instant
-            String motifRejet = request.get("motifRejet");
-
-            DemandeConge demandeRejetee = demandeCongeService.rejeterDemande(id, approbateurId, motifRejet);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Demande rejetée avec succès");
-            response.put("demande", demandeRejetee);
+            @RequestBody Map<String, String> request,
+            @RequestHeader(value = IdempotenceService.EN_TETE, required = false) String cleIdempotence) {
+        return idempotenceService.executer(cleIdempotence, "demande-conge:reject:" + id + ":" + idempotenceService.empreinte(request), () -> {
+            try {
+                Long approbateurId = 1L; // ID fixe pour l'instant
+                String motifRejet = request.get("motifRejet");
+
+                DemandeConge demandeRejetee = demandeCongeService.rejeterDemande(id, approbateurId, motifRejet);
+
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("message", "Demande rejetée avec succès");
+                response.put("demande", demandeRejetee);
+
+                return ResponseEntity.ok(response);
+            } catch (Exception e) {
+                return IdempotenceService.reponseErreur(e);
+            }
+        });
+    }
 
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.badRequest().body(errorResponse);
-        }
+    // Approuver ou rejeter plusieurs demandes en une fois : un résultat par demande, sans tout annuler en cas d'échec
+    @PostMapping("/decisions")
+    public ResponseEntity<Map<String, Object>> deciderEnLot(
+            @RequestBody DecisionLotDTO decision,
+            @RequestHeader(value = IdempotenceService.EN_TETE, required = false) String cleIdempotence) {
+        return idempotenceService.executer(cleIdempotence, "demande-conge:decisions:" + idempotenceService.empreinte(decision), () -> {
+            try {
+                Long approbateurId = 1L; // ID fixe pour l'instant
+
+                List<Map<String, Object>> resultats = decisionCongeService.deciderEnLot(decision, approbateurId);
+                long traitees = resultats.stream().filter(r -> Boolean.TRUE.equals(r.get("success"))).count();
+
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("message", traitees + " demande(s) traitée(s) sur " + resultats.size());
+                response.put("resultats", resultats);
+
+                return ResponseEntity.ok(response);
+            } catch (Exception e) {
+                return IdempotenceService.reponseErreur(e);
+            }
+        });
     }
 
     // Annuler une demande
@@ -142,15 +185,27 @@ public class DemandeCongeController {
 
     // Récupérer toutes les demandes avec détails
     @GetMapping("/with-details")
-    public ResponseEntity<List<Map<String, Object>>> getAllDemandesWithDetails() {
-        List<Map<String, Object>> demandes = demandeCongeService.getAllDemandesWithDetails();
+    public ResponseEntity<List<DemandeCongeDetailDTO>> getAllDemandesWithDetails() {
+        List<DemandeCongeDetailDTO> demandes = demandeCongeService.getAllDemandesWithDetails();
         return ResponseEntity.ok(demandes);
     }
 
+    // Page de demandes avec détails, filtrable par statut, année et période (debut/fin au format yyyy-MM-dd)
+    @GetMapping("/details")
+    public ResponseEntity<PageDTO<DemandeCongeDetailDTO>> getDemandesWithDetailsPage(
+            @RequestParam(required = false) DemandeConge.StatutDemande statut,
+            @RequestParam(required = false) Integer annee,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @RequestParam(defaultValue = "0") Integer page,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(demandeCongeService.getDemandesWithDetailsPage(statut, annee, debut, fin, page, size));
+    }
+
     // Récupérer toutes les demandes
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getAllDemandes() {
-        List<Map<String, Object>> demandes = demandeCongeService.getAllDemandesWithDetails();
+    public ResponseEntity<List<DemandeCongeDetailDTO>> getAllDemandes() {
+        List<DemandeCongeDetailDTO> demandes = demandeCongeService.getAllDemandesWithDetails();
         return ResponseEntity.ok(demandes);
     }
 
@@ -169,15 +224,21 @@ public class DemandeCongeController {
         return ResponseEntity.ok(nouvelleDemande);
     }
 
-    // Mettre à jour une demande
+    // Mettre à jour une demande : la version lue est obligatoire, le statut envoyé est ignoré
     @PutMapping("/{id}")
-    public ResponseEntity<DemandeConge> updateDemande(@PathVariable Long id, @RequestBody DemandeConge demande) {
+    public ResponseEntity<?> updateDemande(@PathVariable Long id, @RequestBody DemandeConge demande) {
         if (demandeCongeService.getDemandeById(id).isEmpty()) {
             return ResponseEntity.notFound().build();
         }
         demande.setId(id);
-        DemandeConge demandeMaj = demandeCongeService.saveDemande(demande);
-        return ResponseEntity.ok(demandeMaj);
+        try {
+            return ResponseEntity.ok(demandeCongeService.saveDemande(demande));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        }
     }
 
     // Supprimer une demande
@@ -208,6 +269,42 @@ public class DemandeCongeController {
         }
     }
 
+    // Détail du solde d'une année : droit, report, jours pris et mouvements du journal
+    @GetMapping("/solde/{employeId}/detail")
+    public ResponseEntity<Map<String, Object>> getSoldeCongeDetail(@PathVariable Long employeId,
+                                                                   @RequestParam(required = false) Integer annee) {
+        try {
+            int anneeEffective = annee != null ? annee : LocalDate.now().getYear();
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("solde", soldeCongeService.getSolde(employeId, anneeEffective));
+            response.put("mouvements", soldeCongeService.getMouvements(employeId, anneeEffective));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+
+    // Rapprochement du journal des soldes avec les demandes approuvées (corriger=true pour réimputer les écarts)
+    @PostMapping("/soldes/rapprochement")
+    public ResponseEntity<Map<String, Object>> rapprocherSoldes(@RequestParam(required = false) Integer annee,
+                                                                @RequestParam(defaultValue = "false") boolean corriger) {
+        int anneeEffective = annee != null ? annee : LocalDate.now().getYear();
+        List<Map<String, Object>> ecarts = soldeCongeService.rapprocher(anneeEffective, corriger);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("annee", anneeEffective);
+        response.put("ecarts", ecarts);
+        response.put("message", ecarts.isEmpty()
+                ? "Journal des soldes cohérent"
+                : ecarts.size() + " écart(s) détecté(s)" + (corriger ? " et corrigé(s)" : ""));
+        return ResponseEntity.ok(response);
+    }
+
     // Récupérer les congés actifs d'un employé à une date donnée
     @GetMapping("/employe/{employeId}/actifs")
     public ResponseEntity<List<DemandeConge>> getCongesActifs(
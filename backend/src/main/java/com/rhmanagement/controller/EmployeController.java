@@ -1,18 +1,21 @@
 package com.rhmanagement.controller;
 
+import com.rhmanagement.dto.CursorPageDTO;
+import com.rhmanagement.dto.DossierEmployeDTO;
+import com.rhmanagement.dto.EmployeDTO;
 import com.rhmanagement.entity.Employe;
 import com.rhmanagement.entity.Enfant;
+import com.rhmanagement.service.DossierEmployeService;
 import com.rhmanagement.service.EmployeService;
 import com.rhmanagement.service.PdfExportService;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayInputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -24,10 +27,13 @@ public class EmployeController {
 
     private final EmployeService employeService;
     private final PdfExportService pdfExportService;
+    private final DossierEmployeService dossierEmployeService;
 
-    public EmployeController(EmployeService employeService, PdfExportService pdfExportService) {
+    public EmployeController(EmployeService employeService, PdfExportService pdfExportService,
+                             DossierEmployeService dossierEmployeService) {
         this.employeService = employeService;
         this.pdfExportService = pdfExportService;
+        this.dossierEmployeService = dossierEmployeService;
     }
 
     @PostMapping("/{id}/photo")
@@ -63,6 +69,23 @@ public class EmployeController {
         return employeService.getAllEmployes();
     }
 
+    /**
+     * Annuaire paginé par curseur : renvoie des résumés légers (sans collections)
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<EmployeDTO>> getEmployesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) Employe.StatutEmploye statut,
+            @RequestParam(required = false) Employe.Poste poste) {
+        try {
+            return ResponseEntity.ok(employeService.getEmployesPage(cursor, size, sort, statut, poste));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Employe> getEmployeById(@PathVariable Long id) {
         return employeService.getEmployeById(id)
@@ -70,6 +93,17 @@ public class EmployeController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Fiche et collections de l'employé (enfants, diplômes, postes, compétences, formations,
+     * documents, affectations) en un seul appel
+     */
+    @GetMapping("/{id}/dossier")
+    public ResponseEntity<DossierEmployeDTO> getDossierEmploye(@PathVariable Long id) {
+        return dossierEmployeService.getDossier(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/matricule/{matricule}")
     public ResponseEntity<Employe> getEmployeByMatricule(@PathVariable String matricule) {
         return employeService.getEmployeByMatricule(matricule)
@@ -103,8 +137,10 @@ public class EmployeController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Employe>> searchEmployes(@RequestParam String query) {
-        List<Employe> result = employeService.searchEmployes(query);
+    public ResponseEntity<List<Employe>> searchEmployes(@RequestParam String query,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        @RequestParam(defaultValue = "exact") String mode) {
+        List<Employe> result = employeService.searchEmployes(query, limit, "fuzzy".equalsIgnoreCase(mode));
         return ResponseEntity.ok(result);
     }
 
@@ -140,7 +176,7 @@ public class EmployeController {
     }
 
     @GetMapping("/{id}/fiche-pdf")
-    public ResponseEntity<InputStreamResource> exportFicheEmployePdf(@PathVariable Long id) {
+    public ResponseEntity<StreamingResponseBody> exportFicheEmployePdf(@PathVariable Long id) {
         try {
             System.out.println("=== DÉBUT EXPORT FICHE EMPLOYÉ PDF ===");
             System.out.println("Employé ID: " + id);
@@ -152,16 +188,15 @@ public class EmployeController {
             // Récupérer les données supplémentaires
             List<Enfant> enfants = employeService.getEnfantsByEmployeId(id);
 
-            // Utiliser le même service PDF que l'état de service
-            ByteArrayInputStream pdfStream = pdfExportService.generateFicheEmployePdf(employe, enfants);
-
             HttpHeaders headers = new HttpHeaders();
             headers.add("Content-Disposition", "attachment; filename=fiche-employe-" + employe.getMatricule() + ".pdf");
 
+            // Même service PDF que l'état de service, écrit directement dans la réponse
+            StreamingResponseBody pdf = out -> pdfExportService.ecrireFicheEmployePdf(employe, enfants, out);
             return ResponseEntity.ok()
                     .headers(headers)
                     .contentType(MediaType.APPLICATION_PDF)
-                    .body(new InputStreamResource(pdfStream));
+                    .body(pdf);
 
         } catch (Exception e) {
             System.err.println("=== ERREUR LORS DE L'EXPORT FICHE EMPLOYÉ PDF ===");
@@ -6,13 +6,12 @@ import com.rhmanagement.service.EmployeService;
 import com.rhmanagement.service.HistoriquePosteService;
 import com.rhmanagement.service.PdfExportService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayInputStream;
 import java.util.List;
 
 @RestController
@@ -30,7 +29,7 @@ public class EtatServiceController {
     private PdfExportService pdfExportService;
 
     @GetMapping("/export")
-    public ResponseEntity<InputStreamResource> exportEtatService(@PathVariable Long employeId) {
+    public ResponseEntity<StreamingResponseBody> exportEtatService(@PathVariable Long employeId) {
         try {
             // Récupérer les données
             Employe employe = employeService.getEmployeById(employeId)
@@ -38,17 +37,16 @@ public class EtatServiceController {
 
             List<HistoriquePoste> historique = historiquePosteService.getHistoriqueByEmployeId(employeId);
 
-            // Générer le PDF
-            ByteArrayInputStream pdfStream = pdfExportService.generateEtatServicePdf(employe, historique);
-
             // Préparer la réponse
             HttpHeaders headers = new HttpHeaders();
             headers.add("Content-Disposition", "attachment; filename=etat-service-" + employe.getMatricule() + ".pdf");
 
+            // Le PDF est écrit directement dans la réponse (transfert chunked, sans copie en mémoire)
+            StreamingResponseBody pdf = out -> pdfExportService.ecrireEtatServicePdf(employe, historique, out);
             return ResponseEntity.ok()
                     .headers(headers)
                     .contentType(MediaType.APPLICATION_PDF)
-                    .body(new InputStreamResource(pdfStream));
+                    .body(pdf);
         } catch (Exception e) {
             throw new RuntimeException("Erreur lors de l'export de l'état de service", e);
         }
@@ -0,0 +1,111 @@
+package com.rhmanagement.controller;
+
+import com.rhmanagement.entity.Employe;
+import com.rhmanagement.service.ExportLotService;
+import com.rhmanagement.service.ExportPdfService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/exports")
+@CrossOrigin(origins = "http://localhost:5173")
+public class ExportController {
+
+    private final ExportPdfService exportPdfService;
+    private final ExportLotService exportLotService;
+
+    public ExportController(ExportPdfService exportPdfService, ExportLotService exportLotService) {
+        this.exportPdfService = exportPdfService;
+        this.exportLotService = exportLotService;
+    }
+
+    // Archive ZIP des états de service des employés filtrés, écrite dans la réponse au fil des rendus
+    @GetMapping("/etats-service")
+    public ResponseEntity<?> exporterEtatsService(@RequestParam(required = false) Employe.Poste poste,
+                                                  @RequestParam(required = false) Employe.StatutEmploye statut,
+                                                  @RequestParam(required = false) String affectation) {
+        List<Long> employeIds = exportLotService.selectionner(poste, statut, affectation);
+        if (employeIds.isEmpty()) {
+            return erreur(HttpStatus.NOT_FOUND, "Aucun employé ne correspond aux critères");
+        }
+        StreamingResponseBody zip = out -> exportLotService.ecrireEtatsServiceZip(employeIds, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=etats-service-" + LocalDate.now() + ".zip")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(zip);
+    }
+
+    // Lance la génération en tâche de fond ; la réponse contient l'identifiant du travail à suivre
+    @PostMapping("/etat-service/{employeId}")
+    public ResponseEntity<Map<String, Object>> exporterEtatService(@PathVariable Long employeId) {
+        return soumettre(ExportPdfService.TypeExport.ETAT_SERVICE, employeId);
+    }
+
+    @PostMapping("/fiche/{employeId}")
+    public ResponseEntity<Map<String, Object>> exporterFiche(@PathVariable Long employeId) {
+        return soumettre(ExportPdfService.TypeExport.FICHE_EMPLOYE, employeId);
+    }
+
+    @GetMapping("/{travailId}")
+    public ResponseEntity<Map<String, Object>> getStatut(@PathVariable String travailId) {
+        Optional<Map<String, Object>> statut = exportPdfService.getStatut(travailId);
+        if (statut.isEmpty()) {
+            return erreur(HttpStatus.NOT_FOUND, "Export introuvable ou expiré");
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", statut.get());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{travailId}/fichier")
+    public ResponseEntity<?> telecharger(@PathVariable String travailId) {
+        Optional<Map.Entry<Path, String>> fichier = exportPdfService.getFichier(travailId);
+        if (fichier.isEmpty()) {
+            return exportPdfService.getStatut(travailId).isPresent()
+                    ? erreur(HttpStatus.CONFLICT, "L'export n'est pas encore disponible")
+                    : erreur(HttpStatus.NOT_FOUND, "Export introuvable ou expiré");
+        }
+        Resource pdf = new FileSystemResource(fichier.get().getKey());
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fichier.get().getValue())
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(pdf);
+    }
+
+    private ResponseEntity<Map<String, Object>> soumettre(ExportPdfService.TypeExport type, Long employeId) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", exportPdfService.soumettre(type, employeId));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (NoSuchElementException e) {
+            return erreur(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return erreur(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> erreur(HttpStatus statut, String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("success", false);
+        error.put("message", message);
+        return ResponseEntity.status(statut).body(error);
+    }
+}
@@ -0,0 +1,62 @@
+package com.rhmanagement.controller;
+
+import com.rhmanagement.service.MiniaturePhotoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/uploads/miniatures")
+@CrossOrigin(origins = "http://localhost:5173")
+public class MiniaturePhotoController {
+
+    @Autowired
+    private MiniaturePhotoService miniaturePhotoService;
+
+    // Les noms de photo sont uniques (UUID, horodatage) : une miniature ne change jamais une fois créée
+    private static final CacheControl CACHE_MINIATURE = CacheControl.maxAge(Duration.ofDays(30)).cachePrivate();
+
+    /**
+     * Miniature d'une photo de profil (format avatar ou pdf) ; l'original tant qu'elle n'est pas encore générée
+     */
+    @GetMapping("/{format}/{nomFichier:.+}")
+    public ResponseEntity<Resource> getMiniature(@PathVariable String format, @PathVariable String nomFichier) {
+        MiniaturePhotoService.Format formatMiniature;
+        try {
+            formatMiniature = MiniaturePhotoService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Path fichier = miniaturePhotoService.chemin(nomFichier, formatMiniature);
+        if (fichier == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        boolean miniature = fichier.getFileName().toString()
+                .equals(MiniaturePhotoService.nomMiniature(nomFichier, formatMiniature));
+        return ResponseEntity.ok()
+                .contentType(miniature ? MediaType.IMAGE_JPEG : typeContenu(fichier))
+                .cacheControl(miniature ? CACHE_MINIATURE : CacheControl.noCache())
+                .body(new FileSystemResource(fichier));
+    }
+
+    private static MediaType typeContenu(Path fichier) {
+        try {
+            String type = Files.probeContentType(fichier);
+            return type != null ? MediaType.parseMediaType(type) : MediaType.IMAGE_JPEG;
+        } catch (IOException e) {
+            return MediaType.IMAGE_JPEG;
+        }
+    }
+}
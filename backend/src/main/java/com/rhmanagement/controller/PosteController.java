@@ -0,0 +1,68 @@
+package com.rhmanagement.controller;
+
+import com.rhmanagement.entity.Poste;
+import com.rhmanagement.service.ReferenceDataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/postes")
+@CrossOrigin(origins = "http://localhost:5173")
+public class PosteController {
+
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
+    // Servi depuis l'instantané en mémoire ; no-cache : le navigateur revalide à chaque usage et
+    // If-None-Match sur l'ETag courant renvoie 304 sans corps, une écriture est donc visible aussitôt
+    @GetMapping
+    public ResponseEntity<List<Poste>> getAllPostes() {
+        try {
+            List<Poste> postes = referenceDataService.getPostes();
+            return ResponseEntity.ok()
+                    .eTag(referenceDataService.getEtag())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(postes);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Poste> getPoste(@PathVariable Long id) {
+        return referenceDataService.getPoste(id)
+                .map(poste -> ResponseEntity.ok()
+                        .eTag(referenceDataService.getEtag())
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .body(poste))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    public ResponseEntity<Poste> createPoste(@RequestBody Poste poste) {
+        poste.setId(null);
+        return ResponseEntity.ok(referenceDataService.savePoste(poste));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Poste> updatePoste(@PathVariable Long id, @RequestBody Poste poste) {
+        if (referenceDataService.getPoste(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        poste.setId(id);
+        return ResponseEntity.ok(referenceDataService.savePoste(poste));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deletePoste(@PathVariable Long id) {
+        if (referenceDataService.getPoste(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        referenceDataService.deletePoste(id);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,86 @@
+package com.rhmanagement.controller;
+
+import com.rhmanagement.repository.EmployeRepository;
+import com.rhmanagement.service.MoteurPresence;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/presence")
+@CrossOrigin(origins = "http://localhost:5173")
+public class PresenceController {
+
+    @Autowired
+    private MoteurPresence moteurPresence;
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    // Employés disponibles (ni inactifs, ni en congé, ni absents) à une date, aujourd'hui par défaut
+    @GetMapping("/disponibles")
+    public ResponseEntity<Map<String, Object>> getDisponibles(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        LocalDate jour = date != null ? date : LocalDate.now();
+        List<Long> ids = moteurPresence.employesDisponibles(jour);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("date", jour);
+        response.put("total", ids.size());
+        response.put("data", ids.isEmpty() ? List.of() : employeRepository.findResumesByIdIn(ids));
+        return ResponseEntity.ok(response);
+    }
+
+    // Nombre de présents par jour d'un mois (format yyyy-MM) dans un district
+    @GetMapping("/couverture")
+    public ResponseEntity<Map<String, Object>> getCouverture(@RequestParam String district,
+                                                             @RequestParam String mois) {
+        YearMonth moisDemande;
+        try {
+            moisDemande = YearMonth.parse(mois);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("message", "Mois invalide, format attendu : AAAA-MM");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("district", district);
+        response.put("mois", moisDemande.toString());
+        response.put("data", moteurPresence.couvertureDistrict(district, moisDemande));
+        return ResponseEntity.ok(response);
+    }
+
+    // Premier jour à partir duquel l'employé est libre pendant N jours consécutifs
+    @GetMapping("/fenetre-libre/{employeId}")
+    public ResponseEntity<Map<String, Object>> getFenetreLibre(
+            @PathVariable Long employeId,
+            @RequestParam int jours,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate apartir) {
+        if (jours < 1 || jours > 366) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("message", "Le nombre de jours doit être compris entre 1 et 366");
+            return ResponseEntity.badRequest().body(error);
+        }
+        LocalDate debut = apartir != null ? apartir : LocalDate.now();
+        Optional<LocalDate> fenetre = moteurPresence.premiereFenetreLibre(employeId, debut, jours);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("trouvee", fenetre.isPresent());
+        fenetre.ifPresent(d -> {
+            response.put("dateDebut", d);
+            response.put("dateFin", d.plusDays(jours - 1));
+        });
+        return ResponseEntity.ok(response);
+    }
+}
@@ -2,8 +2,9 @@
 package com.rhmanagement.controller;
 
 import com.rhmanagement.entity.TypeAbsence;
-import com.rhmanagement.repository.TypeAbsenceRepository;
+import com.rhmanagement.service.ReferenceDataService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,15 +16,54 @@ import java.util.List;
 public class TypeAbsenceController {
 
     @Autowired
-    private TypeAbsenceRepository typeAbsenceRepository;
+    private ReferenceDataService referenceDataService;
 
+    // Servi depuis l'instantané en mémoire ; no-cache : le navigateur revalide à chaque usage et
+    // If-None-Match sur l'ETag courant renvoie 304 sans corps, une écriture est donc visible aussitôt
     @GetMapping // Cette annotation est cruciale
     public ResponseEntity<List<TypeAbsence>> getAllTypesAbsence() {
         try {
-            List<TypeAbsence> types = typeAbsenceRepository.findAll();
-            return ResponseEntity.ok(types);
+            List<TypeAbsence> types = referenceDataService.getTypesAbsence();
+            return ResponseEntity.ok()
+                    .eTag(referenceDataService.getEtag())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(types);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/{id}")
+    public ResponseEntity<TypeAbsence> getTypeAbsence(@PathVariable Integer id) {
+        return referenceDataService.getTypeAbsence(id)
+                .map(type -> ResponseEntity.ok()
+                        .eTag(referenceDataService.getEtag())
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .body(type))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    public ResponseEntity<TypeAbsence> createTypeAbsence(@RequestBody TypeAbsence typeAbsence) {
+        typeAbsence.setId(null);
+        return ResponseEntity.ok(referenceDataService.saveTypeAbsence(typeAbsence));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<TypeAbsence> updateTypeAbsence(@PathVariable Integer id, @RequestBody TypeAbsence typeAbsence) {
+        if (referenceDataService.getTypeAbsence(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        typeAbsence.setId(id);
+        return ResponseEntity.ok(referenceDataService.saveTypeAbsence(typeAbsence));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteTypeAbsence(@PathVariable Integer id) {
+        if (referenceDataService.getTypeAbsence(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        referenceDataService.deleteTypeAbsence(id);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.rhmanagement.controller;
+
+import com.rhmanagement.entity.TypeLettrePastorale;
+import com.rhmanagement.service.ReferenceDataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/types-lettre-pastorale")
+@CrossOrigin(origins = "http://localhost:5173")
+public class TypeLettrePastoraleController {
+
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
+    // Servi depuis l'instantané en mémoire ; no-cache : le navigateur revalide à chaque usage et
+    // If-None-Match sur l'ETag courant renvoie 304 sans corps, une écriture est donc visible aussitôt
+    @GetMapping
+    public ResponseEntity<List<TypeLettrePastorale>> getAllTypesLettrePastorale() {
+        try {
+            List<TypeLettrePastorale> types = referenceDataService.getTypesLettrePastorale();
+            return ResponseEntity.ok()
+                    .eTag(referenceDataService.getEtag())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(types);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<TypeLettrePastorale> getTypeLettrePastorale(@PathVariable Integer id) {
+        return referenceDataService.getTypeLettrePastorale(id)
+                .map(type -> ResponseEntity.ok()
+                        .eTag(referenceDataService.getEtag())
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .body(type))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    public ResponseEntity<TypeLettrePastorale> createTypeLettrePastorale(@RequestBody TypeLettrePastorale typeLettre) {
+        typeLettre.setId(null);
+        return ResponseEntity.ok(referenceDataService.saveTypeLettrePastorale(typeLettre));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<TypeLettrePastorale> updateTypeLettrePastorale(@PathVariable Integer id, @RequestBody TypeLettrePastorale typeLettre) {
+        if (referenceDataService.getTypeLettrePastorale(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        typeLettre.setId(id);
+        return ResponseEntity.ok(referenceDataService.saveTypeLettrePastorale(typeLettre));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteTypeLettrePastorale(@PathVariable Integer id) {
+        if (referenceDataService.getTypeLettrePastorale(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        referenceDataService.deleteTypeLettrePastorale(id);
+        return ResponseEntity.ok().build();
+    }
+}
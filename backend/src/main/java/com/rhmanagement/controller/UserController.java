@@ -2,6 +2,7 @@ package com.rhmanagement.controller;
 
 import com.rhmanagement.entity.Utilisateur;
 import com.rhmanagement.repository.UtilisateurRepository;
+import com.rhmanagement.service.MiniaturePhotoService;
 import com.rhmanagement.service.UtilisateurService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -30,6 +31,9 @@ public class UserController {
     @Autowired
     private UtilisateurRepository utilisateurRepository;
 
+    @Autowired
+    private MiniaturePhotoService miniaturePhotoService;
+
     @GetMapping("/uploads/{filename:.+}")
     public ResponseEntity<byte[]> getImage(@PathVariable String filename) {
         try {
@@ -107,10 +111,12 @@ public class UserController {
                 } catch (IOException e) {
                     System.err.println("Erreur suppression ancienne photo: " + e.getMessage());
                 }
+                miniaturePhotoService.supprimer(utilisateur.getPhotoProfil());
             }
 
             // Sauvegarder le nouveau fichier
             Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            miniaturePhotoService.generer(filename);
 
             // Mettre à jour l'utilisateur
             utilisateur.setPhotoProfil(filename);
@@ -188,6 +194,7 @@ public class UserController {
             try {
                 Path filePath = Paths.get("uploads", utilisateur.getPhotoProfil());
                 Files.deleteIfExists(filePath);
+                miniaturePhotoService.supprimer(utilisateur.getPhotoProfil());
 
                 utilisateur.setPhotoProfil(null);
                 utilisateurRepository.save(utilisateur);
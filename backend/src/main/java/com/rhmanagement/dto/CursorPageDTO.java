@@ -0,0 +1,20 @@
+package com.rhmanagement.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Page obtenue par pagination par curseur (keyset).
+ * Le curseur est opaque pour le client : il suffit de le renvoyer tel quel pour obtenir la page suivante.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageDTO<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+}
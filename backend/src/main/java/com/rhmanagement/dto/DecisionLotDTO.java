@@ -0,0 +1,27 @@
+package com.rhmanagement.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Décision appliquée en une fois à plusieurs demandes de congé en attente.
+ * Les versions (id de demande -> version lue par l'approbateur) sont facultatives : si elles sont fournies,
+ * une demande modifiée depuis sa lecture est refusée au lieu d'être écrasée.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DecisionLotDTO {
+
+    public enum Decision {
+        APPROUVER, REJETER
+    }
+
+    private List<Long> ids;
+    private Decision decision;
+    private String motif;
+    private Map<Long, Long> versions;
+}
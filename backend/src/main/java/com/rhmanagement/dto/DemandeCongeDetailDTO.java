@@ -0,0 +1,60 @@
+package com.rhmanagement.dto;
+
+import com.rhmanagement.entity.DemandeConge;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Demande de congé accompagnée du résumé de son employé, pour l'écran d'administration des congés.
+ * Construit directement par la requête de jointure demandes / employés.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DemandeCongeDetailDTO {
+    private Long id;
+    private Long employeId;
+    private String typeConge;
+    private LocalDate dateDebut;
+    private LocalDate dateFin;
+    private String motif;
+    private String statut;
+    private LocalDateTime dateCreation;
+    // Jours ouvrables, renseignés par DemandeCongeService (calendrier des jours fériés)
+    private long joursDemandes;
+    private EmployeResume employe;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EmployeResume {
+        private Long id;
+        private String nom;
+        private String prenom;
+        private String matricule;
+        private String photoProfil;
+    }
+
+    /**
+     * Constructeur utilisé par la projection JPQL ; les colonnes employé sont nulles
+     * quand la demande référence un employé supprimé (LEFT JOIN).
+     */
+    public DemandeCongeDetailDTO(Long id, Long employeId, String typeConge, LocalDate dateDebut, LocalDate dateFin,
+                                 String motif, DemandeConge.StatutDemande statut, LocalDateTime dateCreation,
+                                 Long idEmploye, String nom, String prenom, String matricule, String photoProfil) {
+        this.id = id;
+        this.employeId = employeId;
+        this.typeConge = typeConge;
+        this.dateDebut = dateDebut;
+        this.dateFin = dateFin;
+        this.motif = motif;
+        this.statut = statut != null ? statut.name() : null;
+        this.dateCreation = dateCreation;
+        this.employe = idEmploye != null
+                ? new EmployeResume(idEmploye, nom, prenom, matricule, photoProfil)
+                : null;
+    }
+}
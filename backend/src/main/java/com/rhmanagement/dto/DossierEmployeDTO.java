@@ -0,0 +1,40 @@
+package com.rhmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.rhmanagement.entity.*;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Dossier complet d'un employé : la fiche et toutes ses collections en un seul document JSON.
+ * La référence inverse vers l'employé est ignorée dans chaque élément pour ne pas répéter la fiche.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DossierEmployeDTO {
+    private Employe employe;
+
+    @JsonIgnoreProperties("employe")
+    private List<Enfant> enfants;
+
+    @JsonIgnoreProperties("employe")
+    private List<Diplome> diplomes;
+
+    @JsonIgnoreProperties("employe")
+    private List<HistoriquePoste> historiquePostes;
+
+    @JsonIgnoreProperties("employe")
+    private List<Competence> competences;
+
+    @JsonIgnoreProperties("employe")
+    private List<Formation> formations;
+
+    @JsonIgnoreProperties("employe")
+    private List<Document> documents;
+
+    @JsonIgnoreProperties("pasteur")
+    private List<AffectationPastorale> affectationsPastorales;
+}
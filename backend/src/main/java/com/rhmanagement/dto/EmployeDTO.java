@@ -1,15 +1,47 @@
 package com.rhmanagement.dto;
 
+import com.rhmanagement.entity.Employe;
 import lombok.*;
 
+/**
+ * Résumé léger d'un employé pour les listes (annuaire, recherche).
+ * Ne contient aucune collection : aucune relation LAZY n'est chargée.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
 public class EmployeDTO {
     private Long id;
+    private String matricule;
     private String nom;
     private String prenom;
-    private String matricule;
     private String poste;
-    // Getters et setters
-    @Getter
-    @Setter
-    private String postePersonnalise; // AJOUTEZ ce champ
+    private String postePersonnalise;
+    private String statut;
+    private String cin;
+    private String email;
+    private String telephone;
+    private String photoProfil;
+    private String affectationActuelle;
+
+    /**
+     * Constructeur utilisé par les projections JPQL (SELECT new ...)
+     */
+    public EmployeDTO(Long id, String matricule, String nom, String prenom,
+                      Employe.Poste poste, String postePersonnalise, Employe.StatutEmploye statut,
+                      String cin, String email, String telephone, String photoProfil, String affectationActuelle) {
+        this(id, matricule, nom, prenom,
+                poste != null ? poste.name() : null,
+                postePersonnalise,
+                statut != null ? statut.name() : null,
+                cin, email, telephone, photoProfil, affectationActuelle);
+    }
+
+    public static EmployeDTO fromEntity(Employe employe) {
+        return new EmployeDTO(employe.getId(), employe.getMatricule(), employe.getNom(), employe.getPrenom(),
+                employe.getPoste(), employe.getPostePersonnalise(), employe.getStatut(),
+                employe.getCin(), employe.getEmail(), employe.getTelephone(), employe.getPhotoProfil(),
+                employe.getAffectationActuelle());
+    }
 }
@@ -12,7 +12,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "absences")
+@Table(name = "absences", indexes = {
+        @Index(name = "idx_absences_date_absence", columnList = "date_absence"),
+        @Index(name = "idx_absences_employe_date", columnList = "employe_id, date_absence")
+})
 public class Absence {
 
     @Id
@@ -50,6 +53,11 @@ public class Absence {
     @Column(name = "annee", nullable = false)
     private Integer annee;
 
+    // Verrouillage optimiste : incrémenté à chaque modification
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
     // Enum pour le statut
     public enum StatutAbsence {
         EN_ATTENTE, VALIDE, REJETE, ANNULE
@@ -0,0 +1,44 @@
+package com.rhmanagement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Clé d'idempotence fournie par le client (en-tête Idempotency-Key) sur les endpoints de décision.
+ * La ligne est réservée avant le traitement puis complétée avec la réponse, rejouée telle quelle
+ * si la même requête est renvoyée.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "cles_idempotence", indexes = {
+        @Index(name = "idx_cles_idempotence_date_creation", columnList = "date_creation")
+})
+public class CleIdempotence {
+
+    @Id
+    @Column(name = "cle", length = 100)
+    private String cle;
+
+    @Column(name = "operation", nullable = false, length = 150)
+    private String operation;
+
+    // Null tant que le traitement est en cours
+    @Column(name = "statut_http")
+    private Integer statutHttp;
+
+    @Column(name = "reponse", columnDefinition = "TEXT")
+    private String reponse;
+
+    @Column(name = "date_creation", nullable = false)
+    private LocalDateTime dateCreation;
+
+    public boolean isTermine() {
+        return statutHttp != null;
+    }
+}
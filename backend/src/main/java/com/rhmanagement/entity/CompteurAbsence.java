@@ -0,0 +1,43 @@
+package com.rhmanagement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Nombre d'absences validées d'un employé pour un type d'absence et une année.
+ * Tenu à jour dans la transaction de chaque validation ou annulation : le contrôle du plafond annuel
+ * est une lecture ponctuelle sur la clé unique au lieu d'un COUNT sur la table des absences.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "compteurs_absence", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_compteurs_absence_employe_type_annee",
+                columnNames = {"employe_id", "type_absence_id", "annee"})
+})
+public class CompteurAbsence {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "employe_id", nullable = false)
+    private Long employeId;
+
+    @Column(name = "type_absence_id", nullable = false)
+    private Integer typeAbsenceId;
+
+    @Column(name = "annee", nullable = false)
+    private Integer annee;
+
+    @Column(name = "utilisees", nullable = false)
+    private Integer utilisees;
+
+    @Column(name = "date_mise_a_jour")
+    private LocalDateTime dateMiseAJour;
+}
@@ -14,7 +14,11 @@ import java.time.temporal.ChronoUnit;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "demandesconge")
+@Table(name = "demandesconge", indexes = {
+        @Index(name = "idx_demandesconge_annee_statut", columnList = "annee, statut"),
+        @Index(name = "idx_demandesconge_statut_date_fin", columnList = "statut, date_fin"),
+        @Index(name = "idx_demandesconge_employe_statut", columnList = "employe_id, statut, date_debut")
+})
 public class DemandeConge {
 
     @Id
@@ -60,6 +64,11 @@ public class DemandeConge {
     // Dans votre entité DemandeConge
     private String note;
 
+    // Verrouillage optimiste : incrémenté à chaque modification, y compris par les décisions en lot
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
     public JacksonInject.Value getEmploye() {
         return null;
     }
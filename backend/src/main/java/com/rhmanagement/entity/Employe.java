@@ -12,7 +12,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "employes")
+@Table(name = "employes", indexes = {
+        @Index(name = "idx_employes_nom_prenom_id", columnList = "nom, prenom, id"),
+        @Index(name = "idx_employes_statut_poste", columnList = "statut, poste")
+})
 @Data
 @Getter
 @Setter
@@ -0,0 +1,37 @@
+package com.rhmanagement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Dernière exécution réussie d'une tâche planifiée.
+ * Le filigrane (dateReference) permet à la tâche suivante de ne traiter que ce qui a changé depuis.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "executions_taches")
+public class ExecutionTache {
+
+    @Id
+    @Column(name = "nom", length = 100)
+    private String nom;
+
+    @Column(name = "date_reference", nullable = false)
+    private LocalDate dateReference;
+
+    @Column(name = "date_execution", nullable = false)
+    private LocalDateTime dateExecution;
+
+    @Column(name = "lignes_modifiees", nullable = false)
+    private Integer lignesModifiees;
+
+    @Column(name = "duree_ms", nullable = false)
+    private Long dureeMs;
+}
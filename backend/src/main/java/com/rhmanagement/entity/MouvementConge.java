@@ -0,0 +1,60 @@
+package com.rhmanagement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Écriture du journal des congés. Le solde d'une année est la somme de ses mouvements :
+ * acquisition et report (positifs), prise (négative), restitution (positive).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "mouvements_conge", indexes = {
+        @Index(name = "idx_mouvements_conge_employe_annee", columnList = "employe_id, annee"),
+        @Index(name = "idx_mouvements_conge_demande", columnList = "demande_id")
+})
+public class MouvementConge {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "employe_id", nullable = false)
+    private Long employeId;
+
+    @Column(name = "annee", nullable = false)
+    private Integer annee;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 20)
+    private TypeMouvement type;
+
+    @Column(name = "jours", nullable = false)
+    private Integer jours;
+
+    @Column(name = "demande_id")
+    private Long demandeId;
+
+    @Column(name = "libelle")
+    private String libelle;
+
+    @Column(name = "date_mouvement", nullable = false, updatable = false)
+    private LocalDateTime dateMouvement;
+
+    public enum TypeMouvement {
+        ACQUISITION, REPORT, PRISE, RESTITUTION
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        if (this.dateMouvement == null) {
+            this.dateMouvement = LocalDateTime.now();
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.rhmanagement.entity;
 
 import jakarta.persistence.*;
+import lombok.*;
 
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
 @Entity
 @Table(name = "postes")
 public class Poste {
@@ -14,6 +19,4 @@ public class Poste {
 
     @Column
     private boolean actif = true;
-
-    // constructeurs, getters, setters
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package com.rhmanagement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Solde de congé d'un employé pour une année : droit acquis, report de l'année précédente et jours pris.
+ * Tenu à jour à chaque mouvement (voir MouvementConge), ce qui rend la lecture du solde immédiate.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "soldes_conge", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_soldes_conge_employe_annee", columnNames = {"employe_id", "annee"})
+})
+public class SoldeConge {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "employe_id", nullable = false)
+    private Long employeId;
+
+    @Column(name = "annee", nullable = false)
+    private Integer annee;
+
+    @Column(name = "droit_annuel", nullable = false)
+    private Integer droitAnnuel;
+
+    @Column(name = "report", nullable = false)
+    private Integer report;
+
+    @Column(name = "jours_pris", nullable = false)
+    private Integer joursPris;
+
+    @Column(name = "date_mise_a_jour")
+    private LocalDateTime dateMiseAJour;
+
+    public int getDisponible() {
+        return droitAnnuel + report - joursPris;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        this.dateMiseAJour = LocalDateTime.now();
+    }
+}
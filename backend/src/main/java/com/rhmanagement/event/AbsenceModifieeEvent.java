@@ -0,0 +1,59 @@
+package com.rhmanagement.event;
+
+import com.rhmanagement.entity.Absence;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Publié par AbsenceService à chaque création, modification, changement de statut ou suppression d'une absence.
+ * Les écouteurs le reçoivent après le commit de la transaction.
+ */
+@Getter
+@AllArgsConstructor
+public class AbsenceModifieeEvent {
+
+    private final Long absenceId;
+    private final Long employeId;
+    private final Integer typeAbsenceId;
+    private final LocalDate dateAbsence;
+    private final Integer annee;
+
+    /**
+     * Type et année avant la modification (identiques aux valeurs courantes pour un simple changement de statut)
+     */
+    private final Integer ancienTypeAbsenceId;
+    private final Integer ancienneAnnee;
+
+    /**
+     * Statut avant la modification (null pour une nouvelle absence)
+     */
+    private final Absence.StatutAbsence ancienStatut;
+
+    /**
+     * Statut après la modification (null si l'absence a été supprimée)
+     */
+    private final Absence.StatutAbsence statut;
+
+    public static AbsenceModifieeEvent of(Absence absence, Absence.StatutAbsence ancienStatut) {
+        return of(absence, absence.getTypeAbsenceId(), absence.getAnnee(), ancienStatut);
+    }
+
+    public static AbsenceModifieeEvent of(Absence absence, Integer ancienTypeAbsenceId, Integer ancienneAnnee,
+                                          Absence.StatutAbsence ancienStatut) {
+        return new AbsenceModifieeEvent(absence.getId(), absence.getEmployeId(), absence.getTypeAbsenceId(),
+                absence.getDateAbsence(), absence.getAnnee(), ancienTypeAbsenceId, ancienneAnnee,
+                ancienStatut, absence.getStatut());
+    }
+
+    public static AbsenceModifieeEvent suppression(Absence absence) {
+        return new AbsenceModifieeEvent(absence.getId(), absence.getEmployeId(), absence.getTypeAbsenceId(),
+                absence.getDateAbsence(), absence.getAnnee(), absence.getTypeAbsenceId(), absence.getAnnee(),
+                absence.getStatut(), null);
+    }
+
+    public boolean isSupprimee() {
+        return statut == null;
+    }
+}
@@ -0,0 +1,56 @@
+package com.rhmanagement.event;
+
+import com.rhmanagement.entity.DemandeConge;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Publié à chaque création, changement de statut ou suppression d'une demande de congé.
+ * Les écouteurs le reçoivent après le commit de la transaction.
+ */
+@Getter
+@AllArgsConstructor
+public class DemandeCongeModifieeEvent {
+
+    private final Long demandeId;
+    private final Long employeId;
+    private final LocalDate dateDebut;
+    private final LocalDate dateFin;
+    private final Integer annee;
+
+    /**
+     * Année avant la modification (différente de annee si la demande a changé d'année)
+     */
+    private final Integer ancienneAnnee;
+
+    /**
+     * Statut avant la modification (null pour une nouvelle demande)
+     */
+    private final DemandeConge.StatutDemande ancienStatut;
+
+    /**
+     * Statut après la modification (null si la demande a été supprimée)
+     */
+    private final DemandeConge.StatutDemande statut;
+
+    public static DemandeCongeModifieeEvent of(DemandeConge demande, DemandeConge.StatutDemande ancienStatut) {
+        return of(demande, ancienStatut, demande.getAnnee());
+    }
+
+    public static DemandeCongeModifieeEvent of(DemandeConge demande, DemandeConge.StatutDemande ancienStatut,
+                                               Integer ancienneAnnee) {
+        return new DemandeCongeModifieeEvent(demande.getId(), demande.getEmployeId(), demande.getDateDebut(),
+                demande.getDateFin(), demande.getAnnee(), ancienneAnnee, ancienStatut, demande.getStatut());
+    }
+
+    public static DemandeCongeModifieeEvent suppression(DemandeConge demande) {
+        return new DemandeCongeModifieeEvent(demande.getId(), demande.getEmployeId(), demande.getDateDebut(),
+                demande.getDateFin(), demande.getAnnee(), demande.getAnnee(), demande.getStatut(), null);
+    }
+
+    public boolean isSupprimee() {
+        return statut == null;
+    }
+}
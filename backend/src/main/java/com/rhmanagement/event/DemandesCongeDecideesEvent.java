@@ -0,0 +1,28 @@
+package com.rhmanagement.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Publié une seule fois par décision en lot, avec les modifications de toutes les demandes traitées.
+ * Les écouteurs regroupent leur travail par employé au lieu de le répéter pour chaque demande.
+ */
+@Getter
+@AllArgsConstructor
+public class DemandesCongeDecideesEvent {
+
+    private final List<DemandeCongeModifieeEvent> modifications;
+
+    /**
+     * Modifications regroupées par employé, dans l'ordre du lot
+     */
+    public Map<Long, List<DemandeCongeModifieeEvent>> parEmploye() {
+        return modifications.stream().collect(Collectors.groupingBy(DemandeCongeModifieeEvent::getEmployeId,
+                LinkedHashMap::new, Collectors.toList()));
+    }
+}
@@ -0,0 +1,25 @@
+package com.rhmanagement.event;
+
+import com.rhmanagement.dto.EmployeDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Publié par EmployeService à chaque création, modification ou suppression d'un employé.
+ * Les écouteurs le reçoivent après le commit de la transaction.
+ */
+@Getter
+@AllArgsConstructor
+public class EmployeModifieEvent {
+
+    private final Long employeId;
+
+    /**
+     * Résumé de l'employé après modification (null si supprimé)
+     */
+    private final EmployeDTO resume;
+
+    public boolean isSupprime() {
+        return resume == null;
+    }
+}
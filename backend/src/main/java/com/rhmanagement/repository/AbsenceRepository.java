@@ -1,12 +1,16 @@
 package com.rhmanagement.repository;
 
 import com.rhmanagement.entity.Absence;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -26,14 +30,48 @@ public interface AbsenceRepository extends JpaRepository<Absence, Long> {
                                           @Param("startDate") LocalDate startDate,
                                           @Param("endDate") LocalDate endDate);
 
-    @Query("SELECT COUNT(a) FROM Absence a WHERE a.employeId = :employeId AND a.typeAbsenceId = :typeAbsenceId AND a.annee = :annee AND a.statut = 'VALIDE'")
-    Integer countAbsencesByTypeAndYear(@Param("employeId") Long employeId,
-                                       @Param("typeAbsenceId") Integer typeAbsenceId,
-                                       @Param("annee") Integer annee);
+    @Query("SELECT COUNT(a) > 0 FROM Absence a WHERE a.employeId = :employeId AND a.dateAbsence = :date " +
+            "AND a.statut = 'VALIDE' AND (:exclureId IS NULL OR a.id <> :exclureId)")
+    boolean existeAbsenceValidee(@Param("employeId") Long employeId,
+                                 @Param("date") LocalDate date,
+                                 @Param("exclureId") Long exclureId);
 
     @Query("SELECT a.statut, COUNT(a) FROM Absence a WHERE a.annee = :annee GROUP BY a.statut")
     List<Object[]> countAbsencesByStatutAndAnnee(@Param("annee") Integer annee);
 
-    @Query("SELECT ta.nom, COUNT(a) FROM Absence a JOIN TypeAbsence ta ON a.typeAbsenceId = ta.id WHERE a.annee = :annee GROUP BY ta.nom")
-    List<Object[]> countAbsencesByTypeAndAnnee(@Param("annee") Integer annee);
-}
\ No newline at end of file
+    @Query("SELECT a.typeAbsenceId, COUNT(a) FROM Absence a WHERE a.annee = :annee GROUP BY a.typeAbsenceId")
+    List<Object[]> countAbsencesByTypeIdAndAnnee(@Param("annee") Integer annee);
+
+    /**
+     * Page d'absences ; chaque filtre null est ignoré
+     */
+    @Query("SELECT a FROM Absence a WHERE (:employeId IS NULL OR a.employeId = :employeId) " +
+            "AND (:statut IS NULL OR a.statut = :statut) " +
+            "AND (:typeAbsenceId IS NULL OR a.typeAbsenceId = :typeAbsenceId) " +
+            "AND (:annee IS NULL OR a.annee = :annee) " +
+            "AND (:debut IS NULL OR a.dateAbsence >= :debut) " +
+            "AND (:fin IS NULL OR a.dateAbsence <= :fin) " +
+            "ORDER BY a.dateAbsence DESC, a.id DESC")
+    Page<Absence> findPage(@Param("employeId") Long employeId,
+                           @Param("statut") Absence.StatutAbsence statut,
+                           @Param("typeAbsenceId") Integer typeAbsenceId,
+                           @Param("annee") Integer annee,
+                           @Param("debut") LocalDate debut,
+                           @Param("fin") LocalDate fin,
+                           Pageable pageable);
+
+    /**
+     * Transitions conditionnelles : l'absence n'est modifiée que si elle est encore EN_ATTENTE
+     * @return 1 si la transition a eu lieu, 0 si l'absence n'existe pas ou a déjà été traitée
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Absence a SET a.statut = 'VALIDE', a.dateModification = :maintenant, a.version = a.version + 1 " +
+            "WHERE a.id = :id AND a.statut = 'EN_ATTENTE'")
+    int validerSiEnAttente(@Param("id") Long id, @Param("maintenant") LocalDateTime maintenant);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Absence a SET a.statut = 'REJETE', a.motif = :motif, a.dateModification = :maintenant, " +
+            "a.version = a.version + 1 WHERE a.id = :id AND a.statut = 'EN_ATTENTE'")
+    int rejeterSiEnAttente(@Param("id") Long id, @Param("motif") String motif,
+                           @Param("maintenant") LocalDateTime maintenant);
+}
@@ -2,8 +2,12 @@ package com.rhmanagement.repository;
 
 import com.rhmanagement.entity.AffectationPastorale;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,4 +17,22 @@ public interface AffectationPastoraleRepository extends JpaRepository<Affectatio
     List<AffectationPastorale> findByPasteurIdOrderByDateDebutDesc(Long pasteurId);
 
     List<AffectationPastorale> findByPasteurIdAndStatut(Long pasteurId, AffectationPastorale.StatutAffectation statut);
-}
\ No newline at end of file
+
+    /**
+     * Affectations d'un district qui recouvrent [debut, fin] : pasteurId, dateDebut, dateFin
+     */
+    @Query("SELECT a.pasteur.id, a.dateDebut, a.dateFin FROM AffectationPastorale a WHERE a.district = :district " +
+            "AND a.dateDebut <= :fin AND (a.dateFin IS NULL OR a.dateFin >= :debut)")
+    List<Object[]> findPeriodesParDistrict(@Param("district") String district,
+                                           @Param("debut") LocalDate debut,
+                                           @Param("fin") LocalDate fin);
+
+    /**
+     * Affectations des pasteurs donnés qui recouvrent [debut, fin] : pasteurId, district, dateDebut, dateFin
+     */
+    @Query("SELECT a.pasteur.id, a.district, a.dateDebut, a.dateFin FROM AffectationPastorale a " +
+            "WHERE a.pasteur.id IN :pasteurIds AND a.dateDebut <= :fin AND (a.dateFin IS NULL OR a.dateFin >= :debut)")
+    List<Object[]> findDistrictsParPasteurs(@Param("pasteurIds") Collection<Long> pasteurIds,
+                                            @Param("debut") LocalDate debut,
+                                            @Param("fin") LocalDate fin);
+}
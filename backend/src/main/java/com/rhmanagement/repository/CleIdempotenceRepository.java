@@ -0,0 +1,27 @@
+package com.rhmanagement.repository;
+
+import com.rhmanagement.entity.CleIdempotence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface CleIdempotenceRepository extends JpaRepository<CleIdempotence, String> {
+
+    /**
+     * Réserve la clé ; échoue (violation de clé primaire) si elle existe déjà.
+     * save() ne convient pas : avec un identifiant fourni, il ferait un merge et écraserait la ligne existante.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO cles_idempotence (cle, operation, date_creation) VALUES (:cle, :operation, :date)",
+            nativeQuery = true)
+    void reserver(@Param("cle") String cle, @Param("operation") String operation, @Param("date") LocalDateTime date);
+
+    @Modifying
+    @Query("DELETE FROM CleIdempotence c WHERE c.dateCreation < :limite")
+    int supprimerAvant(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,67 @@
+package com.rhmanagement.repository;
+
+import com.rhmanagement.entity.CompteurAbsence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CompteurAbsenceRepository extends JpaRepository<CompteurAbsence, Long> {
+
+    List<CompteurAbsence> findByEmployeIdAndAnnee(Long employeId, Integer annee);
+
+    @Query("SELECT c.utilisees FROM CompteurAbsence c " +
+            "WHERE c.employeId = :employeId AND c.typeAbsenceId = :typeAbsenceId AND c.annee = :annee")
+    Optional<Integer> findUtilisees(@Param("employeId") Long employeId,
+                                    @Param("typeAbsenceId") Integer typeAbsenceId,
+                                    @Param("annee") Integer annee);
+
+    /**
+     * Ajoute une absence validée au compteur, créé à la volée ; la ligne reste verrouillée jusqu'au commit
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO compteurs_absence (employe_id, type_absence_id, annee, utilisees, date_mise_a_jour) " +
+            "VALUES (:employeId, :typeAbsenceId, :annee, 1, :maintenant) " +
+            "ON DUPLICATE KEY UPDATE utilisees = utilisees + 1, date_mise_a_jour = :maintenant",
+            nativeQuery = true)
+    void incrementer(@Param("employeId") Long employeId,
+                     @Param("typeAbsenceId") Integer typeAbsenceId,
+                     @Param("annee") Integer annee,
+                     @Param("maintenant") LocalDateTime maintenant);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE CompteurAbsence c SET c.utilisees = c.utilisees - 1, c.dateMiseAJour = :maintenant " +
+            "WHERE c.employeId = :employeId AND c.typeAbsenceId = :typeAbsenceId AND c.annee = :annee " +
+            "AND c.utilisees > 0")
+    int decrementer(@Param("employeId") Long employeId,
+                    @Param("typeAbsenceId") Integer typeAbsenceId,
+                    @Param("annee") Integer annee,
+                    @Param("maintenant") LocalDateTime maintenant);
+
+    /**
+     * Réconciliation : réécrit chaque compteur avec le nombre d'absences validées (upsert, sans suppression préalable)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO compteurs_absence (employe_id, type_absence_id, annee, utilisees, date_mise_a_jour) " +
+            "SELECT * FROM (SELECT a.employe_id, a.type_absence_id, a.annee, COUNT(*) AS nombre, :maintenant AS maj " +
+            "FROM absences a WHERE a.statut = 'VALIDE' GROUP BY a.employe_id, a.type_absence_id, a.annee) recalcul " +
+            "ON DUPLICATE KEY UPDATE utilisees = recalcul.nombre, date_mise_a_jour = recalcul.maj",
+            nativeQuery = true)
+    int reconcilier(@Param("maintenant") LocalDateTime maintenant);
+
+    /**
+     * Réconciliation : remet à zéro les compteurs qui ne correspondent plus à aucune absence validée
+     */
+    @Modifying
+    @Query(value = "UPDATE compteurs_absence c SET c.utilisees = 0, c.date_mise_a_jour = :maintenant " +
+            "WHERE c.utilisees <> 0 AND NOT EXISTS (SELECT 1 FROM absences a WHERE a.statut = 'VALIDE' " +
+            "AND a.employe_id = c.employe_id AND a.type_absence_id = c.type_absence_id AND a.annee = c.annee)",
+            nativeQuery = true)
+    int remettreAZeroOrphelins(@Param("maintenant") LocalDateTime maintenant);
+}
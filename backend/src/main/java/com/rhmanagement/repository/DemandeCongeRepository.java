@@ -1,20 +1,52 @@
 package com.rhmanagement.repository;
 
+import com.rhmanagement.dto.DemandeCongeDetailDTO;
 import com.rhmanagement.entity.DemandeConge;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DemandeCongeRepository extends JpaRepository<DemandeConge, Long> {
 
+    // Demandes jointes à leur employé en une seule requête (écran d'administration des congés)
+    String DETAIL_DEMANDE = "SELECT new com.rhmanagement.dto.DemandeCongeDetailDTO(" +
+            "d.id, d.employeId, d.typeConge, d.dateDebut, d.dateFin, d.motif, d.statut, d.dateCreation, " +
+            "e.id, e.nom, e.prenom, e.matricule, e.photoProfil) " +
+            "FROM DemandeConge d LEFT JOIN Employe e ON e.id = d.employeId ";
+
+    // Filtres facultatifs : un paramètre null désactive le critère correspondant
+    String FILTRES_DEMANDE = "WHERE (:statut IS NULL OR d.statut = :statut) " +
+            "AND (:annee IS NULL OR d.annee = :annee) " +
+            "AND (:debut IS NULL OR d.dateFin >= :debut) " +
+            "AND (:fin IS NULL OR d.dateDebut <= :fin) ";
+
+    @Query(value = DETAIL_DEMANDE + FILTRES_DEMANDE + "ORDER BY d.dateCreation DESC, d.id DESC",
+            countQuery = "SELECT COUNT(d) FROM DemandeConge d " + FILTRES_DEMANDE)
+    Page<DemandeCongeDetailDTO> findDetails(@Param("statut") DemandeConge.StatutDemande statut,
+                                            @Param("annee") Integer annee,
+                                            @Param("debut") LocalDate debut,
+                                            @Param("fin") LocalDate fin,
+                                            Pageable pageable);
+
+    @Query(DETAIL_DEMANDE + "ORDER BY d.dateCreation DESC, d.id DESC")
+    List<DemandeCongeDetailDTO> findAllDetails();
+
     List<DemandeConge> findByEmployeId(Long employeId);
     List<DemandeConge> findByStatut(DemandeConge.StatutDemande statut);
+    List<DemandeConge> findByStatutIn(Collection<DemandeConge.StatutDemande> statuts);
+    List<DemandeConge> findByAnneeAndStatut(Integer annee, DemandeConge.StatutDemande statut);
+    List<DemandeConge> findByEmployeIdAndAnneeAndStatut(Long employeId, Integer annee, DemandeConge.StatutDemande statut);
 
     @Query("SELECT d FROM DemandeConge d WHERE " +
             "(d.dateDebut BETWEEN :dateDebut AND :dateFin) OR " +
@@ -66,6 +98,22 @@ public interface DemandeCongeRepository extends JpaRepository<DemandeConge, Long
     @Query("SELECT d FROM DemandeConge d WHERE d.statut = 'APPROUVE' AND d.dateFin <= :aujourdhui")
     List<DemandeConge> findCongesApprouvesTermines(@Param("aujourdhui") LocalDate aujourdhui);
 
+    /**
+     * Annote les congés approuvés terminés dans [depuis, aujourdhui[
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE DemandeConge d SET d.note = :note, d.version = d.version + 1 WHERE d.statut = 'APPROUVE' " +
+            "AND (:depuis IS NULL OR d.dateFin >= :depuis) AND d.dateFin < :aujourdhui")
+    int annoterCongesTermines(@Param("depuis") LocalDate depuis,
+                              @Param("aujourdhui") LocalDate aujourdhui,
+                              @Param("note") String note);
+
+    /**
+     * Congés approuvés en cours ou à venir (fin >= date) : échéances de changement de statut
+     */
+    @Query("SELECT d FROM DemandeConge d WHERE d.statut = 'APPROUVE' AND d.dateFin >= :date")
+    List<DemandeConge> findCongesApprouvesNonTermines(@Param("date") LocalDate date);
+
     /**
      * Trouve les demandes de congé approuvées pour un employé spécifique qui sont terminées
      */
@@ -115,6 +163,12 @@ public interface DemandeCongeRepository extends JpaRepository<DemandeConge, Long
             @Param("dateDebut") LocalDate dateDebut,
             @Param("dateFin") LocalDate dateFin);
 
+    /**
+     * Première année pour laquelle l'employé a une demande de congé (début de son historique de soldes)
+     */
+    @Query("SELECT MIN(d.annee) FROM DemandeConge d WHERE d.employeId = :employeId")
+    Optional<Integer> findPremiereAnnee(@Param("employeId") Long employeId);
+
     /**
      * Compte le nombre de demandes de congé par employé et par statut
      */
@@ -156,5 +210,17 @@ public interface DemandeCongeRepository extends JpaRepository<DemandeConge, Long
     List<DemandeConge> findCongesActifs(@Param("employeId") Long employeId,
                                         @Param("date") LocalDate date);
 
-
-}
\ No newline at end of file
+    /**
+     * Transition conditionnelle : la demande n'est modifiée que si elle est encore EN_ATTENTE
+     * @return 1 si la décision a été appliquée, 0 si la demande n'existe pas ou a déjà été traitée
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE DemandeConge d SET d.statut = :statut, d.approuvePar = :approbateurId, " +
+            "d.dateTraitement = :dateTraitement, d.motifRejet = :motifRejet, d.version = d.version + 1 " +
+            "WHERE d.id = :id AND d.statut = 'EN_ATTENTE'")
+    int deciderSiEnAttente(@Param("id") Long id,
+                           @Param("statut") DemandeConge.StatutDemande statut,
+                           @Param("approbateurId") Long approbateurId,
+                           @Param("dateTraitement") LocalDateTime dateTraitement,
+                           @Param("motifRejet") String motifRejet);
+}
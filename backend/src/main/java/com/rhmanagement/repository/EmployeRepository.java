@@ -1,11 +1,17 @@
 package com.rhmanagement.repository;
 
+import com.rhmanagement.dto.EmployeDTO;
 import com.rhmanagement.entity.Employe;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,6 +50,143 @@ public interface EmployeRepository extends JpaRepository<Employe, Long> {
     boolean existsByTelephone(String telephone);
 
     int countByStatut(Employe.StatutEmploye statut);
+
+    @Query("SELECT e.id FROM Employe e WHERE e.statut = :statut")
+    List<Long> findIdsByStatut(@Param("statut") Employe.StatutEmploye statut);
+
+    @Query("SELECT e.id, e.statut FROM Employe e")
+    List<Object[]> findIdsEtStatuts();
+
+    /**
+     * Identifiants des employés à exporter ; chaque filtre null est ignoré
+     */
+    @Query("SELECT e.id FROM Employe e WHERE (:poste IS NULL OR e.poste = :poste) " +
+            "AND (:statut IS NULL OR e.statut = :statut) " +
+            "AND (:affectation IS NULL OR e.affectationActuelle = :affectation) ORDER BY e.id")
+    List<Long> findIdsPourExport(@Param("poste") Employe.Poste poste,
+                                 @Param("statut") Employe.StatutEmploye statut,
+                                 @Param("affectation") String affectation);
+
     List<Employe> findByStatut(Employe.StatutEmploye statut);
 
-}
\ No newline at end of file
+    // PAGINATION PAR CURSEUR (KEYSET) POUR L'ANNUAIRE
+
+    String RESUME_EMPLOYE = "SELECT new com.rhmanagement.dto.EmployeDTO(e.id, e.matricule, e.nom, e.prenom, " +
+            "e.poste, e.postePersonnalise, e.statut, e.cin, e.email, e.telephone, e.photoProfil, e.affectationActuelle) " +
+            "FROM Employe e ";
+
+    String FILTRES_EMPLOYE = "(:statut IS NULL OR e.statut = :statut) AND (:poste IS NULL OR e.poste = :poste)";
+
+    /**
+     * Page suivante triée par ID croissant (le premier appel passe apresId = 0)
+     */
+    @Query(RESUME_EMPLOYE + "WHERE e.id > :apresId AND " + FILTRES_EMPLOYE + " ORDER BY e.id ASC")
+    List<EmployeDTO> findPageParIdCroissant(@Param("apresId") Long apresId,
+                                            @Param("statut") Employe.StatutEmploye statut,
+                                            @Param("poste") Employe.Poste poste,
+                                            Pageable pageable);
+
+    /**
+     * Page suivante triée par ID décroissant (le premier appel passe avantId = Long.MAX_VALUE)
+     */
+    @Query(RESUME_EMPLOYE + "WHERE e.id < :avantId AND " + FILTRES_EMPLOYE + " ORDER BY e.id DESC")
+    List<EmployeDTO> findPageParIdDecroissant(@Param("avantId") Long avantId,
+                                              @Param("statut") Employe.StatutEmploye statut,
+                                              @Param("poste") Employe.Poste poste,
+                                              Pageable pageable);
+
+    /**
+     * Page suivante triée par (nom, prénom, id) - s'appuie sur l'index idx_employes_nom_prenom_id
+     */
+    @Query(RESUME_EMPLOYE +
+            "WHERE (:apresNom IS NULL OR e.nom > :apresNom OR (e.nom = :apresNom AND " +
+            "(e.prenom > :apresPrenom OR (e.prenom = :apresPrenom AND e.id > :apresId)))) AND " +
+            FILTRES_EMPLOYE + " ORDER BY e.nom ASC, e.prenom ASC, e.id ASC")
+    List<EmployeDTO> findPageParNom(@Param("apresNom") String apresNom,
+                                    @Param("apresPrenom") String apresPrenom,
+                                    @Param("apresId") Long apresId,
+                                    @Param("statut") Employe.StatutEmploye statut,
+                                    @Param("poste") Employe.Poste poste,
+                                    Pageable pageable);
+
+    /**
+     * Résumés de tous les employés (chargement de l'index de recherche en mémoire)
+     */
+    @Query(RESUME_EMPLOYE)
+    List<EmployeDTO> findAllResumes();
+
+    /**
+     * Résumés d'un lot d'employés en une requête (résolution des employés d'une page de résultats)
+     */
+    @Query(RESUME_EMPLOYE + "WHERE e.id IN :ids")
+    List<EmployeDTO> findResumesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // INCOHÉRENCES ENTRE LE STATUT ET LES CONGÉS APPROUVÉS
+
+    // Sous-requête corrélée : l'employé e a un congé approuvé couvrant :date
+    String CONGE_EN_COURS = "(SELECT c.id FROM DemandeConge c WHERE c.employeId = e.id AND c.statut = 'APPROUVE' " +
+            "AND c.dateDebut <= :date AND c.dateFin >= :date)";
+
+    String EN_CONGE_SANS_CONGE = "WHERE e.statut = 'EN_CONGE' AND NOT EXISTS " + CONGE_EN_COURS;
+
+    String ACTIF_AVEC_CONGE = "WHERE e.statut = 'ACTIF' AND EXISTS " + CONGE_EN_COURS;
+
+    /**
+     * Employés marqués EN_CONGE sans congé approuvé en cours (anti-jointure)
+     */
+    @Query(value = RESUME_EMPLOYE + EN_CONGE_SANS_CONGE + " ORDER BY e.nom ASC, e.prenom ASC, e.id ASC",
+            countQuery = "SELECT COUNT(e) FROM Employe e " + EN_CONGE_SANS_CONGE)
+    Page<EmployeDTO> findEnCongeSansCongeEnCours(@Param("date") LocalDate date, Pageable pageable);
+
+    /**
+     * Employés marqués ACTIF alors qu'un congé approuvé est en cours (semi-jointure)
+     */
+    @Query(value = RESUME_EMPLOYE + ACTIF_AVEC_CONGE + " ORDER BY e.nom ASC, e.prenom ASC, e.id ASC",
+            countQuery = "SELECT COUNT(e) FROM Employe e " + ACTIF_AVEC_CONGE)
+    Page<EmployeDTO> findActifsAvecCongeEnCours(@Param("date") LocalDate date, Pageable pageable);
+
+    @Query("SELECT COUNT(e) FROM Employe e " + EN_CONGE_SANS_CONGE)
+    long countEnCongeSansCongeEnCours(@Param("date") LocalDate date);
+
+    @Query("SELECT COUNT(e) FROM Employe e " + ACTIF_AVEC_CONGE)
+    long countActifsAvecCongeEnCours(@Param("date") LocalDate date);
+
+    @Query("SELECT e.id FROM Employe e " + EN_CONGE_SANS_CONGE + " OR e.statut = 'ACTIF' AND EXISTS " + CONGE_EN_COURS)
+    List<Long> findIdsIncoherents(@Param("date") LocalDate date);
+
+    /**
+     * Corrige les incohérences en un seul UPDATE : EN_CONGE sans congé en cours -> ACTIF,
+     * ACTIF avec un congé en cours -> EN_CONGE. Les conditions sont revérifiées sur les lignes ciblées.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Employe e SET e.statut = CASE WHEN e.statut = 'EN_CONGE' THEN 'ACTIF' ELSE 'EN_CONGE' END " +
+            "WHERE e.id IN :ids AND (e.statut = 'EN_CONGE' AND NOT EXISTS " + CONGE_EN_COURS +
+            " OR e.statut = 'ACTIF' AND EXISTS " + CONGE_EN_COURS + ")")
+    int corrigerIncoherences(@Param("ids") Collection<Long> ids, @Param("date") LocalDate date);
+
+    /**
+     * Employés EN_CONGE ayant au moins un congé approuvé terminé au plus tard à :date (semi-jointure)
+     */
+    @Query(RESUME_EMPLOYE + "WHERE e.statut = 'EN_CONGE' AND EXISTS (SELECT c.id FROM DemandeConge c " +
+            "WHERE c.employeId = e.id AND c.statut = 'APPROUVE' AND c.dateFin <= :date)")
+    List<EmployeDTO> findEnCongeAvecCongeTermine(@Param("date") LocalDate date);
+
+    /**
+     * Effectifs du tableau de bord : une ligne par couple (statut, poste). Colonnes : statut, poste, effectif.
+     */
+    @Query("SELECT emp.statut, emp.poste, COUNT(emp) FROM Employe emp GROUP BY emp.statut, emp.poste")
+    List<Object[]> effectifsTableauDeBord();
+
+    /**
+     * Compteurs globaux du tableau de bord. Agrégat sans GROUP BY : toujours exactement une ligne,
+     * même sans aucun employé. Colonnes : demandes en attente, congés en cours, absences validées à :date,
+     * EN_CONGE sans congé en cours, ACTIF avec un congé en cours.
+     */
+    @Query("SELECT COUNT(attente), " +
+            "(SELECT COUNT(d) FROM DemandeConge d WHERE d.statut = 'APPROUVE' AND d.dateDebut <= :date AND d.dateFin >= :date), " +
+            "(SELECT COUNT(a) FROM Absence a WHERE a.dateAbsence = :date AND a.statut = 'VALIDE'), " +
+            "(SELECT COUNT(e) FROM Employe e " + EN_CONGE_SANS_CONGE + "), " +
+            "(SELECT COUNT(e) FROM Employe e " + ACTIF_AVEC_CONGE + ") " +
+            "FROM DemandeConge attente WHERE attente.statut = 'EN_ATTENTE'")
+    List<Object[]> compteursTableauDeBord(@Param("date") LocalDate date);
+}
@@ -0,0 +1,9 @@
+package com.rhmanagement.repository;
+
+import com.rhmanagement.entity.ExecutionTache;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ExecutionTacheRepository extends JpaRepository<ExecutionTache, String> {
+}
@@ -2,8 +2,13 @@ package com.rhmanagement.repository;
 
 import com.rhmanagement.entity.HistoriquePoste;
 import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
 import java.util.List;
 
 public interface HistoriquePosteRepository extends JpaRepository<HistoriquePoste, Long> {
     List<HistoriquePoste> findByEmployeIdOrderByDateDebutDesc(Long employeId);
+
+    // Historiques de plusieurs employés en une requête (exports groupés)
+    List<HistoriquePoste> findByEmployeIdIn(Collection<Long> employeIds);
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.rhmanagement.repository;
+
+import com.rhmanagement.entity.MouvementConge;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MouvementCongeRepository extends JpaRepository<MouvementConge, Long> {
+
+    List<MouvementConge> findByEmployeIdAndAnneeOrderByDateMouvementAsc(Long employeId, Integer annee);
+
+    /**
+     * Jours imputés par une demande, par année : [annee, somme des jours]
+     */
+    @Query("SELECT m.annee, SUM(m.jours) FROM MouvementConge m WHERE m.demandeId = :demandeId GROUP BY m.annee")
+    List<Object[]> sommeParAnneePourDemande(@Param("demandeId") Long demandeId);
+
+    /**
+     * Jours pris nets (prises moins restitutions) par employé pour une année : [employeId, jours]
+     */
+    @Query("SELECT m.employeId, -SUM(m.jours) FROM MouvementConge m WHERE m.annee = :annee " +
+            "AND m.type IN (com.rhmanagement.entity.MouvementConge.TypeMouvement.PRISE, " +
+            "com.rhmanagement.entity.MouvementConge.TypeMouvement.RESTITUTION) GROUP BY m.employeId")
+    List<Object[]> joursPrisParEmploye(@Param("annee") Integer annee);
+}
@@ -0,0 +1,9 @@
+package com.rhmanagement.repository;
+
+import com.rhmanagement.entity.Poste;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PosteRepository extends JpaRepository<Poste, Long> {
+}
@@ -0,0 +1,44 @@
+package com.rhmanagement.repository;
+
+import com.rhmanagement.entity.SoldeConge;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SoldeCongeRepository extends JpaRepository<SoldeConge, Long> {
+
+    Optional<SoldeConge> findByEmployeIdAndAnnee(Long employeId, Integer annee);
+
+    List<SoldeConge> findByAnnee(Integer annee);
+
+    /**
+     * Lecture avec verrou d'écriture : sérialise les mouvements concurrents sur un même solde
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SoldeConge s WHERE s.employeId = :employeId AND s.annee = :annee")
+    Optional<SoldeConge> findPourMiseAJour(@Param("employeId") Long employeId, @Param("annee") Integer annee);
+
+    /**
+     * Crée le solde s'il n'existe pas encore. Deux ouvertures concurrentes ne se gênent pas : la seconde attend
+     * le commit de la première puis n'insère rien.
+     * @return 1 si le solde a été créé, 0 s'il existait déjà
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT IGNORE INTO soldes_conge (employe_id, annee, droit_annuel, report, jours_pris, date_mise_a_jour) " +
+            "VALUES (:employeId, :annee, :droitAnnuel, :report, 0, :maintenant)",
+            nativeQuery = true)
+    int creerSiAbsent(@Param("employeId") Long employeId,
+                      @Param("annee") Integer annee,
+                      @Param("droitAnnuel") Integer droitAnnuel,
+                      @Param("report") Integer report,
+                      @Param("maintenant") LocalDateTime maintenant);
+}
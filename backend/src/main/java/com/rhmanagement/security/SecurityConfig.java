@@ -1,5 +1,6 @@
 package com.rhmanagement.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +27,9 @@ public class SecurityConfig {
                 .cors(cors -> {})
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Fin d'une réponse asynchrone (PDF en streaming) : la requête initiale a déjà été autorisée
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // ✅ CORS preflight - TRÈS IMPORTANT de le mettre en premier
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
@@ -1,20 +1,23 @@
 package com.rhmanagement.service;
 
+import com.rhmanagement.dto.EmployeDTO;
+import com.rhmanagement.dto.PageDTO;
 import com.rhmanagement.entity.Absence;
-import com.rhmanagement.entity.Employe;
 import com.rhmanagement.entity.TypeAbsence;
+import com.rhmanagement.event.AbsenceModifieeEvent;
 import com.rhmanagement.repository.AbsenceRepository;
 import com.rhmanagement.repository.EmployeRepository;
-import com.rhmanagement.repository.TypeAbsenceRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,7 +30,19 @@ public class AbsenceService {
     private EmployeRepository employeRepository;
 
     @Autowired
-    private TypeAbsenceRepository typeAbsenceRepository;
+    private ReferenceDataService referenceDataService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private StatistiquesAnnuellesService statistiquesAnnuellesService;
+
+    @Autowired
+    private CompteurAbsenceService compteurAbsenceService;
+
+    private static final int TAILLE_PAGE_DEFAUT = 50;
+    private static final int TAILLE_PAGE_MAX = 200;
 
     public List<Absence> getAllAbsences() {
         return absenceRepository.findAll();
@@ -49,11 +64,73 @@ public class AbsenceService {
             absence.setAnnee(LocalDate.now().getYear());
         }
 
-        return absenceRepository.save(absence);
+        Absence precedente = absence.getId() == null ? null : absenceRepository.findById(absence.getId()).orElse(null);
+        if (precedente == null) {
+            Absence saved = enregistrer(absence, null);
+            compteurAbsenceService.appliquer(null, CompteurAbsenceService.Cle.of(saved));
+            return saved;
+        }
+        // Valeurs lues avant l'enregistrement, qui les écrase
+        CompteurAbsenceService.Cle avant = CompteurAbsenceService.Cle.of(precedente);
+        Integer ancienType = precedente.getTypeAbsenceId();
+        Integer ancienneAnnee = precedente.getAnnee();
+        Absence.StatutAbsence ancienStatut = precedente.getStatut();
+        verifierVersion(absence.getVersion(), precedente.getVersion());
+        // Le statut ne change que par validation, rejet ou annulation
+        absence.setStatut(ancienStatut);
+        Absence saved = absenceRepository.save(absence);
+        compteurAbsenceService.appliquer(avant, CompteurAbsenceService.Cle.of(saved));
+        eventPublisher.publishEvent(AbsenceModifieeEvent.of(saved, ancienType, ancienneAnnee, ancienStatut));
+        return saved;
+    }
+
+    /**
+     * Une modification doit porter la version lue par le client, sinon elle écraserait une validation
+     * ou une modification intervenue depuis (le contrôleur répond 409)
+     */
+    private static void verifierVersion(Long versionClient, Long versionActuelle) {
+        if (versionClient == null) {
+            throw new ObjectOptimisticLockingFailureException(
+                    "La version de l'absence est obligatoire pour la modifier", null);
+        }
+        if (!versionClient.equals(versionActuelle)) {
+            throw new ObjectOptimisticLockingFailureException("L'absence a été modifiée depuis sa lecture", null);
+        }
     }
 
+    @Transactional
     public void deleteAbsence(Long id) {
-        absenceRepository.deleteById(id);
+        absenceRepository.findById(id).ifPresent(absence -> {
+            absenceRepository.delete(absence);
+            compteurAbsenceService.appliquer(CompteurAbsenceService.Cle.of(absence), null);
+            eventPublisher.publishEvent(AbsenceModifieeEvent.suppression(absence));
+        });
+    }
+
+    /**
+     * Suite d'une transition conditionnelle (UPDATE ... WHERE statut = 'EN_ATTENTE') : seule la requête
+     * qui a effectivement modifié la ligne notifie les écouteurs
+     */
+    private Absence apresDecision(Long absenceId, int lignes) {
+        Absence absence = absenceRepository.findById(absenceId)
+                .orElseThrow(() -> new RuntimeException("Absence non trouvée"));
+        if (lignes == 0) {
+            throw new RuntimeException("Cette absence a déjà été traitée");
+        }
+        compteurAbsenceService.appliquer(new CompteurAbsenceService.Cle(absence.getEmployeId(),
+                absence.getTypeAbsenceId(), absence.getAnnee(), Absence.StatutAbsence.EN_ATTENTE),
+                CompteurAbsenceService.Cle.of(absence));
+        eventPublisher.publishEvent(AbsenceModifieeEvent.of(absence, Absence.StatutAbsence.EN_ATTENTE));
+        return absence;
+    }
+
+    /**
+     * Enregistre l'absence et notifie les écouteurs (après commit)
+     */
+    private Absence enregistrer(Absence absence, Absence.StatutAbsence ancienStatut) {
+        Absence saved = absenceRepository.save(absence);
+        eventPublisher.publishEvent(AbsenceModifieeEvent.of(saved, ancienStatut));
+        return saved;
     }
 
     public List<Absence> getAbsencesByEmployeId(Long employeId) {
@@ -74,29 +151,14 @@ public class AbsenceService {
 
     @Transactional
     public Absence validerAbsence(Long absenceId, Long validateurId) {
-        Absence absence = absenceRepository.findById(absenceId)
-                .orElseThrow(() -> new RuntimeException("Absence non trouvée"));
-
-        if (absence.getStatut() != Absence.StatutAbsence.EN_ATTENTE) {
-            throw new RuntimeException("Cette absence a déjà été traitée");
-        }
-
-        absence.setStatut(Absence.StatutAbsence.VALIDE);
-        return absenceRepository.save(absence);
+        int lignes = absenceRepository.validerSiEnAttente(absenceId, LocalDateTime.now());
+        return apresDecision(absenceId, lignes);
     }
 
     @Transactional
     public Absence rejeterAbsence(Long absenceId, String motifRejet) {
-        Absence absence = absenceRepository.findById(absenceId)
-                .orElseThrow(() -> new RuntimeException("Absence non trouvée"));
-
-        if (absence.getStatut() != Absence.StatutAbsence.EN_ATTENTE) {
-            throw new RuntimeException("Cette absence a déjà été traitée");
-        }
-
-        absence.setStatut(Absence.StatutAbsence.REJETE);
-        absence.setMotif(motifRejet);
-        return absenceRepository.save(absence);
+        int lignes = absenceRepository.rejeterSiEnAttente(absenceId, motifRejet, LocalDateTime.now());
+        return apresDecision(absenceId, lignes);
     }
 
     @Transactional
@@ -108,8 +170,10 @@ public class AbsenceService {
             throw new RuntimeException("Impossible d'annuler une absence déjà passée");
         }
 
+        CompteurAbsenceService.Cle avant = CompteurAbsenceService.Cle.of(absence);
         absence.setStatut(Absence.StatutAbsence.ANNULE);
-        return absenceRepository.save(absence);
+        compteurAbsenceService.appliquer(avant, CompteurAbsenceService.Cle.of(absence));
+        return enregistrer(absence, avant.statut());
     }
 
     public boolean isEmployeAbsentALaDate(Long employeId, LocalDate date) {
@@ -119,58 +183,38 @@ public class AbsenceService {
     }
 
     public int getNombreAbsencesRestantes(Long employeId, Integer typeAbsenceId, Integer annee) {
-        TypeAbsence typeAbsence = typeAbsenceRepository.findById(typeAbsenceId)
+        TypeAbsence typeAbsence = referenceDataService.getTypeAbsence(typeAbsenceId)
                 .orElseThrow(() -> new RuntimeException("Type d'absence non trouvé"));
 
         if (typeAbsence.getPlafondAnnuel() == null) {
             return Integer.MAX_VALUE; // Pas de plafond
         }
 
-        Integer absencesUtilisees = absenceRepository.countAbsencesByTypeAndYear(employeId, typeAbsenceId, annee);
-        return typeAbsence.getPlafondAnnuel() - (absencesUtilisees != null ? absencesUtilisees : 0);
+        // Lecture ponctuelle du compteur tenu à jour à chaque validation / annulation
+        return typeAbsence.getPlafondAnnuel() - compteurAbsenceService.getUtilisees(employeId, typeAbsenceId, annee);
     }
 
-    public Map<String, Long> getStatistiquesAbsencesParAnnee(Integer annee) {
-        List<Object[]> statistiques = absenceRepository.countAbsencesByStatutAndAnnee(annee);
-
-        Map<String, Long> result = new HashMap<>();
-        result.put("EN_ATTENTE", 0L);
-        result.put("VALIDE", 0L);
-        result.put("REJETE", 0L);
-        result.put("ANNULE", 0L);
-
-        for (Object[] stat : statistiques) {
-            Absence.StatutAbsence statut = (Absence.StatutAbsence) stat[0];
-            Long count = (Long) stat[1];
-            result.put(statut.name(), count);
-        }
+    public List<Map<String, Object>> getQuotas(Long employeId, Integer annee) {
+        return compteurAbsenceService.getQuotas(employeId, annee);
+    }
 
-        return result;
+    public Map<String, Long> getStatistiquesAbsencesParAnnee(Integer annee) {
+        return statistiquesAnnuellesService.getStatistiquesAbsences(annee);
     }
 
     public Map<String, Long> getStatistiquesAbsencesParType(Integer annee) {
-        List<Object[]> statistiques = absenceRepository.countAbsencesByTypeAndAnnee(annee);
-
-        Map<String, Long> result = new HashMap<>();
-        for (Object[] stat : statistiques) {
-            String typeAbsenceNom = (String) stat[0];
-            Long count = (Long) stat[1];
-            result.put(typeAbsenceNom, count);
-        }
-
-        return result;
+        return statistiquesAnnuellesService.getStatistiquesAbsencesParType(annee);
     }
 
     private void validateAbsence(Absence absence) {
         // Vérifier que l'employé existe
-        if (absence.getEmployeId() != null) {
-            Employe employe = employeRepository.findById(absence.getEmployeId())
-                    .orElseThrow(() -> new RuntimeException("Employé non trouvé avec l'ID: " + absence.getEmployeId()));
+        if (absence.getEmployeId() != null && !employeRepository.existsById(absence.getEmployeId())) {
+            throw new RuntimeException("Employé non trouvé avec l'ID: " + absence.getEmployeId());
         }
 
         // Vérifier que le type d'absence existe
         if (absence.getTypeAbsenceId() != null) {
-            TypeAbsence typeAbsence = typeAbsenceRepository.findById(absence.getTypeAbsenceId())
+            TypeAbsence typeAbsence = referenceDataService.getTypeAbsence(absence.getTypeAbsenceId())
                     .orElseThrow(() -> new RuntimeException("Type d'absence non trouvé avec l'ID: " + absence.getTypeAbsenceId()));
 
             // Vérifier le plafond annuel si applicable
@@ -196,23 +240,43 @@ public class AbsenceService {
 
         // Vérifier si l'employé n'est pas déjà absent à cette date
         if (absence.getEmployeId() != null && absence.getDateAbsence() != null) {
-            List<Absence> absencesExistantes = absenceRepository.findByEmployeAndDate(
-                    absence.getEmployeId(), absence.getDateAbsence());
-
-            boolean hasValidAbsence = absencesExistantes.stream()
-                    .anyMatch(a ->
-                            !a.getId().equals(absence.getId()) && // Exclure l'absence actuelle en cas de modification
-                                    a.getStatut() == Absence.StatutAbsence.VALIDE
-                    );
-
-            if (hasValidAbsence) {
+            // L'absence elle-même est exclue en cas de modification
+            if (absenceRepository.existeAbsenceValidee(absence.getEmployeId(), absence.getDateAbsence(), absence.getId())) {
                 throw new RuntimeException("L'employé a déjà une absence validée à cette date");
             }
         }
     }
 
     public List<Map<String, Object>> getAllAbsencesWithDetails() {
-        List<Absence> absences = absenceRepository.findAll();
+        return avecDetails(absenceRepository.findAll());
+    }
+
+    /**
+     * Page d'absences filtrée, avec le même format que getAllAbsencesWithDetails.
+     * Les employés de la page sont résolus en une seule requête IN, les types depuis le cache de référence.
+     */
+    @Transactional(readOnly = true)
+    public PageDTO<Map<String, Object>> getAbsencesWithDetailsPage(Long employeId, Absence.StatutAbsence statut,
+                                                                  Integer typeAbsenceId, Integer annee,
+                                                                  LocalDate debut, LocalDate fin,
+                                                                  Integer page, Integer taille) {
+        int pageEffective = page == null || page < 0 ? 0 : page;
+        int tailleEffective = taille == null || taille <= 0 ? TAILLE_PAGE_DEFAUT : Math.min(taille, TAILLE_PAGE_MAX);
+        Page<Absence> absences = absenceRepository.findPage(employeId, statut, typeAbsenceId, annee, debut, fin,
+                PageRequest.of(pageEffective, tailleEffective));
+        return new PageDTO<>(avecDetails(absences.getContent()), absences.getNumber(), absences.getSize(),
+                absences.getTotalElements(), absences.getTotalPages());
+    }
+
+    private List<Map<String, Object>> avecDetails(List<Absence> absences) {
+        Set<Long> employeIds = absences.stream()
+                .map(Absence::getEmployeId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, EmployeDTO> employes = employeIds.isEmpty()
+                ? Collections.emptyMap()
+                : employeRepository.findResumesByIdIn(employeIds).stream()
+                        .collect(Collectors.toMap(EmployeDTO::getId, employe -> employe));
 
         return absences.stream().map(absence -> {
             Map<String, Object> absenceWithDetails = new HashMap<>();
@@ -229,37 +293,32 @@ public class AbsenceService {
             absenceWithDetails.put("dateCreation", absence.getDateCreation());
             absenceWithDetails.put("dateModification", absence.getDateModification());
 
-            // Récupérer et ajouter les détails de l'employé
-            if (absence.getEmployeId() != null) {
-                Optional<Employe> employe = employeRepository.findById(absence.getEmployeId());
-                if (employe.isPresent()) {
-                    Map<String, Object> employeMap = new HashMap<>();
-                    employeMap.put("id", employe.get().getId());
-                    employeMap.put("nom", employe.get().getNom());
-                    employeMap.put("prenom", employe.get().getPrenom());
-                    employeMap.put("matricule", employe.get().getMatricule());
-                    employeMap.put("photoProfil", employe.get().getPhotoProfil());
-                    absenceWithDetails.put("employe", employeMap);
-                }
+            // Détails de l'employé (déjà chargés pour toute la liste)
+            EmployeDTO employe = employes.get(absence.getEmployeId());
+            if (employe != null) {
+                Map<String, Object> employeMap = new HashMap<>();
+                employeMap.put("id", employe.getId());
+                employeMap.put("nom", employe.getNom());
+                employeMap.put("prenom", employe.getPrenom());
+                employeMap.put("matricule", employe.getMatricule());
+                employeMap.put("photoProfil", employe.getPhotoProfil());
+                absenceWithDetails.put("employe", employeMap);
             }
 
-            // Récupérer et ajouter les détails du type d'absence
-            if (absence.getTypeAbsenceId() != null) {
-                Optional<TypeAbsence> typeAbsence = typeAbsenceRepository.findById(absence.getTypeAbsenceId());
-                if (typeAbsence.isPresent()) {
-                    Map<String, Object> typeAbsenceMap = new HashMap<>();
-                    typeAbsenceMap.put("id", typeAbsence.get().getId());
-                    typeAbsenceMap.put("nom", typeAbsence.get().getNom());
-                    typeAbsenceMap.put("code", typeAbsence.get().getCode());
-                    typeAbsenceMap.put("estPaye", typeAbsence.get().getEstPaye());
-                    typeAbsenceMap.put("necessiteJustificatif", typeAbsence.get().getNecessiteJustificatif());
-                    typeAbsenceMap.put("plafondAnnuel", typeAbsence.get().getPlafondAnnuel());
-                    typeAbsenceMap.put("couleur", typeAbsence.get().getCouleur());
-                    absenceWithDetails.put("typeAbsence", typeAbsenceMap);
-                }
-            }
+            // Détails du type d'absence (cache de référence)
+            referenceDataService.getTypeAbsence(absence.getTypeAbsenceId()).ifPresent(typeAbsence -> {
+                Map<String, Object> typeAbsenceMap = new HashMap<>();
+                typeAbsenceMap.put("id", typeAbsence.getId());
+                typeAbsenceMap.put("nom", typeAbsence.getNom());
+                typeAbsenceMap.put("code", typeAbsence.getCode());
+                typeAbsenceMap.put("estPaye", typeAbsence.getEstPaye());
+                typeAbsenceMap.put("necessiteJustificatif", typeAbsence.getNecessiteJustificatif());
+                typeAbsenceMap.put("plafondAnnuel", typeAbsence.getPlafondAnnuel());
+                typeAbsenceMap.put("couleur", typeAbsence.getCouleur());
+                absenceWithDetails.put("typeAbsence", typeAbsenceMap);
+            });
 
             return absenceWithDetails;
         }).collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
@@ -22,6 +22,9 @@ public class AuthService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private MiniaturePhotoService miniaturePhotoService;
+
     public Utilisateur getCurrentUser() {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         return utilisateurRepository.findByNomUtilisateur(username)
@@ -110,10 +113,12 @@ public class AuthService {
             } catch (Exception e) {
                 System.err.println("Erreur suppression ancienne photo: " + e.getMessage());
             }
+            miniaturePhotoService.supprimer(currentUser.getPhotoProfil());
         }
 
         // Sauvegarder le nouveau fichier
         Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        miniaturePhotoService.generer(filename);
 
         // Mettre à jour l'utilisateur
         currentUser.setPhotoProfil(filename);
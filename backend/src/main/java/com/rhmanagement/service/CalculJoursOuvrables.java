@@ -0,0 +1,135 @@
+package com.rhmanagement.service;
+
+import com.rhmanagement.config.JoursFeriesProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calcul des jours ouvrables (lundi à vendredi, hors jours fériés).
+ *
+ * Les jours de semaine d'un intervalle se comptent sans boucle : semaines entières plus reste.
+ * Pour chaque année, les jours fériés tombant en semaine sont précalculés dans un tableau trié
+ * de jours epoch ; le nombre de fériés d'un intervalle s'obtient par deux recherches dichotomiques.
+ */
+@Component
+public class CalculJoursOuvrables {
+
+    // 1969-12-29 est un lundi : origine du décompte des semaines
+    private static final long LUNDI_ORIGINE = LocalDate.of(1969, 12, 29).toEpochDay();
+
+    private final JoursFeriesProperties configuration;
+    private final List<MonthDay> feriesFixes;
+    private final Map<Integer, long[]> feriesParAnnee = new ConcurrentHashMap<>();
+
+    public CalculJoursOuvrables(JoursFeriesProperties configuration) {
+        this.configuration = configuration;
+        this.feriesFixes = configuration.getFixes().stream()
+                .map(jour -> MonthDay.parse("--" + jour))
+                .toList();
+    }
+
+    /**
+     * Nombre de jours ouvrables entre deux dates incluses
+     */
+    public long joursOuvrables(LocalDate debut, LocalDate fin) {
+        if (debut.isAfter(fin)) {
+            throw new IllegalArgumentException("La date de début doit être antérieure à la date de fin");
+        }
+        long premier = debut.toEpochDay();
+        long dernier = fin.toEpochDay();
+        long joursSemaine = joursSemaineAvant(dernier + 1) - joursSemaineAvant(premier);
+
+        long feries = 0;
+        for (int annee = debut.getYear(); annee <= fin.getYear(); annee++) {
+            long[] jours = feriesEnSemaine(annee);
+            feries += indiceInsertion(jours, dernier + 1) - indiceInsertion(jours, premier);
+        }
+        return joursSemaine - feries;
+    }
+
+    public boolean estJourOuvrable(LocalDate date) {
+        return estJourSemaine(date.toEpochDay())
+                && Arrays.binarySearch(feriesEnSemaine(date.getYear()), date.toEpochDay()) < 0;
+    }
+
+    /**
+     * Tous les jours fériés de l'année (y compris ceux tombant un week-end), triés
+     */
+    public List<LocalDate> joursFeries(int annee) {
+        TreeSet<LocalDate> jours = new TreeSet<>();
+        for (MonthDay jour : feriesFixes) {
+            if (jour.isValidYear(annee)) {
+                jours.add(jour.atYear(annee));
+            }
+        }
+        LocalDate paques = dimanchePaques(annee);
+        if (configuration.isLundiPaques()) {
+            jours.add(paques.plusDays(1));
+        }
+        if (configuration.isAscension()) {
+            jours.add(paques.plusDays(39));
+        }
+        if (configuration.isLundiPentecote()) {
+            jours.add(paques.plusDays(50));
+        }
+        for (LocalDate jour : configuration.getSupplementaires()) {
+            if (jour.getYear() == annee) {
+                jours.add(jour);
+            }
+        }
+        return new ArrayList<>(jours);
+    }
+
+    /**
+     * Dimanche de Pâques (calendrier grégorien, algorithme de Meeus/Jones/Butcher)
+     */
+    static LocalDate dimanchePaques(int annee) {
+        int a = annee % 19;
+        int b = annee / 100;
+        int c = annee % 100;
+        int d = b / 4;
+        int e = b % 4;
+        int f = (b + 8) / 25;
+        int g = (b - f + 1) / 3;
+        int h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4;
+        int k = c % 4;
+        int l = (32 + 2 * e + 2 * i - h - k) % 7;
+        int m = (a + 11 * h + 22 * l) / 451;
+        int mois = (h + l - 7 * m + 114) / 31;
+        int jour = ((h + l - 7 * m + 114) % 31) + 1;
+        return LocalDate.of(annee, mois, jour);
+    }
+
+    private long[] feriesEnSemaine(int annee) {
+        return feriesParAnnee.computeIfAbsent(annee, a -> joursFeries(a).stream()
+                .mapToLong(LocalDate::toEpochDay)
+                .filter(CalculJoursOuvrables::estJourSemaine)
+                .toArray());
+    }
+
+    /**
+     * Nombre de jours du lundi au vendredi dans [LUNDI_ORIGINE, jourEpoch[
+     */
+    private static long joursSemaineAvant(long jourEpoch) {
+        long jours = jourEpoch - LUNDI_ORIGINE;
+        return Math.floorDiv(jours, 7) * 5 + Math.min(Math.floorMod(jours, 7), 5);
+    }
+
+    private static boolean estJourSemaine(long jourEpoch) {
+        return Math.floorMod(jourEpoch - LUNDI_ORIGINE, 7) < 5;
+    }
+
+    /**
+     * Nombre d'éléments du tableau trié strictement inférieurs à la valeur
+     */
+    private static int indiceInsertion(long[] jours, long valeur) {
+        int indice = Arrays.binarySearch(jours, valeur);
+        return indice >= 0 ? indice : -indice - 1;
+    }
+}
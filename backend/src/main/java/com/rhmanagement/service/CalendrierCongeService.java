@@ -0,0 +1,168 @@
+package com.rhmanagement.service;
+
+import com.rhmanagement.dto.EmployeDTO;
+import com.rhmanagement.repository.AffectationPastoraleRepository;
+import com.rhmanagement.repository.EmployeRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Calendrier des congés d'équipe : nombre de personnes en congé approuvé par jour et par groupe.
+ *
+ * Les congés de la fenêtre sont lus en un seul passage sur l'IndexPeriodesConge et ramenés à un bitset
+ * de jours par employé (deux congés qui se recouvrent ne comptent qu'une fois). La réponse ne dépend que
+ * de la taille de la fenêtre et des personnes concernées, pas de l'historique complet des demandes.
+ */
+@Service
+public class CalendrierCongeService {
+
+    public static final int FENETRE_MAX_JOURS = 366;
+
+    static final String SANS_GROUPE = "Non renseigné";
+
+    public enum Regroupement {
+        POSTE, AFFECTATION, DISTRICT
+    }
+
+    private final IndexPeriodesConge indexPeriodesConge;
+    private final EmployeRepository employeRepository;
+    private final AffectationPastoraleRepository affectationPastoraleRepository;
+
+    public CalendrierCongeService(IndexPeriodesConge indexPeriodesConge,
+                                  EmployeRepository employeRepository,
+                                  AffectationPastoraleRepository affectationPastoraleRepository) {
+        this.indexPeriodesConge = indexPeriodesConge;
+        this.employeRepository = employeRepository;
+        this.affectationPastoraleRepository = affectationPastoraleRepository;
+    }
+
+    private record Conge(long demandeId, LocalDate debut, LocalDate fin) {
+    }
+
+    // Affectation d'un pasteur à un district sur [debut, fin] (fin null = en cours)
+    private record PeriodeDistrict(String district, LocalDate debut, LocalDate fin) {
+        private boolean couvre(LocalDate date) {
+            return !debut.isAfter(date) && (fin == null || !fin.isBefore(date));
+        }
+    }
+
+    public Map<String, Object> getCalendrier(LocalDate debut, LocalDate fin, Regroupement regroupement) {
+        if (fin.isBefore(debut)) {
+            throw new RuntimeException("La date de fin doit être postérieure à la date de début");
+        }
+        int nbJours = (int) ChronoUnit.DAYS.between(debut, fin) + 1;
+        if (nbJours > FENETRE_MAX_JOURS) {
+            throw new RuntimeException("La période demandée ne peut pas dépasser " + FENETRE_MAX_JOURS + " jours");
+        }
+
+        // Passage unique sur l'index : jours de congé (relatifs à la fenêtre) et congés de chaque employé
+        Map<Long, BitSet> joursParEmploye = new HashMap<>();
+        Map<Long, List<Conge>> congesParEmploye = new LinkedHashMap<>();
+        indexPeriodesConge.parcourirCongesApprouves(debut, fin, (demandeId, employeId, debutConge, finConge) -> {
+            int premier = (int) Math.max(0, ChronoUnit.DAYS.between(debut, debutConge));
+            int dernier = (int) Math.min(nbJours - 1, ChronoUnit.DAYS.between(debut, finConge));
+            joursParEmploye.computeIfAbsent(employeId, id -> new BitSet(nbJours)).set(premier, dernier + 1);
+            congesParEmploye.computeIfAbsent(employeId, id -> new ArrayList<>())
+                    .add(new Conge(demandeId, debutConge, finConge));
+        });
+
+        Map<Long, EmployeDTO> employes = new HashMap<>();
+        if (!joursParEmploye.isEmpty()) {
+            for (EmployeDTO employe : employeRepository.findResumesByIdIn(joursParEmploye.keySet())) {
+                employes.put(employe.getId(), employe);
+            }
+        }
+        Map<Long, List<PeriodeDistrict>> districts = regroupement == Regroupement.DISTRICT && !employes.isEmpty()
+                ? chargerDistricts(employes.keySet(), debut, fin) : Map.of();
+
+        int[] totaux = new int[nbJours];
+        Map<String, int[]> parGroupe = new TreeMap<>();
+        List<Map<String, Object>> personnes = new ArrayList<>();
+
+        for (Map.Entry<Long, List<Conge>> entree : congesParEmploye.entrySet()) {
+            EmployeDTO employe = employes.get(entree.getKey());
+            if (employe == null) {
+                continue;
+            }
+            BitSet jours = joursParEmploye.get(entree.getKey());
+            String premierGroupe = null;
+            for (int jour = jours.nextSetBit(0); jour >= 0; jour = jours.nextSetBit(jour + 1)) {
+                String groupe = groupe(employe, debut.plusDays(jour), regroupement, districts);
+                if (premierGroupe == null) {
+                    premierGroupe = groupe;
+                }
+                totaux[jour]++;
+                parGroupe.computeIfAbsent(groupe, g -> new int[nbJours])[jour]++;
+            }
+
+            List<Map<String, Object>> conges = new ArrayList<>();
+            for (Conge conge : entree.getValue()) {
+                Map<String, Object> detail = new LinkedHashMap<>();
+                detail.put("demandeId", conge.demandeId());
+                detail.put("dateDebut", conge.debut());
+                detail.put("dateFin", conge.fin());
+                conges.add(detail);
+            }
+            Map<String, Object> personne = new LinkedHashMap<>();
+            personne.put("employeId", employe.getId());
+            personne.put("matricule", employe.getMatricule());
+            personne.put("nom", employe.getNom());
+            personne.put("prenom", employe.getPrenom());
+            personne.put("groupe", premierGroupe);
+            personne.put("conges", conges);
+            personnes.add(personne);
+        }
+
+        List<Map<String, Object>> jours = new ArrayList<>(nbJours);
+        for (int jour = 0; jour < nbJours; jour++) {
+            Map<String, Integer> groupes = new LinkedHashMap<>();
+            for (Map.Entry<String, int[]> groupe : parGroupe.entrySet()) {
+                if (groupe.getValue()[jour] > 0) {
+                    groupes.put(groupe.getKey(), groupe.getValue()[jour]);
+                }
+            }
+            Map<String, Object> ligne = new LinkedHashMap<>();
+            ligne.put("date", debut.plusDays(jour));
+            ligne.put("total", totaux[jour]);
+            ligne.put("groupes", groupes);
+            jours.add(ligne);
+        }
+
+        Map<String, Object> calendrier = new LinkedHashMap<>();
+        calendrier.put("from", debut);
+        calendrier.put("to", fin);
+        calendrier.put("groupBy", regroupement.name().toLowerCase());
+        calendrier.put("groupes", new ArrayList<>(parGroupe.keySet()));
+        calendrier.put("jours", jours);
+        calendrier.put("personnes", personnes);
+        return calendrier;
+    }
+
+    private Map<Long, List<PeriodeDistrict>> chargerDistricts(Collection<Long> employeIds,
+                                                              LocalDate debut, LocalDate fin) {
+        Map<Long, List<PeriodeDistrict>> districts = new HashMap<>();
+        for (Object[] ligne : affectationPastoraleRepository.findDistrictsParPasteurs(employeIds, debut, fin)) {
+            districts.computeIfAbsent((Long) ligne[0], id -> new ArrayList<>())
+                    .add(new PeriodeDistrict((String) ligne[1], (LocalDate) ligne[2], (LocalDate) ligne[3]));
+        }
+        return districts;
+    }
+
+    private static String groupe(EmployeDTO employe, LocalDate date, Regroupement regroupement,
+                                 Map<Long, List<PeriodeDistrict>> districts) {
+        String groupe = switch (regroupement) {
+            case POSTE -> "AUTRE".equals(employe.getPoste()) && employe.getPostePersonnalise() != null
+                    ? employe.getPostePersonnalise() : employe.getPoste();
+            case AFFECTATION -> employe.getAffectationActuelle();
+            case DISTRICT -> districts.getOrDefault(employe.getId(), List.of()).stream()
+                    .filter(p -> p.couvre(date))
+                    .map(PeriodeDistrict::district)
+                    .findFirst()
+                    .orElse(null);
+        };
+        return groupe == null || groupe.isBlank() ? SANS_GROUPE : groupe;
+    }
+}
@@ -0,0 +1,141 @@
+package com.rhmanagement.service;
+
+import com.rhmanagement.entity.Absence;
+import com.rhmanagement.entity.CompteurAbsence;
+import com.rhmanagement.entity.TypeAbsence;
+import com.rhmanagement.repository.CompteurAbsenceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Compteurs d'absences validées par (employé, type d'absence, année), utilisés pour les plafonds annuels.
+ *
+ * AbsenceService appelle {@link #appliquer} dans la transaction de chaque changement de statut :
+ * le compteur et l'absence sont validés ou annulés ensemble. Une validation qui dépasserait le plafond
+ * échoue et annule la transaction. Une réconciliation idempotente (upsert des valeurs recalculées) corrige
+ * d'éventuels écarts : chaque nuit, à la demande d'un administrateur, et au premier démarrage si la table est vide.
+ */
+@Service
+public class CompteurAbsenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(CompteurAbsenceService.class);
+
+    private final CompteurAbsenceRepository compteurAbsenceRepository;
+    private final ReferenceDataService referenceDataService;
+
+    public CompteurAbsenceService(CompteurAbsenceRepository compteurAbsenceRepository,
+                                  ReferenceDataService referenceDataService) {
+        this.compteurAbsenceRepository = compteurAbsenceRepository;
+        this.referenceDataService = referenceDataService;
+    }
+
+    /**
+     * Clé de compteur d'une absence, relevée avant modification
+     */
+    public record Cle(Long employeId, Integer typeAbsenceId, Integer annee, Absence.StatutAbsence statut) {
+
+        public static Cle of(Absence absence) {
+            return new Cle(absence.getEmployeId(), absence.getTypeAbsenceId(), absence.getAnnee(), absence.getStatut());
+        }
+
+        private boolean estValidee() {
+            return statut == Absence.StatutAbsence.VALIDE;
+        }
+
+        private boolean memeCompteur(Cle autre) {
+            return Objects.equals(employeId, autre.employeId) && Objects.equals(typeAbsenceId, autre.typeAbsenceId)
+                    && Objects.equals(annee, autre.annee);
+        }
+    }
+
+    /**
+     * Premier démarrage : alimente les compteurs à partir des absences existantes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialiser() {
+        if (compteurAbsenceRepository.count() == 0) {
+            reconcilier();
+        }
+    }
+
+    /**
+     * Remet les compteurs en accord avec les absences validées, sans les supprimer :
+     * sans effet sur des compteurs déjà justes, et sans conflit avec les mises à jour concurrentes
+     */
+    @Scheduled(cron = "0 15 1 * * ?")
+    @Transactional
+    public int reconcilier() {
+        long debut = System.currentTimeMillis();
+        LocalDateTime maintenant = LocalDateTime.now();
+        int ecrits = compteurAbsenceRepository.reconcilier(maintenant);
+        int remisAZero = compteurAbsenceRepository.remettreAZeroOrphelins(maintenant);
+        log.info("Compteurs d'absence réconciliés : {} lignes écrites, {} remises à zéro en {} ms",
+                ecrits, remisAZero, System.currentTimeMillis() - debut);
+        return ecrits + remisAZero;
+    }
+
+    /**
+     * Reporte sur les compteurs le passage de l'absence de l'état `avant` (null : création, ou suppression
+     * si `apres` est null) à l'état `apres`. À appeler dans la transaction qui modifie l'absence.
+     */
+    @Transactional
+    public void appliquer(Cle avant, Cle apres) {
+        boolean retirer = avant != null && avant.estValidee();
+        boolean ajouter = apres != null && apres.estValidee();
+        if (retirer && ajouter && avant.memeCompteur(apres)) {
+            return;
+        }
+        LocalDateTime maintenant = LocalDateTime.now();
+        if (retirer) {
+            compteurAbsenceRepository.decrementer(avant.employeId(), avant.typeAbsenceId(), avant.annee(), maintenant);
+        }
+        if (ajouter) {
+            compteurAbsenceRepository.incrementer(apres.employeId(), apres.typeAbsenceId(), apres.annee(), maintenant);
+            Integer plafond = referenceDataService.getTypeAbsence(apres.typeAbsenceId())
+                    .map(TypeAbsence::getPlafondAnnuel)
+                    .orElse(null);
+            if (plafond != null && getUtilisees(apres.employeId(), apres.typeAbsenceId(), apres.annee()) > plafond) {
+                throw new RuntimeException("Plafond annuel atteint pour ce type d'absence");
+            }
+        }
+    }
+
+    public int getUtilisees(Long employeId, Integer typeAbsenceId, Integer annee) {
+        return compteurAbsenceRepository.findUtilisees(employeId, typeAbsenceId, annee).orElse(0);
+    }
+
+    /**
+     * Quotas de l'employé pour tous les types d'absence de l'année, en une requête
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getQuotas(Long employeId, Integer annee) {
+        Map<Integer, Integer> utilisees = new HashMap<>();
+        for (CompteurAbsence compteur : compteurAbsenceRepository.findByEmployeIdAndAnnee(employeId, annee)) {
+            utilisees.put(compteur.getTypeAbsenceId(), compteur.getUtilisees());
+        }
+
+        List<Map<String, Object>> quotas = new ArrayList<>();
+        for (TypeAbsence type : referenceDataService.getTypesAbsence()) {
+            int nombre = utilisees.getOrDefault(type.getId(), 0);
+            Map<String, Object> quota = new LinkedHashMap<>();
+            quota.put("typeAbsenceId", type.getId());
+            quota.put("code", type.getCode());
+            quota.put("nom", type.getNom());
+            quota.put("plafondAnnuel", type.getPlafondAnnuel());
+            quota.put("utilisees", nombre);
+            // null : pas de plafond
+            quota.put("restantes", type.getPlafondAnnuel() != null ? Math.max(0, type.getPlafondAnnuel() - nombre) : null);
+            quotas.add(quota);
+        }
+        return quotas;
+    }
+}
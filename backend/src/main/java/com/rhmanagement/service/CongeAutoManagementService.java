@@ -1,14 +1,16 @@
 package com.rhmanagement.service;
 
-import com.rhmanagement.entity.DemandeConge;
-import com.rhmanagement.entity.Employe;
+import com.rhmanagement.entity.ExecutionTache;
 import com.rhmanagement.repository.DemandeCongeRepository;
-import com.rhmanagement.repository.EmployeRepository;
+import com.rhmanagement.repository.ExecutionTacheRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,71 +19,59 @@ import java.util.stream.Collectors;
 @Service
 public class CongeAutoManagementService {
 
+    private static final Logger log = LoggerFactory.getLogger(CongeAutoManagementService.class);
+
+    static final String TACHE_CLOTURE_CONGES = "cloture-conges-termines";
+
     private final DemandeCongeRepository demandeCongeRepository;
-    private final EmployeRepository employeRepository;
+    private final ExecutionTacheRepository executionTacheRepository;
 
     public CongeAutoManagementService(DemandeCongeRepository demandeCongeRepository,
-                                      EmployeRepository employeRepository) {
+                                      ExecutionTacheRepository executionTacheRepository) {
         this.demandeCongeRepository = demandeCongeRepository;
-        this.employeRepository = employeRepository;
+        this.executionTacheRepository = executionTacheRepository;
     }
 
     /**
-     * Vérifie et met à jour automatiquement les statuts des employés dont le congé est terminé
-     * Exécuté tous les jours à minuit
+     * Annote les congés approuvés terminés et avance le filigrane de la tâche.
+     * Exécuté tous les jours à 00:10 ; ne considère que les congés terminés depuis la dernière exécution
+     * réussie (filigrane dans executions_taches), par un UPDATE ensembliste.
+     *
+     * Le passage EN_CONGE -> ACTIF des employés appartient à CongeStatusService (échéances de minuit et
+     * événements de congé) : cette tâche ne modifie aucun employé, les deux ne se disputent donc pas les lignes.
+     *
+     * @return le rapport d'exécution (période traitée, congés annotés, durée)
      */
-    @Scheduled(cron = "0 0 0 * * ?") // Tous les jours à minuit
+    @Scheduled(cron = "0 10 0 * * ?") // Tous les jours à 00:10, après les échéances de CongeStatusService
     @Transactional
-    public void verifierEtMettreAJourCongesTermines() {
+    public Map<String, Object> verifierEtMettreAJourCongesTermines() {
+        long debut = System.currentTimeMillis();
         LocalDate aujourdhui = LocalDate.now();
 
-        // Trouver tous les congés approuvés qui sont terminés
-        List<DemandeConge> congésTermines = demandeCongeRepository.findCongesApprouvesTermines(aujourdhui);
-
-        Map<Long, String> employesMisAJour = new HashMap<>();
-
-        for (DemandeConge conge : congésTermines) {
-            Long employeId = conge.getEmployeId();
-
-            // Vérifier si l'employé a d'autres congés en cours
-            boolean autresCongesEnCours = hasOtherActiveConges(employeId, aujourdhui, conge.getId());
-
-            if (!autresCongesEnCours) {
-                // Mettre à jour le statut de l'employé
-                Employe employe = employeRepository.findById(employeId)
-                        .orElseThrow(() -> new RuntimeException("Employé non trouvé: " + employeId));
-
-                if ("EN_CONGE".equals(employe.getStatut())) {
-                    employe.setStatut(Employe.StatutEmploye.valueOf("ACTIF"));
-                    employeRepository.save(employe);
-                    employesMisAJour.put(employeId, employe.getPrenom() + " " + employe.getNom());
-
-                    // Optionnel : Marquer le congé comme traité
-                    conge.setNote("Congé terminé - Employé réactivé automatiquement le " + aujourdhui);
-                    demandeCongeRepository.save(conge);
-                }
-            }
-        }
-
-        // Log ou notification des mises à jour
-        if (!employesMisAJour.isEmpty()) {
-            System.out.println("Employés réactivés automatiquement: " + employesMisAJour);
-            // Ici-vous pourriez envoyer une notification ou un email
-        }
-    }
-
-    /**
-     * Vérifie si un employé a d'autres congés actifs
-     */
-    private boolean hasOtherActiveConges(Long employeId, LocalDate date, Long excludeCongeId) {
-        List<DemandeConge> autresConges = demandeCongeRepository.findByEmployeIdAndStatut(employeId, DemandeConge.StatutDemande.APPROUVE);
-
-        return autresConges.stream()
-                .filter(conge -> !conge.getId().equals(excludeCongeId))
-                .anyMatch(conge ->
-                        !conge.getDateFin().isBefore(date) && // Le congé n'est pas encore terminé
-                                !conge.getDateDebut().isAfter(date)   // Le congé a déjà commencé
-                );
+        // Premier passage : aucun filigrane, tout l'historique est rattrapé une fois
+        ExecutionTache execution = executionTacheRepository.findById(TACHE_CLOTURE_CONGES).orElse(null);
+        LocalDate depuis = execution != null ? execution.getDateReference() : null;
+
+        int congesAnnotes = demandeCongeRepository.annoterCongesTermines(depuis, aujourdhui,
+                "Congé terminé - Clôturé automatiquement le " + aujourdhui);
+
+        long duree = System.currentTimeMillis() - debut;
+        executionTacheRepository.save(ExecutionTache.builder()
+                .nom(TACHE_CLOTURE_CONGES)
+                .dateReference(aujourdhui)
+                .dateExecution(LocalDateTime.now())
+                .lignesModifiees(congesAnnotes)
+                .dureeMs(duree)
+                .build());
+
+        log.info("Clôture des congés terminés depuis {} : {} congé(s) annoté(s) en {} ms", depuis, congesAnnotes, duree);
+
+        Map<String, Object> rapport = new HashMap<>();
+        rapport.put("depuis", depuis);
+        rapport.put("jusquA", aujourdhui);
+        rapport.put("congesAnnotes", congesAnnotes);
+        rapport.put("dureeMs", duree);
+        return rapport;
     }
 
     /**
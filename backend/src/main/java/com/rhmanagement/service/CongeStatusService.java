@@ -1,80 +1,232 @@
 package com.rhmanagement.service;
 
+import com.rhmanagement.dto.EmployeDTO;
 import com.rhmanagement.entity.DemandeConge;
 import com.rhmanagement.entity.Employe;
+import com.rhmanagement.event.DemandeCongeModifieeEvent;
+import com.rhmanagement.event.DemandesCongeDecideesEvent;
+import com.rhmanagement.event.EmployeModifieEvent;
 import com.rhmanagement.repository.DemandeCongeRepository;
 import com.rhmanagement.repository.EmployeRepository;
-import org.modelmapper.internal.bytebuddy.dynamic.DynamicType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Optional;
-
-import static com.rhmanagement.migration.PasswordBCryptMigration.log;
+import java.util.*;
 
+/**
+ * Synchronisation du statut EN_CONGE / ACTIF des employés avec leurs congés approuvés.
+ *
+ * Le statut ne change qu'à deux occasions : quand une demande approuvée est créée, modifiée ou annulée
+ * (DemandeCongeModifieeEvent), et quand une date de début ou de fin de congé est atteinte.
+ * Les prochaines échéances sont gardées dans une file de priorité triée par date ; le passage à minuit
+ * ne traite que les employés dont une échéance est arrivée.
+ *
+ * Les synchronisations déclenchées par un événement ou une échéance s'exécutent chacune dans leur propre
+ * transaction : après un commit, la transaction d'origine est terminée et ne peut plus rien enregistrer.
+ */
 @Service
-@Transactional
 public class CongeStatusService {
 
+    private static final Logger log = LoggerFactory.getLogger(CongeStatusService.class);
+
     @Autowired
     private EmployeRepository employeRepository;
 
     @Autowired
     private DemandeCongeRepository demandeCongeRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private IndexPeriodesConge indexPeriodesConge;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Date à partir de laquelle le statut d'un employé doit être réévalué
+     * (début d'un congé, ou lendemain de sa fin)
+     */
+    private record Echeance(LocalDate date, Long employeId) {
+    }
+
+    private final PriorityQueue<Echeance> echeances = new PriorityQueue<>(Comparator.comparing(Echeance::date));
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiser() {
+        LocalDate aujourdhui = LocalDate.now();
+        List<DemandeConge> congesAVenir = demandeCongeRepository.findCongesApprouvesNonTermines(aujourdhui);
+        synchronized (echeances) {
+            echeances.clear();
+            for (DemandeConge conge : congesAVenir) {
+                planifier(conge.getEmployeId(), conge.getDateDebut(), conge.getDateFin(), aujourdhui);
+            }
+        }
+        log.info("Synchronisation des statuts : {} échéances de congé planifiées", echeances.size());
+        synchroniserTousLesStatuts();
+    }
+
+    /**
+     * Réagit aux changements de demandes approuvées, après la mise à jour de l'index des périodes
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onDemandeCongeModifiee(DemandeCongeModifieeEvent event) {
+        if (prendreEnCompte(event, LocalDate.now())) {
+            synchroniser(event.getEmployeId());
+        }
+    }
+
+    /**
+     * Décision en lot : chaque employé concerné n'est synchronisé qu'une fois
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onDemandesCongeDecidees(DemandesCongeDecideesEvent event) {
+        LocalDate aujourdhui = LocalDate.now();
+        Set<Long> employes = new LinkedHashSet<>();
+        for (DemandeCongeModifieeEvent modification : event.getModifications()) {
+            if (prendreEnCompte(modification, aujourdhui)) {
+                employes.add(modification.getEmployeId());
+            }
+        }
+        employes.forEach(this::synchroniser);
+    }
+
+    /**
+     * Met à jour les échéances pour une demande modifiée
+     *
+     * @return vrai si le statut actuel de l'employé peut en être changé
+     */
+    private boolean prendreEnCompte(DemandeCongeModifieeEvent event, LocalDate aujourdhui) {
+        boolean approuvee = event.getStatut() == DemandeConge.StatutDemande.APPROUVE;
+        if (!approuvee && event.getAncienStatut() != DemandeConge.StatutDemande.APPROUVE) {
+            return false;
+        }
+        if (!approuvee) {
+            // Congé annulé, rejeté ou supprimé : ses échéances ne doivent plus déclencher de synchronisation
+            synchronized (echeances) {
+                echeances.remove(new Echeance(event.getDateDebut(), event.getEmployeId()));
+                echeances.remove(new Echeance(event.getDateFin().plusDays(1), event.getEmployeId()));
+            }
+        } else {
+            synchronized (echeances) {
+                planifier(event.getEmployeId(), event.getDateDebut(), event.getDateFin(), aujourdhui);
+            }
+            // Nouveau congé qui ne couvre pas aujourd'hui : le statut actuel ne change pas, les échéances suffisent
+            if (event.getAncienStatut() != DemandeConge.StatutDemande.APPROUVE
+                    && (event.getDateDebut().isAfter(aujourdhui) || event.getDateFin().isBefore(aujourdhui))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void synchroniser(Long employeId) {
+        try {
+            synchroniserEnNouvelleTransaction(employeId);
+        } catch (RuntimeException e) {
+            log.error("Synchronisation du statut de l'employé {} impossible : {}", employeId, e.getMessage());
+        }
+    }
+
+    /**
+     * À minuit : traite les échéances arrivées, puis rattrape les éventuels écarts.
+     * Seule tâche qui fait passer les employés de EN_CONGE à ACTIF (la clôture de 00:10 n'annote que les congés)
+     */
+    @Scheduled(cron = "0 0 0 * * ?")
+    public void traiterEcheances() {
+        LocalDate aujourdhui = LocalDate.now();
+        Set<Long> employes = new LinkedHashSet<>();
+        synchronized (echeances) {
+            while (!echeances.isEmpty() && !echeances.peek().date().isAfter(aujourdhui)) {
+                employes.add(echeances.poll().employeId());
+            }
+        }
+
+        employes.forEach(this::synchroniser);
+        log.info("Échéances de congé du {} : {} employé(s) réévalué(s)", aujourdhui, employes.size());
+        synchroniserTousLesStatuts();
+    }
+
     /**
-     * Vérifie tous les employés pour synchroniser leur statut
-     * Cette méthode est appelée par le contrôleur
+     * Remet en cohérence les statuts de tous les employés.
+     * Ne touche que les employés dont le statut EN_CONGE diffère de l'index des congés en cours :
+     * une requête sur les employés EN_CONGE, puis une synchronisation par écart.
      */
     public void synchroniserTousLesStatuts() {
-        List<Employe> employes = employeRepository.findAll();
+        Set<Long> enCongeSelonIndex = indexPeriodesConge.employesEnConge(LocalDate.now());
+        Set<Long> enCongeSelonStatut = new HashSet<>(employeRepository.findIdsByStatut(Employe.StatutEmploye.EN_CONGE));
+
+        Set<Long> ecarts = new HashSet<>(enCongeSelonIndex);
+        ecarts.removeAll(enCongeSelonStatut);
+        for (Long employeId : enCongeSelonStatut) {
+            if (!enCongeSelonIndex.contains(employeId)) {
+                ecarts.add(employeId);
+            }
+        }
+
         int countSuccess = 0;
         int countError = 0;
-
-        for (Employe employe : employes) {
+        for (Long employeId : ecarts) {
             try {
-                synchroniserStatutEmploye(employe.getId());
+                synchroniserEnNouvelleTransaction(employeId);
                 countSuccess++;
             } catch (Exception e) {
-                System.err.println("Erreur synchronisation employé " + employe.getId() + ": " + e.getMessage());
+                log.error("Erreur synchronisation employé {} : {}", employeId, e.getMessage());
                 countError++;
             }
         }
 
-        System.out.println("Synchronisation terminée: " + countSuccess + " succès, " + countError + " erreurs");
+        log.info("Synchronisation terminée : {} écart(s), {} succès, {} erreurs", ecarts.size(), countSuccess, countError);
     }
 
     /**
-     * Version planifiée (toutes les heures)
+     * Met à jour le statut de l'employé basé sur ses congés actifs
      */
-    @Scheduled(fixedRate = 3600000)
-    public void synchroniserTousLesStatutsPlanifie() {
-        System.out.println("Début de la synchronisation planifiée des statuts...");
-        synchroniserTousLesStatuts();
+    @Transactional
+    public void synchroniserStatutEmploye(Long employeId) {
+        appliquerStatut(employeId);
     }
 
     /**
-     * Met à jour le statut de l'employé basé sur ses congés actifs
+     * Synchronisation hors de toute transaction appelante (écouteur après commit, tâches planifiées).
+     * Les appels internes ne passent pas par le proxy Spring : @Transactional n'y aurait aucun effet.
      */
-    public void synchroniserStatutEmploye(Long employeId) {
+    private void synchroniserEnNouvelleTransaction(Long employeId) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.executeWithoutResult(statut -> appliquerStatut(employeId));
+    }
+
+    private void appliquerStatut(Long employeId) {
         Employe employe = employeRepository.findById(employeId)
                 .orElseThrow(() -> new RuntimeException("Employé non trouvé"));
 
         LocalDate aujourdhui = LocalDate.now();
 
-        // Chercher un congé actif (approuvé et en cours)
-        Optional<DemandeConge> congeActif = demandeCongeRepository
-                .findCongeActif(employeId, aujourdhui);
-
-        if (congeActif.isPresent()) {
+        // Chercher un congé actif (approuvé et en cours) dans l'index en mémoire
+        if (indexPeriodesConge.estEnConge(employeId, aujourdhui)) {
             // Il y a un congé actif, mettre en EN_CONGE
             if (!Employe.StatutEmploye.EN_CONGE.equals(employe.getStatut())) {
                 employe.setStatut(Employe.StatutEmploye.EN_CONGE);
                 employeRepository.save(employe);
+                eventPublisher.publishEvent(new EmployeModifieEvent(employeId, EmployeDTO.fromEntity(employe)));
                 log.info("Employé {} mis automatiquement EN_CONGE", employeId);
             }
         } else {
@@ -82,8 +234,18 @@ public class CongeStatusService {
             if (Employe.StatutEmploye.EN_CONGE.equals(employe.getStatut())) {
                 employe.setStatut(Employe.StatutEmploye.ACTIF);
                 employeRepository.save(employe);
+                eventPublisher.publishEvent(new EmployeModifieEvent(employeId, EmployeDTO.fromEntity(employe)));
                 log.info("Employé {} remis automatiquement ACTIF", employeId);
             }
         }
     }
-}
\ No newline at end of file
+
+    private void planifier(Long employeId, LocalDate debut, LocalDate fin, LocalDate aujourdhui) {
+        if (debut != null && debut.isAfter(aujourdhui)) {
+            echeances.add(new Echeance(debut, employeId));
+        }
+        if (fin != null && fin.plusDays(1).isAfter(aujourdhui)) {
+            echeances.add(new Echeance(fin.plusDays(1), employeId));
+        }
+    }
+}
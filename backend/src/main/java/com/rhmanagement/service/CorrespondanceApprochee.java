@@ -0,0 +1,110 @@
+package com.rhmanagement.service;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Outils de correspondance approximative pour les noms malgaches.
+ *
+ * La clé phonétique rapproche les graphies qui se prononcent de la même façon
+ * ("Rakoutou" / "Rakoto", "Andrianjafy" / "Andrianjafi", "Rahelimanana" / "Raelimanana")
+ * et les variantes par suppression de lettres permettent de retrouver les fautes de frappe
+ * sans calculer de distance d'édition sur toute la table : deux mots à distance d ou moins
+ * ont toujours une variante commune à d suppressions au plus de chaque côté.
+ */
+final class CorrespondanceApprochee {
+
+    /**
+     * Plus grande distance tolérée, donc profondeur des variantes indexées
+     */
+    static final int DISTANCE_MAX = 2;
+
+    private CorrespondanceApprochee() {
+    }
+
+    /**
+     * Clé phonétique d'un mot déjà normalisé (minuscules, sans accents)
+     */
+    static String clePhonetique(String mot) {
+        String cle = mot.replaceAll("[^a-z]", "");
+        cle = cle.replace("ph", "f")
+                .replace("ou", "o")       // graphie à la française du "o" malgache
+                .replace("h", "")         // le h est presque toujours muet
+                .replace('y', 'i')        // le y final malgache se prononce i
+                .replace('u', 'o')
+                .replace('w', 'o')
+                .replace('c', 'k')
+                .replace('q', 'k')
+                .replace("x", "ks");
+
+        // Les lettres doublées sont des fautes de frappe fréquentes
+        StringBuilder resultat = new StringBuilder(cle.length());
+        for (int i = 0; i < cle.length(); i++) {
+            char c = cle.charAt(i);
+            if (resultat.length() == 0 || resultat.charAt(resultat.length() - 1) != c) {
+                resultat.append(c);
+            }
+        }
+        return resultat.toString();
+    }
+
+    /**
+     * Le mot lui-même et toutes ses variantes privées d'au plus `profondeur` lettres
+     */
+    static Set<String> suppressions(String mot, int profondeur) {
+        Set<String> variantes = new HashSet<>();
+        variantes.add(mot);
+        Set<String> niveau = variantes;
+        for (int n = 0; n < profondeur; n++) {
+            Set<String> suivant = new HashSet<>();
+            for (String variante : niveau) {
+                for (int i = 0; i < variante.length(); i++) {
+                    suivant.add(variante.substring(0, i) + variante.substring(i + 1));
+                }
+            }
+            variantes.addAll(suivant);
+            niveau = suivant;
+        }
+        return variantes;
+    }
+
+    /**
+     * Distance d'édition tolérée selon la longueur du mot recherché
+     */
+    static int distanceTolere(String mot) {
+        if (mot.length() <= 3) {
+            return 0;
+        }
+        return mot.length() <= 7 ? 1 : DISTANCE_MAX;
+    }
+
+    /**
+     * Distance de Levenshtein bornée : renvoie max + 1 dès que la borne est dépassée
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] precedente = new int[b.length() + 1];
+        int[] courante = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            precedente[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            courante[0] = i;
+            int minLigne = courante[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cout = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                courante[j] = Math.min(Math.min(courante[j - 1] + 1, precedente[j] + 1), precedente[j - 1] + cout);
+                minLigne = Math.min(minLigne, courante[j]);
+            }
+            if (minLigne > max) {
+                return max + 1;
+            }
+            int[] echange = precedente;
+            precedente = courante;
+            courante = echange;
+        }
+        return precedente[b.length()];
+    }
+}
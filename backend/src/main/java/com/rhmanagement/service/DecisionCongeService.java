@@ -0,0 +1,185 @@
+package com.rhmanagement.service;
+
+import com.rhmanagement.dto.DecisionLotDTO;
+import com.rhmanagement.entity.DemandeConge;
+import com.rhmanagement.event.DemandeCongeModifieeEvent;
+import com.rhmanagement.event.DemandesCongeDecideesEvent;
+import com.rhmanagement.repository.DemandeCongeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Approbation ou rejet de plusieurs demandes de congé en une requête.
+ *
+ * Les demandes sont lues en une fois. Chaque demande valide est ensuite décidée dans sa propre transaction
+ * (UPDATE vérifiant la version et le statut EN_ATTENTE, puis imputation au journal des congés), par employé
+ * croissant pour que les verrous des soldes soient toujours pris dans le même ordre. Un verrou expiré ou un
+ * interblocage n'annule ainsi que la demande concernée : chaque demande reçoit son propre résultat.
+ * Un seul DemandesCongeDecideesEvent est publié pour tout le lot.
+ */
+@Service
+public class DecisionCongeService {
+
+    private static final Logger log = LoggerFactory.getLogger(DecisionCongeService.class);
+
+    private static final int TAILLE_LOT_MAX = 200;
+
+    private static final String DECISION_SQL = "UPDATE demandesconge " +
+            "SET statut = ?, approuve_par = ?, date_traitement = ?, motif_rejet = ?, version = version + 1 " +
+            "WHERE id = ? AND version = ? AND statut = 'EN_ATTENTE'";
+
+    private final DemandeCongeRepository demandeCongeRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final SoldeCongeService soldeCongeService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionParDemande;
+
+    public DecisionCongeService(DemandeCongeRepository demandeCongeRepository,
+                                JdbcTemplate jdbcTemplate,
+                                SoldeCongeService soldeCongeService,
+                                ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager) {
+        this.demandeCongeRepository = demandeCongeRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.soldeCongeService = soldeCongeService;
+        this.eventPublisher = eventPublisher;
+        this.transactionParDemande = new TransactionTemplate(transactionManager);
+        this.transactionParDemande.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Sans transaction englobante : chaque demande est validée (commit) indépendamment des autres
+     *
+     * @return un résultat par identifiant demandé, dans l'ordre de la requête (id, success, statut ou message)
+     */
+    public List<Map<String, Object>> deciderEnLot(DecisionLotDTO decision, Long approbateurId) {
+        if (decision.getDecision() == null) {
+            throw new RuntimeException("La décision (APPROUVER ou REJETER) est obligatoire");
+        }
+        List<Long> ids = decision.getIds() != null
+                ? decision.getIds().stream().filter(Objects::nonNull).distinct().collect(Collectors.toList())
+                : List.of();
+        if (ids.isEmpty()) {
+            throw new RuntimeException("Aucune demande à traiter");
+        }
+        if (ids.size() > TAILLE_LOT_MAX) {
+            throw new RuntimeException("Un lot ne peut pas dépasser " + TAILLE_LOT_MAX + " demandes");
+        }
+
+        DemandeConge.StatutDemande nouveauStatut = decision.getDecision() == DecisionLotDTO.Decision.APPROUVER
+                ? DemandeConge.StatutDemande.APPROUVE
+                : DemandeConge.StatutDemande.REJETE;
+        String motifRejet = nouveauStatut == DemandeConge.StatutDemande.REJETE ? decision.getMotif() : null;
+        Map<Long, Long> versionsAttendues = decision.getVersions() != null ? decision.getVersions() : Map.of();
+        LocalDateTime maintenant = LocalDateTime.now();
+
+        // Validation en une requête
+        Map<Long, DemandeConge> demandes = demandeCongeRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(DemandeConge::getId, Function.identity()));
+
+        Map<Long, Map<String, Object>> resultats = new LinkedHashMap<>();
+        List<DemandeConge> aTraiter = new ArrayList<>();
+        for (Long id : ids) {
+            DemandeConge demande = demandes.get(id);
+            Long versionAttendue = versionsAttendues.get(id);
+            if (demande == null) {
+                resultats.put(id, echec(id, "Demande non trouvée"));
+            } else if (demande.getStatut() != DemandeConge.StatutDemande.EN_ATTENTE) {
+                resultats.put(id, echec(id, "Cette demande a déjà été traitée"));
+            } else if (versionAttendue != null && !versionAttendue.equals(demande.getVersion())) {
+                resultats.put(id, echec(id, "La demande a été modifiée depuis sa lecture"));
+            } else {
+                resultats.put(id, null);
+                aTraiter.add(demande);
+            }
+        }
+
+        // Ordre de verrouillage stable (employé puis demande) : deux lots concurrents ne s'interbloquent pas
+        aTraiter.sort(Comparator.comparing(DemandeConge::getEmployeId).thenComparing(DemandeConge::getId));
+        List<DemandeCongeModifieeEvent> modifications = new ArrayList<>();
+        for (DemandeConge demande : aTraiter) {
+            DemandeConge decidee;
+            try {
+                decidee = transactionParDemande.execute(statut ->
+                        deciderUne(demande, nouveauStatut, approbateurId, maintenant, motifRejet));
+            } catch (RuntimeException e) {
+                // Verrou expiré, interblocage... : seule cette demande est annulée, les autres restent décidées
+                log.warn("Décision de la demande {} non appliquée : {}", demande.getId(), e.getMessage());
+                resultats.put(demande.getId(), echec(demande.getId(), "Décision non appliquée, veuillez réessayer"));
+                continue;
+            }
+            if (decidee == null) {
+                // Modifiée entre la lecture et la mise à jour
+                resultats.put(demande.getId(), echec(demande.getId(), "La demande a été modifiée entre-temps"));
+                continue;
+            }
+            modifications.add(DemandeCongeModifieeEvent.of(decidee, DemandeConge.StatutDemande.EN_ATTENTE));
+
+            Map<String, Object> succes = new HashMap<>();
+            succes.put("id", demande.getId());
+            succes.put("success", true);
+            succes.put("statut", nouveauStatut.name());
+            succes.put("version", decidee.getVersion());
+            resultats.put(demande.getId(), succes);
+        }
+        if (!modifications.isEmpty()) {
+            eventPublisher.publishEvent(new DemandesCongeDecideesEvent(modifications));
+        }
+
+        long traitees = resultats.values().stream().filter(r -> Boolean.TRUE.equals(r.get("success"))).count();
+        log.info("Décision en lot {} : {} demande(s) traitée(s) sur {}", nouveauStatut, traitees, ids.size());
+        return new ArrayList<>(resultats.values());
+    }
+
+    /**
+     * Applique la décision d'une demande dans sa propre transaction
+     *
+     * @return la copie détachée de la demande décidée, ou null si elle a changé depuis la lecture
+     */
+    private DemandeConge deciderUne(DemandeConge demande, DemandeConge.StatutDemande nouveauStatut,
+                                    Long approbateurId, LocalDateTime maintenant, String motifRejet) {
+        int lignes = jdbcTemplate.update(DECISION_SQL, nouveauStatut.name(), approbateurId,
+                Timestamp.valueOf(maintenant), motifRejet, demande.getId(), demande.getVersion());
+        if (lignes == 0) {
+            return null;
+        }
+        // Copie détachée de l'état enregistré : l'entité lue reste inchangée
+        DemandeConge decidee = DemandeConge.builder()
+                .id(demande.getId())
+                .employeId(demande.getEmployeId())
+                .typeConge(demande.getTypeConge())
+                .dateDebut(demande.getDateDebut())
+                .dateFin(demande.getDateFin())
+                .annee(demande.getAnnee())
+                .statut(nouveauStatut)
+                .approuvePar(approbateurId)
+                .dateTraitement(maintenant)
+                .motifRejet(motifRejet)
+                .version(demande.getVersion() + 1)
+                .build();
+        if (nouveauStatut == DemandeConge.StatutDemande.APPROUVE) {
+            soldeCongeService.appliquerDemande(decidee);
+        }
+        return decidee;
+    }
+
+    private static Map<String, Object> echec(Long id, String message) {
+        Map<String, Object> resultat = new HashMap<>();
+        resultat.put("id", id);
+        resultat.put("success", false);
+        resultat.put("message", message);
+        return resultat;
+    }
+}
@@ -1,17 +1,21 @@
 package com.rhmanagement.service;
 
+import com.rhmanagement.dto.DemandeCongeDetailDTO;
+import com.rhmanagement.dto.PageDTO;
 import com.rhmanagement.entity.DemandeConge;
 import com.rhmanagement.entity.Employe;
+import com.rhmanagement.event.DemandeCongeModifieeEvent;
 import com.rhmanagement.repository.DemandeCongeRepository;
 import com.rhmanagement.repository.EmployeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,15 +25,30 @@ import java.util.stream.Collectors;
 @Service
 public class DemandeCongeService {
 
-    @Autowired
-    private CongeStatusService congeStatusService;
-
     @Autowired
     private DemandeCongeRepository demandeCongeRepository;
 
     @Autowired
     private EmployeRepository employeRepository;
 
+    @Autowired
+    private IndexPeriodesConge indexPeriodesConge;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CalculJoursOuvrables calculJoursOuvrables;
+
+    @Autowired
+    private SoldeCongeService soldeCongeService;
+
+    @Autowired
+    private StatistiquesAnnuellesService statistiquesAnnuellesService;
+
+    private static final int TAILLE_PAGE_DEFAUT = 50;
+    private static final int TAILLE_PAGE_MAX = 200;
+
     public List<DemandeConge> getAllDemandes() {
         return demandeCongeRepository.findAll();
     }
@@ -64,54 +83,106 @@ public class DemandeCongeService {
             demande.setDateCreation(LocalDate.now().atStartOfDay());
         }
 
-        return demandeCongeRepository.save(demande);
+        DemandeConge precedente = demande.getId() == null ? null
+                : demandeCongeRepository.findById(demande.getId()).orElse(null);
+        if (precedente == null) {
+            return enregistrer(demande, null, demande.getAnnee());
+        }
+        verifierVersion(demande.getVersion(), precedente.getVersion());
+        // Valeurs lues avant l'enregistrement, qui les écrase
+        DemandeConge.StatutDemande ancienStatut = precedente.getStatut();
+        Integer ancienneAnnee = precedente.getAnnee();
+        // Le statut et la décision ne changent que par approbation, rejet ou annulation
+        demande.setStatut(ancienStatut);
+        demande.setApprouvePar(precedente.getApprouvePar());
+        demande.setDateTraitement(precedente.getDateTraitement());
+        demande.setMotifRejet(precedente.getMotifRejet());
+        return enregistrer(demande, ancienStatut, ancienneAnnee);
     }
 
-    public void deleteDemande(Long id) {
-        demandeCongeRepository.deleteById(id);
+    /**
+     * Une modification doit porter la version lue par le client, sinon elle écraserait une décision
+     * ou une modification intervenue depuis (le contrôleur répond 409)
+     */
+    private static void verifierVersion(Long versionClient, Long versionActuelle) {
+        if (versionClient == null) {
+            throw new ObjectOptimisticLockingFailureException(
+                    "La version de la demande est obligatoire pour la modifier", null);
+        }
+        if (!versionClient.equals(versionActuelle)) {
+            throw new ObjectOptimisticLockingFailureException("La demande a été modifiée depuis sa lecture", null);
+        }
     }
 
-    public List<DemandeConge> getDemandesByEmployeId(Long employeId) {
-        return demandeCongeRepository.findByEmployeId(employeId);
+    @Transactional
+    public void deleteDemande(Long id) {
+        demandeCongeRepository.findById(id).ifPresent(demande -> {
+            if (demande.getStatut() == DemandeConge.StatutDemande.APPROUVE) {
+                soldeCongeService.retirerDemande(demande);
+            }
+            demandeCongeRepository.delete(demande);
+            eventPublisher.publishEvent(DemandeCongeModifieeEvent.suppression(demande));
+        });
     }
 
     /**
-     * Approuver une demande de congé
+     * Décide d'une demande encore EN_ATTENTE par un UPDATE conditionnel : si deux approbateurs (ou deux envois
+     * de la même requête) se croisent, un seul applique la décision et ses effets (journal, événement)
      */
-    @Transactional
-    public DemandeConge approuverDemande(Long demandeId, Long approbateurId) {
+    private DemandeConge decider(Long demandeId, DemandeConge.StatutDemande statut, Long approbateurId,
+                                 String motifRejet) {
+        int lignes = demandeCongeRepository.deciderSiEnAttente(demandeId, statut, approbateurId,
+                LocalDate.now().atStartOfDay(), motifRejet);
         DemandeConge demande = demandeCongeRepository.findById(demandeId)
                 .orElseThrow(() -> new RuntimeException("Demande non trouvée"));
-
-        if (demande.getStatut() != DemandeConge.StatutDemande.EN_ATTENTE) {
+        if (lignes == 0) {
             throw new RuntimeException("Cette demande a déjà été traitée");
         }
 
-        demande.setStatut(DemandeConge.StatutDemande.APPROUVE);
-        demande.setApprouvePar(approbateurId);
-        demande.setDateTraitement(LocalDate.now().atStartOfDay());
-
-        return demandeCongeRepository.save(demande);
+        if (statut == DemandeConge.StatutDemande.APPROUVE) {
+            soldeCongeService.appliquerDemande(demande);
+        }
+        eventPublisher.publishEvent(DemandeCongeModifieeEvent.of(demande, DemandeConge.StatutDemande.EN_ATTENTE));
+        return demande;
     }
 
     /**
-     * Rejeter une demande de congé
+     * Enregistre la demande, met à jour le journal des congés dans la même transaction
+     * et notifie les index en mémoire (après commit)
      */
-    @Transactional
-    public DemandeConge rejeterDemande(Long demandeId, Long approbateurId, String motifRejet) {
-        DemandeConge demande = demandeCongeRepository.findById(demandeId)
-                .orElseThrow(() -> new RuntimeException("Demande non trouvée"));
+    private DemandeConge enregistrer(DemandeConge demande, DemandeConge.StatutDemande ancienStatut) {
+        return enregistrer(demande, ancienStatut, demande.getAnnee());
+    }
 
-        if (demande.getStatut() != DemandeConge.StatutDemande.EN_ATTENTE) {
-            throw new RuntimeException("Cette demande a déjà été traitée");
+    private DemandeConge enregistrer(DemandeConge demande, DemandeConge.StatutDemande ancienStatut,
+                                     Integer ancienneAnnee) {
+        DemandeConge saved = demandeCongeRepository.save(demande);
+        if (saved.getStatut() == DemandeConge.StatutDemande.APPROUVE
+                || ancienStatut == DemandeConge.StatutDemande.APPROUVE) {
+            soldeCongeService.appliquerDemande(saved);
         }
+        eventPublisher.publishEvent(DemandeCongeModifieeEvent.of(saved, ancienStatut, ancienneAnnee));
+        return saved;
+    }
 
-        demande.setStatut(DemandeConge.StatutDemande.REJETE);
-        demande.setApprouvePar(approbateurId);
-        demande.setDateTraitement(LocalDate.now().atStartOfDay());
-        demande.setMotifRejet(motifRejet);
+    public List<DemandeConge> getDemandesByEmployeId(Long employeId) {
+        return demandeCongeRepository.findByEmployeId(employeId);
+    }
 
-        return demandeCongeRepository.save(demande);
+    /**
+     * Approuver une demande de congé
+     */
+    @Transactional
+    public DemandeConge approuverDemande(Long demandeId, Long approbateurId) {
+        return decider(demandeId, DemandeConge.StatutDemande.APPROUVE, approbateurId, null);
+    }
+
+    /**
+     * Rejeter une demande de congé
+     */
+    @Transactional
+    public DemandeConge rejeterDemande(Long demandeId, Long approbateurId, String motifRejet) {
+        return decider(demandeId, DemandeConge.StatutDemande.REJETE, approbateurId, motifRejet);
     }
 
     /**
@@ -127,10 +198,11 @@ public class DemandeCongeService {
             throw new RuntimeException("Impossible d'annuler une demande approuvée déjà commencée");
         }
 
+        DemandeConge.StatutDemande ancienStatut = demande.getStatut();
         demande.setStatut(DemandeConge.StatutDemande.ANNULE);
         demande.setDateTraitement(LocalDate.now().atStartOfDay());
 
-        return demandeCongeRepository.save(demande);
+        return enregistrer(demande, ancienStatut);
     }
 
     /**
@@ -156,35 +228,17 @@ public class DemandeCongeService {
     }
 
     /**
-     * Vérifier les conflits de congés pour un employé
+     * Vérifier les conflits de congés pour un employé (index en mémoire, sans requête)
      */
     public boolean hasConflictingLeave(Long employeId, LocalDate dateDebut, LocalDate dateFin, Long excludeDemandeId) {
-        List<DemandeConge> conflictingDemandes = demandeCongeRepository
-                .findConflictingLeaves(employeId, dateDebut, dateFin, excludeDemandeId);
-        return !conflictingDemandes.isEmpty();
+        return indexPeriodesConge.aUnChevauchement(employeId, dateDebut, dateFin, excludeDemandeId);
     }
 
     /**
-     * Calculer les jours ouvrables entre deux dates (exclut weekends)
+     * Calculer les jours ouvrables entre deux dates (exclut weekends et jours fériés)
      */
     private long calculateWorkingDays(LocalDate startDate, LocalDate endDate) {
-        if (startDate.isAfter(endDate)) {
-            throw new IllegalArgumentException("La date de début doit être antérieure à la date de fin");
-        }
-
-        long totalDays = ChronoUnit.DAYS.between(startDate, endDate) + 1; // +1 pour inclure le jour de début
-        long workingDays = 0;
-
-        LocalDate current = startDate;
-        while (!current.isAfter(endDate)) {
-            DayOfWeek dayOfWeek = current.getDayOfWeek();
-            if (dayOfWeek != DayOfWeek.SATURDAY && dayOfWeek != DayOfWeek.SUNDAY) {
-                workingDays++;
-            }
-            current = current.plusDays(1);
-        }
-
-        return workingDays;
+        return calculJoursOuvrables.joursOuvrables(startDate, endDate);
     }
 
     /**
@@ -239,35 +293,21 @@ public class DemandeCongeService {
      * Obtenir les statistiques des demandes pour une année
      */
     public Map<String, Long> getStatistiquesDemandesParAnnee(Integer annee) {
-        List<Object[]> statistiques = demandeCongeRepository.countDemandesByStatutAndAnnee(annee);
-
-        Map<String, Long> result = new HashMap<>();
-        result.put("EN_ATTENTE", 0L);
-        result.put("APPROUVE", 0L);
-        result.put("REJETE", 0L);
-        result.put("ANNULE", 0L);
-
-        for (Object[] stat : statistiques) {
-            DemandeConge.StatutDemande statut = (DemandeConge.StatutDemande) stat[0];
-            Long count = (Long) stat[1];
-            result.put(statut.name(), count);
-        }
-
-        return result;
+        return statistiquesAnnuellesService.getStatistiquesDemandes(annee);
     }
 
     /**
      * Vérifier si un employé peut prendre des congés à une date donnée
      */
     public boolean peutPrendreCongeALaDate(Long employeId, LocalDate date) {
-        return !demandeCongeRepository.isEmployeEnCongeALaDate(employeId, date);
+        return !indexPeriodesConge.estEnConge(employeId, date);
     }
 
     /**
      * Obtenir la liste des employés en congé aujourd'hui
      */
     public List<DemandeConge> getEmployesEnCongeAujourdhui() {
-        return demandeCongeRepository.findDemandesEnCours();
+        return demandeCongeRepository.findAllById(indexPeriodesConge.congesApprouves(LocalDate.now()));
     }
 
     /**
@@ -278,68 +318,43 @@ public class DemandeCongeService {
         return demandeCongeRepository.findDemandesCommencantBientot(dateLimite);
     }
 
-    public List<Map<String, Object>> getAllDemandesWithDetails() {
-        List<DemandeConge> demandes = demandeCongeRepository.findAll();
-
-        return demandes.stream().map(demande -> {
-            Map<String, Object> demandeWithDetails = new HashMap<>();
-
-            // Copier les données de base
-            demandeWithDetails.put("id", demande.getId());
-            demandeWithDetails.put("employeId", demande.getEmployeId());
-            demandeWithDetails.put("typeConge", demande.getTypeConge()); // Utiliser typeConge
-            demandeWithDetails.put("dateDebut", demande.getDateDebut());
-            demandeWithDetails.put("dateFin", demande.getDateFin());
-            demandeWithDetails.put("motif", demande.getMotif());
-            demandeWithDetails.put("statut", demande.getStatut());
-            demandeWithDetails.put("dateCreation", demande.getDateCreation());
-            demandeWithDetails.put("joursDemandes", demande.getNombreJours());
-
-            // Récupérer et ajouter les détails de l'employé
-            if (demande.getEmployeId() != null) {
-                Optional<Employe> employe = employeRepository.findById(demande.getEmployeId());
-                if (employe.isPresent()) {
-                    Map<String, Object> employeMap = new HashMap<>();
-                    employeMap.put("id", employe.get().getId());
-                    employeMap.put("nom", employe.get().getNom());
-                    employeMap.put("prenom", employe.get().getPrenom());
-                    employeMap.put("matricule", employe.get().getMatricule());
-                    employeMap.put("photoProfil", employe.get().getPhotoProfil());
-                    demandeWithDetails.put("employe", employeMap);
-                }
-            }
+    /**
+     * Toutes les demandes avec le résumé de leur employé, en une seule requête de jointure
+     */
+    public List<DemandeCongeDetailDTO> getAllDemandesWithDetails() {
+        List<DemandeCongeDetailDTO> demandes = demandeCongeRepository.findAllDetails();
+        demandes.forEach(this::calculerJoursOuvrables);
+        return demandes;
+    }
+
+    /**
+     * Page de demandes avec le résumé de leur employé, filtrée par statut, année et période.
+     * Une requête de jointure plus une requête de comptage, quel que soit le nombre d'employés concernés.
+     */
+    @Transactional(readOnly = true)
+    public PageDTO<DemandeCongeDetailDTO> getDemandesWithDetailsPage(DemandeConge.StatutDemande statut, Integer annee,
+                                                                     LocalDate debut, LocalDate fin,
+                                                                     Integer page, Integer taille) {
+        int pageEffective = page == null || page < 0 ? 0 : page;
+        int tailleEffective = taille == null || taille <= 0 ? TAILLE_PAGE_DEFAUT : Math.min(taille, TAILLE_PAGE_MAX);
+        PageDTO<DemandeCongeDetailDTO> resultat = PageDTO.fromPage(demandeCongeRepository.findDetails(
+                statut, annee, debut, fin, PageRequest.of(pageEffective, tailleEffective)));
+        resultat.getContent().forEach(this::calculerJoursOuvrables);
+        return resultat;
+    }
 
-            return demandeWithDetails;
-        }).collect(Collectors.toList());
+    private void calculerJoursOuvrables(DemandeCongeDetailDTO demande) {
+        if (demande.getDateDebut() != null && demande.getDateFin() != null
+                && !demande.getDateDebut().isAfter(demande.getDateFin())) {
+            demande.setJoursDemandes(calculateWorkingDays(demande.getDateDebut(), demande.getDateFin()));
+        }
     }
 
+    /**
+     * Solde disponible de l'année en cours, lu dans le journal des congés
+     */
     public int getSoldeCongeDisponible(Long employeId) {
-        // Récupérer l'employé avec son solde personnalisé
-        Employe employe = employeRepository.findById(employeId)
-                .orElseThrow(() -> new RuntimeException("Employé non trouvé"));
-
-        // Utiliser le solde personnalisé ou la valeur par défaut
-        int soldeAnnuel = employe.getSoldeCongeAnnuel() != null ?
-                employe.getSoldeCongeAnnuel() : 25;
-
-        // Calculer les jours déjà pris (seulement les demandes approuvées)
-        List<DemandeConge> demandesApprouvees = demandeCongeRepository.findByEmployeIdAndStatut(
-                employeId, DemandeConge.StatutDemande.APPROUVE);
-
-        int totalJoursPris = demandesApprouvees.stream()
-                .mapToInt(demande -> {
-                    if (demande.getJoursDemandes() != null) {
-                        return demande.getJoursDemandes();
-                    } else {
-                        return (int) ChronoUnit.DAYS.between(
-                                demande.getDateDebut(),
-                                demande.getDateFin()
-                        ) + 1;
-                    }
-                })
-                .sum();
-
-        return soldeAnnuel - totalJoursPris;
+        return soldeCongeService.getSolde(employeId, LocalDate.now().getYear()).getDisponible();
     }
 
     public Map<String, Object> getDemandeDetails(Long id) {
@@ -375,60 +390,11 @@ public class DemandeCongeService {
 
 
     public List<DemandeConge> getCongesActifs(Long employeId, LocalDate date) {
-        return demandeCongeRepository.findByEmployeIdAndStatut(employeId, DemandeConge.StatutDemande.APPROUVE)
-                .stream()
-                .filter(demande ->
-                        !demande.getDateDebut().isAfter(date) &&
-                                !demande.getDateFin().isBefore(date)
-                )
-                .collect(Collectors.toList());
-    }
-
-    public DemandeConge approuverDemande(int id, Long approvateurId) {
-        DemandeConge demande = demandeCongeRepository.findById((long) id)
-                .orElseThrow(() -> new RuntimeException("Demande non trouvée"));
-
-        demande.setStatut(DemandeConge.StatutDemande.APPROUVE);
-        demande.setApprouvePar(approvateurId);
-        demande.setDateTraitement(LocalDateTime.now());
-
-        DemandeConge savedDemande = demandeCongeRepository.save(demande);
-
-        // Synchroniser automatiquement le statut de l'employé
-        congeStatusService.synchroniserStatutEmploye((Long) demande.getEmploye().getId());
-
-        return savedDemande;
-    }
-
-    public DemandeConge rejeterDemande(Long demandeId, String motifRejet, Long approvateurId) {
-        DemandeConge demande = demandeCongeRepository.findById(demandeId)
-                .orElseThrow(() -> new RuntimeException("Demande non trouvée"));
-
-        demande.setStatut(DemandeConge.StatutDemande.REJETE);
-        demande.setMotifRejet(motifRejet);
-        demande.setApprouvePar(approvateurId);
-        demande.setDateTraitement(LocalDateTime.now());
-
-        DemandeConge savedDemande = demandeCongeRepository.save(demande);
-
-        // Synchroniser le statut (au cas où l'employé était EN_CONGE)
-        congeStatusService.synchroniserStatutEmploye((Long) demande.getEmploye().getId());
-
-        return savedDemande;
-    }
-
-    public void annulerDemande(int id) {
-        DemandeConge demande = demandeCongeRepository.findById((long) id)
-                .orElseThrow(() -> new RuntimeException("Demande non trouvée"));
-
-        demande.setStatut(DemandeConge.StatutDemande.ANNULE);
-        demandeCongeRepository.save(demande);
-
-        // Synchroniser le statut de l'employé
-        congeStatusService.synchroniserStatutEmploye((Long) demande.getEmploye().getId());
+        List<Long> demandeIds = indexPeriodesConge.congesApprouves(employeId, date);
+        return demandeIds.isEmpty() ? new ArrayList<>() : demandeCongeRepository.findAllById(demandeIds);
     }
 
     public int getCongesActifsCount() {
-        return demandeCongeRepository.countCongesActifs(LocalDate.now());
+        return indexPeriodesConge.congesApprouves(LocalDate.now()).size();
     }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.rhmanagement.service;
+
+import com.rhmanagement.dto.DossierEmployeDTO;
+import com.rhmanagement.repository.*;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Chargement du dossier complet d'un employé.
+ *
+ * Les sept collections de Employe sont des List (bags) : Hibernate refuse d'en joindre plusieurs
+ * dans une même requête, et une jointure unique produirait de toute façon un produit cartésien.
+ * On charge donc la fiche puis une requête par collection, filtrée sur employe_id :
+ * 8 requêtes au total, quel que soit le nombre d'éléments du dossier.
+ */
+@Service
+@Transactional(readOnly = true)
+public class DossierEmployeService {
+
+    private final EmployeRepository employeRepository;
+    private final EnfantRepository enfantRepository;
+    private final DiplomeRepository diplomeRepository;
+    private final HistoriquePosteRepository historiquePosteRepository;
+    private final CompetenceRepository competenceRepository;
+    private final FormationRepository formationRepository;
+    private final DocumentRepository documentRepository;
+    private final AffectationPastoraleRepository affectationPastoraleRepository;
+
+    public DossierEmployeService(EmployeRepository employeRepository,
+                                 EnfantRepository enfantRepository,
+                                 DiplomeRepository diplomeRepository,
+                                 HistoriquePosteRepository historiquePosteRepository,
+                                 CompetenceRepository competenceRepository,
+                                 FormationRepository formationRepository,
+                                 DocumentRepository documentRepository,
+                                 AffectationPastoraleRepository affectationPastoraleRepository) {
+        this.employeRepository = employeRepository;
+        this.enfantRepository = enfantRepository;
+        this.diplomeRepository = diplomeRepository;
+        this.historiquePosteRepository = historiquePosteRepository;
+        this.competenceRepository = competenceRepository;
+        this.formationRepository = formationRepository;
+        this.documentRepository = documentRepository;
+        this.affectationPastoraleRepository = affectationPastoraleRepository;
+    }
+
+    public Optional<DossierEmployeDTO> getDossier(Long employeId) {
+        return employeRepository.findById(employeId)
+                .map(employe -> DossierEmployeDTO.builder()
+                        .employe(employe)
+                        .enfants(enfantRepository.findByEmployeId(employeId))
+                        .diplomes(diplomeRepository.findByEmployeId(employeId))
+                        .historiquePostes(historiquePosteRepository.findByEmployeIdOrderByDateDebutDesc(employeId))
+                        .competences(competenceRepository.findByEmployeId(employeId))
+                        .formations(formationRepository.findByEmployeIdOrderByDateDebutDesc(employeId))
+                        .documents(documentRepository.findByEmployeId(employeId))
+                        .affectationsPastorales(affectationPastoraleRepository.findByPasteurIdOrderByDateDebutDesc(employeId))
+                        .build());
+    }
+}
@@ -1,29 +1,28 @@
 package com.rhmanagement.service;
 
-import com.itextpdf.text.BaseColor;
-import com.lowagie.text.*;
-import com.lowagie.text.Font;
-import com.lowagie.text.pdf.PdfWriter;
+import com.rhmanagement.dto.CursorPageDTO;
+import com.rhmanagement.dto.EmployeDTO;
 import com.rhmanagement.entity.Employe;
 import com.rhmanagement.entity.Enfant;
 import com.rhmanagement.entity.DemandeConge;
+import com.rhmanagement.event.EmployeModifieEvent;
 import com.rhmanagement.repository.EmployeRepository;
 import com.rhmanagement.repository.DemandeCongeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.awt.*;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -38,10 +37,97 @@ public class EmployeService {
     @Autowired
     private DemandeCongeRepository demandeCongeRepository;
 
+    @Autowired
+    private IndexRechercheEmploye indexRechercheEmploye;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PdfExportService pdfExportService;
+
+    @Autowired
+    private MoteurRenduPdf moteurRenduPdf;
+
+    @Autowired
+    private MiniaturePhotoService miniaturePhotoService;
+
+    private static final int LIMITE_RECHERCHE_DEFAUT = 50;
+    private static final int LIMITE_RECHERCHE_MAX = 200;
+
     public List<Employe> getAllEmployes() {
         return employeRepository.findAll();
     }
 
+    private static final int TAILLE_PAGE_DEFAUT = 50;
+    private static final int TAILLE_PAGE_MAX = 200;
+    private static final String SEPARATEUR_CURSEUR = "\u001F";
+
+    /**
+     * Liste paginée par curseur (keyset) : le coût d'une page ne dépend pas de sa position dans l'annuaire.
+     * @param curseur curseur renvoyé par la page précédente (null pour la première page)
+     * @param taille nombre d'employés par page (plafonné à 200)
+     * @param tri "id" (défaut), "-id" ou "nom" (nom, prénom, id)
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<EmployeDTO> getEmployesPage(String curseur, Integer taille, String tri,
+                                                     Employe.StatutEmploye statut, Employe.Poste poste) {
+        int tailleEffective = taille == null || taille <= 0 ? TAILLE_PAGE_DEFAUT : Math.min(taille, TAILLE_PAGE_MAX);
+        // Une ligne de plus pour savoir s'il existe une page suivante sans requête COUNT
+        PageRequest limite = PageRequest.of(0, tailleEffective + 1);
+        String[] position = decoderCurseur(curseur, "nom".equals(tri) ? 3 : 1);
+
+        List<EmployeDTO> lignes;
+        if ("nom".equals(tri)) {
+            lignes = position == null
+                    ? employeRepository.findPageParNom(null, null, null, statut, poste, limite)
+                    : employeRepository.findPageParNom(position[0], position[1], Long.valueOf(position[2]),
+                    statut, poste, limite);
+        } else if ("-id".equals(tri)) {
+            long avantId = position == null ? Long.MAX_VALUE : Long.parseLong(position[0]);
+            lignes = employeRepository.findPageParIdDecroissant(avantId, statut, poste, limite);
+        } else {
+            long apresId = position == null ? 0L : Long.parseLong(position[0]);
+            lignes = employeRepository.findPageParIdCroissant(apresId, statut, poste, limite);
+        }
+
+        boolean pageSuivante = lignes.size() > tailleEffective;
+        List<EmployeDTO> contenu = pageSuivante ? lignes.subList(0, tailleEffective) : lignes;
+
+        String curseurSuivant = null;
+        if (pageSuivante) {
+            EmployeDTO dernier = contenu.get(contenu.size() - 1);
+            curseurSuivant = "nom".equals(tri)
+                    ? encoderCurseur(dernier.getNom(), dernier.getPrenom(), String.valueOf(dernier.getId()))
+                    : encoderCurseur(String.valueOf(dernier.getId()));
+        }
+
+        return new CursorPageDTO<>(new ArrayList<>(contenu), contenu.size(), pageSuivante, curseurSuivant);
+    }
+
+    private String encoderCurseur(String... valeurs) {
+        String brut = String.join(SEPARATEUR_CURSEUR, valeurs);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(brut.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decoderCurseur(String curseur, int nombreValeurs) {
+        if (curseur == null || curseur.isBlank()) {
+            return null;
+        }
+        String[] valeurs;
+        try {
+            String brut = new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8);
+            valeurs = brut.split(SEPARATEUR_CURSEUR, -1);
+            Long.parseLong(valeurs[valeurs.length - 1]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide");
+        }
+        if (valeurs.length != nombreValeurs) {
+            throw new IllegalArgumentException("Curseur de pagination invalide");
+        }
+        return valeurs;
+    }
+
     public Optional<Employe> getEmployeById(Long id) {
         return employeRepository.findById(id);
     }
@@ -94,10 +180,56 @@ public class EmployeService {
 
     public void deleteEmploye(Long id) {
         employeRepository.deleteById(id);
+        eventPublisher.publishEvent(new EmployeModifieEvent(id, null));
     }
 
     public List<Employe> searchEmployes(String query) {
-        return employeRepository.searchEmployes(query);
+        return searchEmployes(query, null, false);
+    }
+
+    /**
+     * Recherche par l'index en mémoire, triée par pertinence.
+     * En mode approximatif, les fautes de frappe et variantes de graphie des noms sont tolérées.
+     * Tant que l'index n'est pas chargé (démarrage), on retombe sur la requête LIKE.
+     */
+    @Transactional(readOnly = true)
+    public List<Employe> searchEmployes(String query, Integer limite, boolean approximatif) {
+        int limiteEffective = limite == null || limite <= 0 ? LIMITE_RECHERCHE_DEFAUT : Math.min(limite, LIMITE_RECHERCHE_MAX);
+
+        if (!indexRechercheEmploye.isPret()) {
+            return employeRepository.searchEmployes(query).stream()
+                    .limit(limiteEffective)
+                    .collect(Collectors.toList());
+        }
+
+        List<Long> ids = approximatif
+                ? indexRechercheEmploye.rechercherApproximatif(query, limiteEffective)
+                : indexRechercheEmploye.rechercher(query, limiteEffective);
+        return chargerDansLOrdre(ids);
+    }
+
+    /**
+     * Charge les employés en une seule requête IN en conservant l'ordre des identifiants
+     */
+    private List<Employe> chargerDansLOrdre(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Employe> parId = employeRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Employe::getId, employe -> employe));
+        return ids.stream()
+                .map(parId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Sauvegarde l'employé et notifie les index/caches (après commit)
+     */
+    private Employe enregistrer(Employe employe) {
+        Employe enregistre = employeRepository.save(employe);
+        eventPublisher.publishEvent(new EmployeModifieEvent(enregistre.getId(), EmployeDTO.fromEntity(enregistre)));
+        return enregistre;
     }
 
     public List<Employe> getEmployesByStatut(Employe.StatutEmploye statut) {
@@ -139,6 +271,7 @@ public class EmployeService {
             if (Files.exists(oldPhotoPath)) {
                 Files.delete(oldPhotoPath);
             }
+            miniaturePhotoService.supprimer(employe.getPhotoProfil());
         }
 
         String originalFileName = file.getOriginalFilename();
@@ -151,9 +284,10 @@ public class EmployeService {
         Path filePath = uploadPath.resolve(fileName);
 
         Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        miniaturePhotoService.generer(fileName);
 
         employe.setPhotoProfil(fileName);
-        return employeRepository.save(employe);
+        return enregistrer(employe);
     }
 
     public Employe deletePhoto(Long id) {
@@ -169,9 +303,10 @@ public class EmployeService {
                 } catch (IOException e) {
                     // Log l'erreur mais continue
                 }
+                miniaturePhotoService.supprimer(employe.getPhotoProfil());
 
                 employe.setPhotoProfil(null);
-                return employeRepository.save(employe);
+                return enregistrer(employe);
             }
         }
 
@@ -184,23 +319,7 @@ public class EmployeService {
     }
 
     public List<Map<String, Object>> getEmployesAvecCongesTermines() {
-        LocalDate aujourdhui = LocalDate.now();
-
-        List<Employe> employesEnConge = employeRepository.findByStatut(Employe.StatutEmploye.EN_CONGE);
-
-        return employesEnConge.stream()
-                .filter(employe -> {
-                    List<DemandeConge> demandesApprouvees = demandeCongeRepository.findByEmployeIdAndStatut(
-                            employe.getId(),
-                            DemandeConge.StatutDemande.APPROUVE
-                    );
-
-                    return demandesApprouvees.stream()
-                            .anyMatch(demande -> {
-                                LocalDate dateFin = demande.getDateFin();
-                                return dateFin.isBefore(aujourdhui) || dateFin.isEqual(aujourdhui);
-                            });
-                })
+        return employeRepository.findEnCongeAvecCongeTermine(LocalDate.now()).stream()
                 .map(employe -> {
                     Map<String, Object> result = new HashMap<>();
                     result.put("employeId", employe.getId());
@@ -214,7 +333,7 @@ public class EmployeService {
         Employe employe = employeRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Employé non trouvé"));
         employe.setStatut(Employe.StatutEmploye.valueOf(statut));
-        return employeRepository.save(employe);
+        return enregistrer(employe);
     }
 
     public int getTotalEmployes() {
@@ -226,18 +345,7 @@ public class EmployeService {
     }
 
     public int getIncoherencesStatutCount() {
-        LocalDate aujourdhui = LocalDate.now();
-        List<Employe> employesEnConge = employeRepository.findByStatut(Employe.StatutEmploye.EN_CONGE);
-
-        int incoherences = 0;
-        for (Employe employe : employesEnConge) {
-            Optional<DemandeConge> congeActif = demandeCongeRepository.findCongeActif(employe.getId(), aujourdhui);
-            if (congeActif.isEmpty()) {
-                incoherences++;
-            }
-        }
-
-        return incoherences;
+        return (int) employeRepository.countEnCongeSansCongeEnCours(LocalDate.now());
     }
 
     public Employe mettreEmployeActif(Long employeId) {
@@ -249,7 +357,7 @@ public class EmployeService {
 
         if (congesActifs.isEmpty()) {
             employe.setStatut(Employe.StatutEmploye.ACTIF);
-            employe = employeRepository.save(employe);
+            employe = enregistrer(employe);
         }
 
         return employe;
@@ -297,218 +405,17 @@ public class EmployeService {
             employe.setPostePersonnalise(null);
         }
 
-        return employeRepository.save(employe);
+        return enregistrer(employe);
     }
 
     public byte[] generateFicheEmployePdf(Long id) {
-        try {
-            System.out.println("Début génération PDF pour employé ID: " + id);
-
-            Employe employe = employeRepository.findById(id)
-                    .orElseThrow(() -> new RuntimeException("Employé non trouvé avec l'ID : " + id));
-
-            List<Enfant> enfants = getEnfantsByEmployeId(id);
-
-            System.out.println("Employé trouvé: " + employe.getPrenom() + " " + employe.getNom());
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            Document document = new Document(PageSize.A4);
-
-            PdfWriter.getInstance(document, baos);
-            document.open();
-
-            // Titre principal - Correction de la méthode getFont
-            Font titleFont = new Font(Font.HELVETICA, 18, Font.BOLD, new Color(0, 0, 255)); // Bleu
-            Paragraph title = new Paragraph("FICHE EMPLOYÉ", titleFont);
-            title.setAlignment(Element.ALIGN_CENTER);
-            title.setSpacingAfter(20);
-            document.add(title);
-
-            // Section Informations Personnelles
-            addSectionTitle(document, "INFORMATIONS PERSONNELLES");
-            addInfoLine(document, "Nom complet", getSafeString(employe.getPrenom() + " " + employe.getNom()));
-            addInfoLine(document, "Matricule", getSafeString(employe.getMatricule()));
-            addInfoLine(document, "Date de naissance", formatDate(employe.getDateNaissance()));
-            addInfoLine(document, "Lieu de naissance", getSafeString(employe.getLieuNaissance()));
-            addInfoLine(document, "CIN", getSafeString(employe.getCin()));
-            addInfoLine(document, "Nationalité", getSafeString(employe.getNationalite()));
-            addInfoLine(document, "Statut matrimonial",
-                    employe.getStatutMatrimonial() != null ? employe.getStatutMatrimonial().name() : "Non spécifié");
-            addInfoLine(document, "Numéro CNAPS", getSafeString(employe.getNumeroCNAPS()));
-            addInfoLine(document, "Nom du père", getSafeString(employe.getNomPere()));
-            addInfoLine(document, "Nom de la mère", getSafeString(employe.getNomMere()));
-
-            document.add(Chunk.NEWLINE);
-
-            // Section Contact
-            addSectionTitle(document, "INFORMATIONS DE CONTACT");
-            addInfoLine(document, "Adresse", getSafeString(employe.getAdresse()));
-            addInfoLine(document, "Téléphone", getSafeString(employe.getTelephone()));
-            addInfoLine(document, "Email", getSafeString(employe.getEmail()));
-
-            document.add(Chunk.NEWLINE);
-
-            // Section Contact d'urgence
-            addSectionTitle(document, "CONTACT D'URGENCE");
-            addInfoLine(document, "Nom", getSafeString(employe.getContactUrgenceNom()));
-            addInfoLine(document, "Lien", getSafeString(employe.getContactUrgenceLien()));
-            addInfoLine(document, "Téléphone", getSafeString(employe.getContactUrgenceTelephone()));
-
-            document.add(Chunk.NEWLINE);
-
-            // Section Professionnelle - CORRECTION DES TYPES NUMÉRIQUES
-            addSectionTitle(document, "INFORMATIONS PROFESSIONNELLES");
-            addInfoLine(document, "Poste", getLibellePoste(employe));
-            addInfoLine(document, "Statut", employe.getStatut() != null ? employe.getStatut().name() : "Non spécifié");
-            addInfoLine(document, "Type de contrat", getSafeString(String.valueOf(employe.getTypeContrat())));
-            addInfoLine(document, "Organisation employeur", getSafeString(employe.getOrganisationEmployeur()));
-            addInfoLine(document, "Date de début", formatDate(employe.getDateDebut()));
-            addInfoLine(document, "Date de fin", formatDate(employe.getDateFin()));
-
-            // CORRECTION : Gestion sécurisée des nombres sans cast problématique
-            String salaireBaseStr = "Non spécifié";
-            if (employe.getSalaireBase() != null) {
-                try {
-                    // Utilisation directe de toString() pour éviter les problèmes de cast
-                    Number salaire = employe.getSalaireBase();
-                    if (salaire instanceof java.math.BigDecimal) {
-                        java.math.BigDecimal bd = (java.math.BigDecimal) salaire;
-                        salaireBaseStr = String.format("%,.0f MGA", bd.doubleValue());
-                    } else {
-                        salaireBaseStr = String.format("%,d MGA", salaire.longValue());
-                    }
-                } catch (Exception e) {
-                    salaireBaseStr = employe.getSalaireBase().toString() + " MGA";
-                }
-            }
-            addInfoLine(document, "Salaire base", salaireBaseStr);
-
-            // CORRECTION : Gestion sécurisée du pourcentage
-            String pourcentageStr = "Non spécifié";
-            if (employe.getPourcentageSalaire() != null) {
-                try {
-                    Number pourcentage = employe.getPourcentageSalaire();
-                    if (pourcentage instanceof java.math.BigDecimal) {
-                        java.math.BigDecimal bd = (java.math.BigDecimal) pourcentage;
-                        pourcentageStr = String.format("%.0f%%", bd.doubleValue());
-                    } else {
-                        pourcentageStr = pourcentage.toString() + "%";
-                    }
-                } catch (Exception e) {
-                    pourcentageStr = employe.getPourcentageSalaire().toString() + "%";
-                }
-            }
-            addInfoLine(document, "Pourcentage salaire", pourcentageStr);
-
-            addInfoLine(document, "Superviseur hiérarchique", getSafeString(employe.getSuperviseurHierarchique()));
-            addInfoLine(document, "Affectation actuelle", getSafeString(employe.getAffectationActuelle()));
-
-            document.add(Chunk.NEWLINE);
-
-            // Section Accréditation
-            addSectionTitle(document, "ACCRÉDITATION");
-            addInfoLine(document, "Date d'accréditation", formatDate(employe.getDateAccreditation()));
-            addInfoLine(document, "Niveau d'accréditation", getSafeString(String.valueOf(employe.getNiveauAccreditation())));
-            addInfoLine(document, "Groupe d'accréditation", getSafeString(employe.getGroupeAccreditation()));
-
-            // Informations familiales si marié
-            if (employe.getStatutMatrimonial() != null &&
-                    employe.getStatutMatrimonial().name().equals("MARIE")) {
-
-                document.add(Chunk.NEWLINE);
-                addSectionTitle(document, "INFORMATIONS FAMILIALES");
-                addInfoLine(document, "Nom du conjoint", getSafeString(employe.getNomConjoint()));
-                addInfoLine(document, "Date de mariage", formatDate(employe.getDateMariage()));
-                addInfoLine(document, "Date de naissance du conjoint", formatDate(employe.getDateNaissanceConjoint()));
-                addInfoLine(document, "Nombre d'enfants", String.valueOf(enfants.size()));
-
-                if (!enfants.isEmpty()) {
-                    document.add(Chunk.NEWLINE);
-                    addSimpleLine(document, "Liste des enfants:", Font.BOLD);
-
-                    for (Enfant enfant : enfants) {
-                        addSimpleLine(document, "• " + getSafeString(enfant.getNom()),
-                                formatDate(enfant.getDateNaissance()));
-                    }
-                }
-            }
-
-            // Pied de page
-            document.add(Chunk.NEWLINE);
-            Font footerFont = new Font(Font.HELVETICA, 10, Font.ITALIC, new Color(128, 128, 128)); // Gris
-            Paragraph footer = new Paragraph("Document généré le " +
-                    LocalDate.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), footerFont);
-            footer.setAlignment(Element.ALIGN_RIGHT);
-            document.add(footer);
-
-            document.close();
-
-            byte[] pdfBytes = baos.toByteArray();
-            System.out.println("PDF généré avec succès, taille: " + pdfBytes.length + " bytes");
-
-            return pdfBytes;
-
-        } catch (Exception e) {
-            System.err.println("Erreur lors de la génération du PDF: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Erreur lors de la génération du PDF: " + e.getMessage(), e);
-        }
-    }
-
-    private void addSectionTitle(Document document, String title) throws DocumentException {
-        // Correction de la méthode Font
-        Font sectionFont = new Font(Font.HELVETICA, 14, Font.BOLD, new Color(169, 169, 169)); // Gris foncé
-        Paragraph section = new Paragraph(title, sectionFont);
-        section.setSpacingAfter(10);
-        document.add(section);
-    }
-
-    private void addInfoLine(Document document, String label, String value) throws DocumentException {
-        if (value == null) value = "Non spécifié";
-
-        Font labelFont = new Font(Font.HELVETICA, 12, Font.BOLD);
-        Font valueFont = new Font(Font.HELVETICA, 12, Font.NORMAL);
-
-        Paragraph line = new Paragraph();
-        line.add(new Chunk(label + ": ", labelFont));
-        line.add(new Chunk(value, valueFont));
-        line.setSpacingAfter(5);
-        document.add(line);
-    }
-
-    private void addSimpleLine(Document document, String label, String value) throws DocumentException {
-        if (value == null) value = "Non spécifié";
-
-        Paragraph line = new Paragraph();
-        line.add(new Chunk(label + " " + value, new Font(Font.HELVETICA, 12, Font.NORMAL)));
-        line.setSpacingAfter(3);
-        document.add(line);
-    }
-
-    private void addSimpleLine(Document document, String text, int style) throws DocumentException {
-        Paragraph line = new Paragraph(text, new Font(Font.HELVETICA, 12, style));
-        line.setSpacingAfter(3);
-        document.add(line);
-    }
-
-    private String formatDate(LocalDate date) {
-        if (date == null) return "Non spécifié";
-        return date.format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-    }
+        Employe employe = employeRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Employé non trouvé avec l'ID : " + id));
+        List<Enfant> enfants = getEnfantsByEmployeId(id);
 
-    private String formatDate(java.util.Date date) {
-        if (date == null) return "Non spécifié";
-        try {
-            return date.toInstant()
-                    .atZone(java.time.ZoneId.systemDefault())
-                    .toLocalDate()
-                    .format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-        } catch (Exception e) {
-            return date.toString();
+        try (MoteurRenduPdf.TamponPdf pdf = moteurRenduPdf.enMemoire(
+                out -> pdfExportService.ecrireFicheEmployePdf(employe, enfants, out))) {
+            return pdf.toByteArray();
         }
     }
-
-    private String getSafeString(String value) {
-        return (value != null && !value.trim().isEmpty()) ? value : "Non spécifié";
-    }
-}
\ No newline at end of file
+}
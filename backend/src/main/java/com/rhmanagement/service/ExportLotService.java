@@ -0,0 +1,193 @@
+package com.rhmanagement.service;
+
+import com.rhmanagement.entity.Employe;
+import com.rhmanagement.entity.HistoriquePoste;
+import com.rhmanagement.repository.EmployeRepository;
+import com.rhmanagement.repository.HistoriquePosteRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Export groupé des états de service : une archive ZIP contenant le PDF de chaque employé sélectionné.
+ *
+ * Les employés et leurs historiques sont lus par lots (une requête IN par lot), les PDF rendus en parallèle
+ * sur un pool borné, et chaque PDF est écrit dans l'archive dès qu'il est prêt. Au plus deux PDF par thread
+ * sont en mémoire à un instant donné, quel que soit le nombre d'employés.
+ */
+@Service
+public class ExportLotService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportLotService.class);
+
+    private static final int TAILLE_LOT = 100;
+
+    private final PdfExportService pdfExportService;
+    private final MoteurRenduPdf moteurRenduPdf;
+    private final EmployeRepository employeRepository;
+    private final HistoriquePosteRepository historiquePosteRepository;
+
+    private final int parallelisme;
+    private final ExecutorService executeur;
+
+    public ExportLotService(PdfExportService pdfExportService,
+                            MoteurRenduPdf moteurRenduPdf,
+                            EmployeRepository employeRepository,
+                            HistoriquePosteRepository historiquePosteRepository,
+                            @Value("${app.export.lot-threads:0}") int threads) {
+        this.pdfExportService = pdfExportService;
+        this.moteurRenduPdf = moteurRenduPdf;
+        this.employeRepository = employeRepository;
+        this.historiquePosteRepository = historiquePosteRepository;
+        // 0 : un thread par cœur
+        this.parallelisme = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        AtomicInteger numero = new AtomicInteger();
+        this.executeur = Executors.newFixedThreadPool(parallelisme, tache -> {
+            Thread thread = new Thread(tache, "export-lot-" + numero.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private record Pdf(String nom, MoteurRenduPdf.TamponPdf contenu, String erreur) {
+    }
+
+    public List<Long> selectionner(Employe.Poste poste, Employe.StatutEmploye statut, String affectation) {
+        return employeRepository.findIdsPourExport(poste, statut,
+                affectation == null || affectation.isBlank() ? null : affectation);
+    }
+
+    /**
+     * Écrit dans le flux l'archive des états de service des employés donnés, dans l'ordre de fin de rendu.
+     * Les PDF en échec sont listés dans un fichier erreurs.txt en fin d'archive.
+     */
+    public void ecrireEtatsServiceZip(List<Long> employeIds, OutputStream out) throws IOException {
+        long debut = System.currentTimeMillis();
+        int fenetre = parallelisme * 2;
+        CompletionService<Pdf> rendus = new ExecutorCompletionService<>(executeur);
+        // Rendus soumis et pas encore écrits : seuls ceux-ci gardent un PDF en mémoire
+        Set<Future<Pdf>> enCours = new HashSet<>();
+        List<String> erreurs = new ArrayList<>();
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        try {
+            for (int i = 0; i < employeIds.size(); i += TAILLE_LOT) {
+                List<Long> lot = employeIds.subList(i, Math.min(i + TAILLE_LOT, employeIds.size()));
+                Map<Long, List<HistoriquePoste>> historiques = historiquePosteRepository.findByEmployeIdIn(lot).stream()
+                        .collect(Collectors.groupingBy(HistoriquePoste::getEmployeId));
+
+                for (Employe employe : employeRepository.findAllById(lot)) {
+                    if (enCours.size() == fenetre) {
+                        ecrireSuivant(zip, rendus, enCours, erreurs);
+                    }
+                    List<HistoriquePoste> historique = historiques.getOrDefault(employe.getId(), List.of());
+                    enCours.add(rendus.submit(() -> rendre(employe, historique)));
+                }
+            }
+            while (!enCours.isEmpty()) {
+                ecrireSuivant(zip, rendus, enCours, erreurs);
+            }
+
+            if (!erreurs.isEmpty()) {
+                byte[] texte = String.join("\n", erreurs).getBytes(StandardCharsets.UTF_8);
+                ecrireEntree(zip, "erreurs.txt", texte, texte.length);
+            }
+            zip.finish();
+            zip.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export groupé interrompu", e);
+        } catch (ExecutionException e) {
+            // rendre() ne lève pas d'exception : cas inattendu
+            throw new IOException("Erreur lors de l'export groupé", e.getCause());
+        } finally {
+            // Client déconnecté ou erreur : les rendus restants sont abandonnés, les PDF déjà prêts rendus au pool
+            for (Future<Pdf> tache : enCours) {
+                if (!tache.cancel(true) && tache.isDone()) {
+                    liberer(tache);
+                }
+            }
+        }
+        log.info("Export groupé des états de service : {} employés, {} erreurs en {} ms",
+                employeIds.size(), erreurs.size(), System.currentTimeMillis() - debut);
+    }
+
+    private Pdf rendre(Employe employe, List<HistoriquePoste> historique) {
+        String nom = "etat-service-" + (employe.getMatricule() != null ? employe.getMatricule() : employe.getId()) + ".pdf";
+        try {
+            MoteurRenduPdf.TamponPdf pdf = moteurRenduPdf.enMemoire(
+                    out -> pdfExportService.ecrireEtatServicePdf(employe, historique, out));
+            return new Pdf(nom, pdf, null);
+        } catch (Exception e) {
+            log.warn("État de service de l'employé {} non généré", employe.getId(), e);
+            return new Pdf(nom, null, nom + " : " + e.getMessage());
+        }
+    }
+
+    private static void ecrireSuivant(ZipOutputStream zip, CompletionService<Pdf> rendus, Set<Future<Pdf>> enCours,
+                                      List<String> erreurs) throws InterruptedException, ExecutionException, IOException {
+        Future<Pdf> termine = rendus.take();
+        enCours.remove(termine);
+        ecrire(zip, termine.get(), erreurs);
+    }
+
+    private static void liberer(Future<Pdf> tache) {
+        try {
+            Pdf pdf = tache.get();
+            if (pdf.contenu() != null) {
+                pdf.contenu().close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            // Rendu sans contenu : rien à libérer
+        }
+    }
+
+    private static void ecrire(ZipOutputStream zip, Pdf pdf, List<String> erreurs) throws IOException {
+        if (pdf.erreur() != null) {
+            erreurs.add(pdf.erreur());
+        } else {
+            // Le tampon retourne au pool une fois copié dans l'archive
+            try (MoteurRenduPdf.TamponPdf contenu = pdf.contenu()) {
+                ecrireEntree(zip, pdf.nom(), contenu.octets(), contenu.size());
+            }
+        }
+    }
+
+    /**
+     * Entrée stockée sans recompression : les PDF sont déjà compressés, seul le CRC est calculé
+     */
+    private static void ecrireEntree(ZipOutputStream zip, String nom, byte[] contenu, int taille) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(contenu, 0, taille);
+        ZipEntry entree = new ZipEntry(nom);
+        entree.setMethod(ZipEntry.STORED);
+        entree.setSize(taille);
+        entree.setCompressedSize(taille);
+        entree.setCrc(crc.getValue());
+        zip.putNextEntry(entree);
+        zip.write(contenu, 0, taille);
+        zip.closeEntry();
+        zip.flush();
+    }
+
+    @PreDestroy
+    public void arreter() {
+        executeur.shutdownNow();
+    }
+}
@@ -0,0 +1,309 @@
+package com.rhmanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhmanagement.entity.Employe;
+import com.rhmanagement.entity.Enfant;
+import com.rhmanagement.entity.HistoriquePoste;
+import com.rhmanagement.repository.EmployeRepository;
+import com.rhmanagement.repository.HistoriquePosteRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Exports PDF en tâche de fond (état de service, fiche employé).
+ *
+ * Une demande d'export crée un travail exécuté par un pool borné de threads, hors des threads Tomcat ;
+ * le client suit son avancement puis télécharge le fichier. Deux demandes identiques en cours partagent
+ * le même travail. Les PDF sont gardés sur disque sous le SHA-256 des données qui les composent
+ * (employé, enfants, historique des postes, photo) : un dossier inchangé n'est jamais regénéré.
+ */
+@Service
+public class ExportPdfService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportPdfService.class);
+
+    // À incrémenter quand la mise en page change, pour ne plus servir les anciens fichiers
+    private static final String VERSION_FORMAT = "2";
+
+    // Durée de conservation des travaux terminés (le fichier reste dans le cache disque)
+    private static final long CONSERVATION_TRAVAUX_MINUTES = 60;
+
+    public enum TypeExport {
+        ETAT_SERVICE, FICHE_EMPLOYE
+    }
+
+    public enum StatutTravail {
+        EN_ATTENTE, EN_COURS, TERMINE, ECHEC
+    }
+
+    private final PdfExportService pdfExportService;
+    private final EmployeRepository employeRepository;
+    private final HistoriquePosteRepository historiquePosteRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Path repertoireCache;
+    private final Path repertoirePhotos;
+    private final int joursCache;
+    private final ThreadPoolExecutor executeur;
+
+    private final Map<String, Travail> travaux = new ConcurrentHashMap<>();
+    // type:employeId -> travail en attente ou en cours
+    private final Map<String, Travail> travauxActifs = new ConcurrentHashMap<>();
+
+    public ExportPdfService(PdfExportService pdfExportService,
+                            EmployeRepository employeRepository,
+                            HistoriquePosteRepository historiquePosteRepository,
+                            TransactionTemplate transactionTemplate,
+                            ObjectMapper objectMapper,
+                            @Value("${app.export.threads:2}") int threads,
+                            @Value("${app.export.file-max:100}") int fileMax,
+                            @Value("${app.export.repertoire-cache:./exports-cache}") String repertoireCache,
+                            @Value("${app.export.cache-jours:30}") int joursCache,
+                            @Value("${upload.directory:./uploads}") String repertoirePhotos) {
+        this.pdfExportService = pdfExportService;
+        this.employeRepository = employeRepository;
+        this.historiquePosteRepository = historiquePosteRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.repertoireCache = Paths.get(repertoireCache);
+        this.repertoirePhotos = Paths.get(repertoirePhotos);
+        this.joursCache = joursCache;
+
+        AtomicInteger numero = new AtomicInteger();
+        this.executeur = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(fileMax), tache -> {
+                    Thread thread = new Thread(tache, "export-pdf-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    private static final class Travail {
+        private final String id = UUID.randomUUID().toString();
+        private final TypeExport type;
+        private final Long employeId;
+        private final LocalDateTime dateCreation = LocalDateTime.now();
+        private volatile StatutTravail statut = StatutTravail.EN_ATTENTE;
+        private volatile int progression;
+        private volatile String message;
+        private volatile Path fichier;
+        private volatile String nomFichier;
+        private volatile boolean depuisCache;
+        private volatile LocalDateTime dateFin;
+
+        private Travail(TypeExport type, Long employeId) {
+            this.type = type;
+            this.employeId = employeId;
+        }
+
+        private String cleActive() {
+            return type + ":" + employeId;
+        }
+
+        private boolean estTermine() {
+            return statut == StatutTravail.TERMINE || statut == StatutTravail.ECHEC;
+        }
+    }
+
+    // Données lues en base, figées pour le rendu et le calcul de l'empreinte
+    private record Donnees(Employe employe, List<Enfant> enfants, List<HistoriquePoste> historique) {
+    }
+
+    /**
+     * Crée (ou rejoint, si le même export est déjà en cours) un travail d'export
+     */
+    public Map<String, Object> soumettre(TypeExport type, Long employeId) {
+        if (!employeRepository.existsById(employeId)) {
+            throw new NoSuchElementException("Employé non trouvé avec l'ID : " + employeId);
+        }
+        Travail nouveau = new Travail(type, employeId);
+        Travail travail = travauxActifs.putIfAbsent(nouveau.cleActive(), nouveau);
+        if (travail != null) {
+            return resume(travail);
+        }
+        travaux.put(nouveau.id, nouveau);
+        try {
+            executeur.execute(() -> executer(nouveau));
+        } catch (RejectedExecutionException e) {
+            travaux.remove(nouveau.id);
+            travauxActifs.remove(nouveau.cleActive(), nouveau);
+            throw new RejectedExecutionException("Trop d'exports en attente, veuillez réessayer plus tard");
+        }
+        return resume(nouveau);
+    }
+
+    public Optional<Map<String, Object>> getStatut(String travailId) {
+        return Optional.ofNullable(travaux.get(travailId)).map(this::resume);
+    }
+
+    /**
+     * Fichier d'un travail terminé : [chemin, nom de téléchargement] ; vide si le travail n'existe pas
+     * ou n'est pas terminé
+     */
+    public Optional<Map.Entry<Path, String>> getFichier(String travailId) {
+        Travail travail = travaux.get(travailId);
+        if (travail == null || travail.statut != StatutTravail.TERMINE || !Files.exists(travail.fichier)) {
+            return Optional.empty();
+        }
+        return Optional.of(Map.entry(travail.fichier, travail.nomFichier));
+    }
+
+    private void executer(Travail travail) {
+        travail.statut = StatutTravail.EN_COURS;
+        travail.progression = 10;
+        long debut = System.currentTimeMillis();
+        try {
+            Donnees donnees = transactionTemplate.execute(status -> charger(travail));
+            travail.nomFichier = (travail.type == TypeExport.ETAT_SERVICE ? "etat-service-" : "fiche-employe-")
+                    + donnees.employe().getMatricule() + ".pdf";
+            Path fichier = repertoireCache.resolve(empreinte(travail.type, donnees) + ".pdf");
+            travail.progression = 40;
+
+            if (Files.exists(fichier)) {
+                // Dossier inchangé : le PDF déjà généré est servi tel quel
+                Files.setLastModifiedTime(fichier, FileTime.from(Instant.now()));
+                travail.depuisCache = true;
+            } else {
+                generer(travail.type, donnees, fichier);
+            }
+            travail.fichier = fichier;
+            travail.progression = 100;
+            travail.statut = StatutTravail.TERMINE;
+            log.debug("Export {} de l'employé {} terminé en {} ms (cache : {})", travail.type, travail.employeId,
+                    System.currentTimeMillis() - debut, travail.depuisCache);
+        } catch (Exception e) {
+            log.error("Échec de l'export {} de l'employé {}", travail.type, travail.employeId, e);
+            travail.message = e.getMessage();
+            travail.statut = StatutTravail.ECHEC;
+        } finally {
+            travail.dateFin = LocalDateTime.now();
+            travauxActifs.remove(travail.cleActive(), travail);
+        }
+    }
+
+    private Donnees charger(Travail travail) {
+        Employe employe = employeRepository.findById(travail.employeId)
+                .orElseThrow(() -> new RuntimeException("Employé non trouvé avec l'ID : " + travail.employeId));
+        if (travail.type == TypeExport.ETAT_SERVICE) {
+            return new Donnees(employe, List.of(),
+                    historiquePosteRepository.findByEmployeIdOrderByDateDebutDesc(travail.employeId));
+        }
+        // Collection LAZY copiée tant que la session est ouverte
+        return new Donnees(employe, new ArrayList<>(employe.getEnfants()), List.of());
+    }
+
+    /**
+     * SHA-256 des données rendues dans le PDF : type, employé, enfants, historique et photo (taille, date)
+     */
+    private String empreinte(TypeExport type, Donnees donnees) throws Exception {
+        MessageDigest sha = MessageDigest.getInstance("SHA-256");
+        sha.update((VERSION_FORMAT + "|" + type + "|").getBytes(StandardCharsets.UTF_8));
+        sha.update(objectMapper.writeValueAsBytes(donnees.employe()));
+        sha.update(objectMapper.writeValueAsBytes(donnees.enfants()));
+        for (HistoriquePoste poste : donnees.historique()) {
+            sha.update(String.join("|", String.valueOf(poste.getId()), poste.getPoste(), poste.getOrganisation(),
+                    String.valueOf(poste.getDateDebut()), String.valueOf(poste.getDateFin()),
+                    String.valueOf(poste.getSalairePleinTemps()), String.valueOf(poste.getPourcentageSalaire()),
+                    String.valueOf(poste.getSalaireBase100())).getBytes(StandardCharsets.UTF_8));
+        }
+        String photo = donnees.employe().getPhotoProfil();
+        if (photo != null && !photo.isEmpty()) {
+            Path chemin = repertoirePhotos.resolve(photo);
+            if (Files.exists(chemin)) {
+                sha.update((Files.size(chemin) + "|" + Files.getLastModifiedTime(chemin).toMillis())
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    /**
+     * Écrit le PDF dans un fichier temporaire puis le renomme : un fichier du cache est toujours complet
+     */
+    private void generer(TypeExport type, Donnees donnees, Path fichier) throws IOException {
+        Files.createDirectories(repertoireCache);
+        Path temporaire = Files.createTempFile(repertoireCache, "export-", ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporaire))) {
+                if (type == TypeExport.ETAT_SERVICE) {
+                    pdfExportService.ecrireEtatServicePdf(donnees.employe(), donnees.historique(), out);
+                } else {
+                    pdfExportService.ecrireFicheEmployePdf(donnees.employe(), donnees.enfants(), out);
+                }
+            }
+            Files.move(temporaire, fichier, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaire);
+        }
+    }
+
+    private Map<String, Object> resume(Travail travail) {
+        Map<String, Object> resume = new LinkedHashMap<>();
+        resume.put("id", travail.id);
+        resume.put("type", travail.type);
+        resume.put("employeId", travail.employeId);
+        resume.put("statut", travail.statut);
+        resume.put("progression", travail.progression);
+        resume.put("depuisCache", travail.depuisCache);
+        resume.put("dateCreation", travail.dateCreation);
+        resume.put("dateFin", travail.dateFin);
+        if (travail.message != null) {
+            resume.put("message", travail.message);
+        }
+        return resume;
+    }
+
+    @Scheduled(fixedDelay = 10 * 60 * 1000)
+    public void purgerTravaux() {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(CONSERVATION_TRAVAUX_MINUTES);
+        travaux.values().removeIf(t -> t.estTermine() && t.dateFin != null && t.dateFin.isBefore(limite));
+    }
+
+    /**
+     * Supprime chaque nuit les PDF du cache non servis depuis `app.export.cache-jours` jours
+     */
+    @Scheduled(cron = "0 15 1 * * ?")
+    public void purgerCache() {
+        if (!Files.isDirectory(repertoireCache)) {
+            return;
+        }
+        Instant limite = Instant.now().minus(joursCache, ChronoUnit.DAYS);
+        int supprimes = 0;
+        try (Stream<Path> fichiers = Files.list(repertoireCache)) {
+            for (Path fichier : (Iterable<Path>) fichiers::iterator) {
+                if (Files.getLastModifiedTime(fichier).toInstant().isBefore(limite) && Files.deleteIfExists(fichier)) {
+                    supprimes++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Purge du cache des exports PDF interrompue", e);
+        }
+        log.info("Cache des exports PDF : {} fichiers supprimés", supprimes);
+    }
+
+    @PreDestroy
+    public void arreter() {
+        executeur.shutdownNow();
+    }
+}
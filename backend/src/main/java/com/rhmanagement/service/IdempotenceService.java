@@ -0,0 +1,166 @@
+package com.rhmanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rhmanagement.entity.CleIdempotence;
+import com.rhmanagement.repository.CleIdempotenceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Exécution idempotente des requêtes de décision (en-tête Idempotency-Key).
+ *
+ * La clé est réservée avant le traitement : un second envoi concurrent de la même requête reçoit 409
+ * au lieu d'appliquer la décision une deuxième fois, et un renvoi après coup reçoit la réponse enregistrée.
+ * Une erreur serveur libère la clé pour permettre une nouvelle tentative. Les clés sont gardées 24 heures.
+ * Pour les requêtes avec un corps, l'opération inclut l'empreinte du corps : une clé réutilisée avec
+ * un autre contenu reçoit 422 au lieu de la réponse d'une autre requête.
+ */
+@Service
+public class IdempotenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenceService.class);
+
+    public static final String EN_TETE = "Idempotency-Key";
+
+    private static final int LONGUEUR_CLE_MAX = 100;
+    private static final int DUREE_CONSERVATION_HEURES = 24;
+
+    private final CleIdempotenceRepository cleIdempotenceRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public IdempotenceService(CleIdempotenceRepository cleIdempotenceRepository,
+                              ObjectMapper objectMapper,
+                              TransactionTemplate transactionTemplate) {
+        this.cleIdempotenceRepository = cleIdempotenceRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * @param cle       valeur de l'en-tête Idempotency-Key (null : traitement normal, sans protection)
+     * @param operation identifie l'action et sa cible (une clé ne peut servir qu'à une seule opération)
+     */
+    public ResponseEntity<Map<String, Object>> executer(String cle, String operation,
+                                                        Supplier<ResponseEntity<Map<String, Object>>> traitement) {
+        if (cle == null || cle.isBlank()) {
+            return traitement.get();
+        }
+        if (cle.length() > LONGUEUR_CLE_MAX) {
+            return erreur(HttpStatus.BAD_REQUEST, "La clé d'idempotence ne doit pas dépasser "
+                    + LONGUEUR_CLE_MAX + " caractères");
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(statut ->
+                    cleIdempotenceRepository.reserver(cle, operation, LocalDateTime.now()));
+        } catch (DataIntegrityViolationException e) {
+            return rejouer(cle, operation);
+        }
+
+        ResponseEntity<Map<String, Object>> reponse;
+        try {
+            reponse = traitement.get();
+        } catch (RuntimeException e) {
+            cleIdempotenceRepository.deleteById(cle);
+            throw e;
+        }
+
+        if (reponse.getStatusCode().is5xxServerError()) {
+            cleIdempotenceRepository.deleteById(cle);
+            return reponse;
+        }
+        try {
+            CleIdempotence enregistree = cleIdempotenceRepository.findById(cle)
+                    .orElseThrow(() -> new RuntimeException("Clé d'idempotence non trouvée"));
+            enregistree.setStatutHttp(reponse.getStatusCode().value());
+            enregistree.setReponse(objectMapper.writeValueAsString(reponse.getBody()));
+            cleIdempotenceRepository.save(enregistree);
+        } catch (JsonProcessingException e) {
+            log.error("Réponse non enregistrée pour la clé d'idempotence {} : {}", cle, e.getMessage());
+        }
+        return reponse;
+    }
+
+    /**
+     * Empreinte SHA-256 du corps d'une requête, à inclure dans l'opération
+     */
+    public String empreinte(Object corps) {
+        try {
+            byte[] json = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsBytes(corps);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Empreinte de la requête impossible", e);
+        }
+    }
+
+    /**
+     * Réponse d'erreur d'un traitement protégé : 400 pour un refus métier (RuntimeException de l'application),
+     * 500 pour toute erreur technique (base de données, verrou, transaction...), ce qui libère la clé
+     * pour une nouvelle tentative au lieu d'enregistrer l'échec pendant 24 heures.
+     */
+    public static ResponseEntity<Map<String, Object>> reponseErreur(Exception e) {
+        if (e.getClass() == RuntimeException.class || e instanceof IllegalArgumentException) {
+            return erreur(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        log.error("Erreur technique pendant une requête idempotente", e);
+        return erreur(HttpStatus.INTERNAL_SERVER_ERROR, "Erreur technique, veuillez réessayer");
+    }
+
+    @Scheduled(cron = "0 45 0 * * ?")
+    public void purger() {
+        int supprimees = transactionTemplate.execute(statut ->
+                cleIdempotenceRepository.supprimerAvant(LocalDateTime.now().minusHours(DUREE_CONSERVATION_HEURES)));
+        log.info("Clés d'idempotence expirées supprimées : {}", supprimees);
+    }
+
+    private ResponseEntity<Map<String, Object>> rejouer(String cle, String operation) {
+        CleIdempotence existante = cleIdempotenceRepository.findById(cle).orElse(null);
+        if (existante == null) {
+            // Libérée entre-temps par une tentative en erreur
+            return erreur(HttpStatus.CONFLICT, "Requête en cours de traitement, veuillez réessayer");
+        }
+        if (!existante.getOperation().equals(operation)) {
+            return erreur(HttpStatus.UNPROCESSABLE_ENTITY, "Cette clé d'idempotence a déjà été utilisée pour une autre requête");
+        }
+        if (!existante.isTermine()) {
+            return erreur(HttpStatus.CONFLICT, "Requête en cours de traitement, veuillez réessayer");
+        }
+        try {
+            Map<String, Object> corps = existante.getReponse() != null
+                    ? objectMapper.readValue(existante.getReponse(), new TypeReference<Map<String, Object>>() {})
+                    : null;
+            return ResponseEntity.status(existante.getStatutHttp())
+                    .header("Idempotent-Replayed", "true")
+                    .body(corps);
+        } catch (JsonProcessingException e) {
+            return erreur(HttpStatus.INTERNAL_SERVER_ERROR, "Réponse enregistrée illisible");
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> erreur(HttpStatus statut, String message) {
+        Map<String, Object> corps = new HashMap<>();
+        corps.put("success", false);
+        corps.put("message", message);
+        return ResponseEntity.status(statut).body(corps);
+    }
+}
@@ -0,0 +1,98 @@
+package com.rhmanagement.service;
+
+import com.rhmanagement.dto.EmployeDTO;
+import com.rhmanagement.dto.PageDTO;
+import com.rhmanagement.event.EmployeModifieEvent;
+import com.rhmanagement.repository.EmployeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Détection et correction des employés dont le statut ne correspond pas à leurs congés approuvés :
+ * EN_CONGE sans congé en cours, ou ACTIF alors qu'un congé est en cours.
+ * Chaque type d'incohérence est obtenu par une seule requête (anti-jointure ou semi-jointure).
+ */
+@Service
+public class IncoherenceStatutService {
+
+    private static final Logger log = LoggerFactory.getLogger(IncoherenceStatutService.class);
+
+    private static final int TAILLE_PAGE_DEFAUT = 50;
+    private static final int TAILLE_PAGE_MAX = 200;
+
+    public enum TypeIncoherence {
+        EN_CONGE_SANS_CONGE,
+        ACTIF_AVEC_CONGE
+    }
+
+    private final EmployeRepository employeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public IncoherenceStatutService(EmployeRepository employeRepository,
+                                    ApplicationEventPublisher eventPublisher) {
+        this.employeRepository = employeRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional(readOnly = true)
+    public PageDTO<EmployeDTO> getIncoherences(TypeIncoherence type, Integer page, Integer size) {
+        int numeroPage = page != null && page >= 0 ? page : 0;
+        int taille = size != null && size > 0 ? Math.min(size, TAILLE_PAGE_MAX) : TAILLE_PAGE_DEFAUT;
+        Pageable pageable = PageRequest.of(numeroPage, taille);
+        LocalDate aujourdhui = LocalDate.now();
+
+        return PageDTO.fromPage(type == TypeIncoherence.ACTIF_AVEC_CONGE
+                ? employeRepository.findActifsAvecCongeEnCours(aujourdhui, pageable)
+                : employeRepository.findEnCongeSansCongeEnCours(aujourdhui, pageable));
+    }
+
+    /**
+     * Nombre d'incohérences par type et au total
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> compterIncoherences() {
+        LocalDate aujourdhui = LocalDate.now();
+        long enCongeSansConge = employeRepository.countEnCongeSansCongeEnCours(aujourdhui);
+        long actifAvecConge = employeRepository.countActifsAvecCongeEnCours(aujourdhui);
+
+        Map<String, Long> compteurs = new HashMap<>();
+        compteurs.put(TypeIncoherence.EN_CONGE_SANS_CONGE.name(), enCongeSansConge);
+        compteurs.put(TypeIncoherence.ACTIF_AVEC_CONGE.name(), actifAvecConge);
+        compteurs.put("total", enCongeSansConge + actifAvecConge);
+        return compteurs;
+    }
+
+    /**
+     * Corrige toutes les incohérences en un seul UPDATE
+     *
+     * @return le nombre d'employés corrigés
+     */
+    @Transactional
+    public int corrigerIncoherences() {
+        LocalDate aujourdhui = LocalDate.now();
+        List<Long> ids = employeRepository.findIdsIncoherents(aujourdhui);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        int corriges = employeRepository.corrigerIncoherences(ids, aujourdhui);
+
+        // L'UPDATE ne passe pas par EmployeService : prévenir les index en mémoire
+        for (EmployeDTO resume : employeRepository.findResumesByIdIn(ids)) {
+            eventPublisher.publishEvent(new EmployeModifieEvent(resume.getId(), resume));
+        }
+
+        log.info("Correction des statuts incohérents : {} employé(s) corrigé(s)", corriges);
+        return corriges;
+    }
+}
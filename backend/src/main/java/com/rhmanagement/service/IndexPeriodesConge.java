@@ -0,0 +1,302 @@
+package com.rhmanagement.service;
+
+import com.rhmanagement.entity.DemandeConge;
+import com.rhmanagement.event.DemandeCongeModifieeEvent;
+import com.rhmanagement.event.DemandesCongeDecideesEvent;
+import com.rhmanagement.repository.DemandeCongeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Index en mémoire des périodes de congé approuvées ou en attente.
+ *
+ * Les périodes sont triées par date de début, globalement et par employé. Une période qui chevauche
+ * [debut, fin] commence au plus tard à `fin` et au plus tôt à `debut - dureeMax` (la plus longue période
+ * actuellement indexée) : chaque requête se limite donc à cette fenêtre du TreeSet, en O(log n + fenêtre).
+ * Les durées sont comptées par valeur, si bien que la fenêtre se resserre quand une longue période est retirée.
+ *
+ * L'index est chargé au démarrage (ou à la première requête) puis mis à jour à chaque DemandeCongeModifieeEvent.
+ */
+@Component
+public class IndexPeriodesConge {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexPeriodesConge.class);
+
+    private static final Set<DemandeConge.StatutDemande> STATUTS_INDEXES =
+            EnumSet.of(DemandeConge.StatutDemande.APPROUVE, DemandeConge.StatutDemande.EN_ATTENTE);
+
+    private static final Comparator<Periode> ORDRE_DEBUT =
+            Comparator.comparing((Periode p) -> p.debut).thenComparingLong(p -> p.demandeId);
+
+    private final DemandeCongeRepository demandeCongeRepository;
+
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+    private final Map<Long, Periode> periodes = new HashMap<>();
+    private final TreeSet<Periode> parDebut = new TreeSet<>(ORDRE_DEBUT);
+    private final Map<Long, TreeSet<Periode>> parEmploye = new HashMap<>();
+    // Nombre de périodes indexées par durée (fin - début, en jours) ; la plus grande clé donne dureeMax
+    private final TreeMap<Long, Integer> durees = new TreeMap<>();
+    private volatile boolean pret = false;
+
+    public IndexPeriodesConge(DemandeCongeRepository demandeCongeRepository) {
+        this.demandeCongeRepository = demandeCongeRepository;
+    }
+
+    private static final class Periode {
+        private final long demandeId;
+        private final Long employeId;
+        private final LocalDate debut;
+        private final LocalDate fin;
+        private final DemandeConge.StatutDemande statut;
+
+        private Periode(long demandeId, Long employeId, LocalDate debut, LocalDate fin,
+                        DemandeConge.StatutDemande statut) {
+            this.demandeId = demandeId;
+            this.employeId = employeId;
+            this.debut = debut;
+            this.fin = fin;
+            this.statut = statut;
+        }
+
+        private boolean estApprouvee() {
+            return statut == DemandeConge.StatutDemande.APPROUVE;
+        }
+
+        // Bornes de recherche dans le TreeSet
+        private static Periode borne(LocalDate debut, long demandeId) {
+            return new Periode(demandeId, null, debut, debut, null);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void charger() {
+        long debut = System.currentTimeMillis();
+        verrou.writeLock().lock();
+        try {
+            periodes.clear();
+            parDebut.clear();
+            parEmploye.clear();
+            durees.clear();
+            for (DemandeConge demande : demandeCongeRepository.findByStatutIn(STATUTS_INDEXES)) {
+                indexer(demande.getId(), demande.getEmployeId(), demande.getDateDebut(), demande.getDateFin(),
+                        demande.getStatut());
+            }
+            pret = true;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+        log.info("Index des périodes de congé chargé : {} périodes en {} ms",
+                periodes.size(), System.currentTimeMillis() - debut);
+    }
+
+    // Appliqué avant les autres écouteurs, qui interrogent l'index
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onDemandeCongeModifiee(DemandeCongeModifieeEvent event) {
+        verrou.writeLock().lock();
+        try {
+            if (!pret) {
+                // Le chargement initial lira l'état à jour en base
+                return;
+            }
+            appliquer(event);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onDemandesCongeDecidees(DemandesCongeDecideesEvent event) {
+        verrou.writeLock().lock();
+        try {
+            if (!pret) {
+                return;
+            }
+            event.getModifications().forEach(this::appliquer);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    private void appliquer(DemandeCongeModifieeEvent event) {
+        retirer(event.getDemandeId());
+        if (!event.isSupprimee()) {
+            indexer(event.getDemandeId(), event.getEmployeId(), event.getDateDebut(), event.getDateFin(),
+                    event.getStatut());
+        }
+    }
+
+    /**
+     * Vrai si l'employé a un congé approuvé chevauchant [debut, fin], hors la demande exclue
+     */
+    public boolean aUnChevauchement(Long employeId, LocalDate debut, LocalDate fin, Long exclureDemandeId) {
+        return !rechercher(employeId, debut, fin,
+                p -> p.estApprouvee() && (exclureDemandeId == null || p.demandeId != exclureDemandeId)).isEmpty();
+    }
+
+    /**
+     * Vrai si l'employé est en congé approuvé à la date donnée
+     */
+    public boolean estEnConge(Long employeId, LocalDate date) {
+        return !congesApprouves(employeId, date).isEmpty();
+    }
+
+    /**
+     * Identifiants des congés approuvés de l'employé couvrant la date donnée
+     */
+    public List<Long> congesApprouves(Long employeId, LocalDate date) {
+        return rechercher(employeId, date, date, Periode::estApprouvee);
+    }
+
+    /**
+     * Identifiants des congés approuvés (tous employés) couvrant la date donnée
+     */
+    public List<Long> congesApprouves(LocalDate date) {
+        return rechercher(null, date, date, Periode::estApprouvee);
+    }
+
+    /**
+     * Identifiants des demandes chevauchant [debut, fin], tous employés confondus
+     */
+    public List<Long> demandesSurPeriode(LocalDate debut, LocalDate fin, boolean inclureEnAttente) {
+        return rechercher(null, debut, fin, p -> inclureEnAttente || p.estApprouvee());
+    }
+
+    /**
+     * Employés en congé approuvé à la date donnée
+     */
+    public Set<Long> employesEnConge(LocalDate date) {
+        verifierCharge();
+        verrou.readLock().lock();
+        try {
+            Set<Long> employes = new HashSet<>();
+            parcourir(parDebut, date, date, p -> {
+                if (p.estApprouvee()) {
+                    employes.add(p.employeId);
+                }
+            });
+            return employes;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visiteur des congés approuvés, appelé sous le verrou de lecture de l'index
+     */
+    @FunctionalInterface
+    public interface VisiteurConge {
+        void visiter(long demandeId, Long employeId, LocalDate debut, LocalDate fin);
+    }
+
+    /**
+     * Parcourt, par date de début croissante, les congés approuvés chevauchant [debut, fin]
+     */
+    public void parcourirCongesApprouves(LocalDate debut, LocalDate fin, VisiteurConge visiteur) {
+        verifierCharge();
+        verrou.readLock().lock();
+        try {
+            parcourir(parDebut, debut, fin, p -> {
+                if (p.estApprouvee()) {
+                    visiteur.visiter(p.demandeId, p.employeId, p.debut, p.fin);
+                }
+            });
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    private List<Long> rechercher(Long employeId, LocalDate debut, LocalDate fin, Predicate<Periode> filtre) {
+        verifierCharge();
+        verrou.readLock().lock();
+        try {
+            TreeSet<Periode> ensemble = employeId == null ? parDebut : parEmploye.get(employeId);
+            if (ensemble == null) {
+                return Collections.emptyList();
+            }
+            List<Long> demandeIds = new ArrayList<>();
+            parcourir(ensemble, debut, fin, p -> {
+                if (filtre.test(p)) {
+                    demandeIds.add(p.demandeId);
+                }
+            });
+            return demandeIds;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applique l'action à chaque période de l'ensemble chevauchant [debut, fin]
+     */
+    private void parcourir(TreeSet<Periode> ensemble, LocalDate debut, LocalDate fin,
+                           Consumer<Periode> action) {
+        if (durees.isEmpty()) {
+            return;
+        }
+        Periode depuis = Periode.borne(debut.minusDays(durees.lastKey()), Long.MIN_VALUE);
+        Periode jusqua = Periode.borne(fin, Long.MAX_VALUE);
+        for (Periode periode : ensemble.subSet(depuis, true, jusqua, true)) {
+            if (!periode.fin.isBefore(debut)) {
+                action.accept(periode);
+            }
+        }
+    }
+
+    private void verifierCharge() {
+        if (!pret) {
+            synchronized (this) {
+                if (!pret) {
+                    charger();
+                }
+            }
+        }
+    }
+
+    private void indexer(Long demandeId, Long employeId, LocalDate debut, LocalDate fin,
+                         DemandeConge.StatutDemande statut) {
+        if (demandeId == null || employeId == null || debut == null || fin == null
+                || !STATUTS_INDEXES.contains(statut)) {
+            return;
+        }
+        Periode periode = new Periode(demandeId, employeId, debut, fin, statut);
+        periodes.put(demandeId, periode);
+        parDebut.add(periode);
+        parEmploye.computeIfAbsent(employeId, id -> new TreeSet<>(ORDRE_DEBUT)).add(periode);
+        durees.merge(duree(periode), 1, Integer::sum);
+    }
+
+    private void retirer(Long demandeId) {
+        Periode periode = periodes.remove(demandeId);
+        if (periode == null) {
+            return;
+        }
+        parDebut.remove(periode);
+        durees.computeIfPresent(duree(periode), (duree, nombre) -> nombre > 1 ? nombre - 1 : null);
+        TreeSet<Periode> periodesEmploye = parEmploye.get(periode.employeId);
+        if (periodesEmploye != null) {
+            periodesEmploye.remove(periode);
+            if (periodesEmploye.isEmpty()) {
+                parEmploye.remove(periode.employeId);
+            }
+        }
+    }
+
+    private static long duree(Periode periode) {
+        return ChronoUnit.DAYS.between(periode.debut, periode.fin);
+    }
+}
@@ -0,0 +1,415 @@
+package com.rhmanagement.service;
+
+import com.rhmanagement.dto.EmployeDTO;
+import com.rhmanagement.event.EmployeModifieEvent;
+import com.rhmanagement.repository.EmployeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index de recherche en mémoire sur les employés (nom, prénom, matricule, CIN, email).
+ *
+ * Chaque champ normalisé (minuscules, sans accents) est découpé en trigrammes ; une requête
+ * intersecte les listes de trigrammes puis vérifie la sous-chaîne sur les seuls candidats.
+ * Les requêtes de moins de 3 caractères passent par un index de préfixes sur les mots.
+ *
+ * Le mode approximatif travaille sur les mots du nom et du prénom : chaque mot a une clé phonétique
+ * précalculée, elle-même indexée par ses variantes privées d'au plus deux lettres. Une requête ne calcule
+ * donc la distance d'édition que sur les quelques mots partageant une variante avec elle.
+ *
+ * L'index est chargé au démarrage puis mis à jour à chaque EmployeModifieEvent.
+ */
+@Component
+public class IndexRechercheEmploye {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexRechercheEmploye.class);
+
+    private static final Pattern DIACRITIQUES = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATEURS = Pattern.compile("[^a-z0-9]+");
+
+    // Poids des différents types de correspondance pour le classement
+    private static final int SCORE_CHAMP_EXACT = 100;
+    private static final int SCORE_MOT_EXACT = 50;
+    private static final int SCORE_PREFIXE_MOT = 30;
+    private static final int SCORE_SOUS_CHAINE = 10;
+    private static final int SCORE_PHONETIQUE = 40;
+    private static final int PENALITE_PAR_ERREUR = 10;
+
+    private final EmployeRepository employeRepository;
+
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+    private final Map<Long, DocumentIndexe> documents = new HashMap<>();
+    private final Map<String, Set<Long>> trigrammes = new HashMap<>();
+    private final TreeMap<String, Set<Long>> mots = new TreeMap<>();
+    private final Map<String, Set<Long>> motsNoms = new HashMap<>();
+    private final Map<String, Set<String>> motsParCle = new HashMap<>();
+    private final Map<String, Set<String>> clesParVariante = new HashMap<>();
+    private volatile boolean pret = false;
+
+    public IndexRechercheEmploye(EmployeRepository employeRepository) {
+        this.employeRepository = employeRepository;
+    }
+
+    /**
+     * Document indexé : le résumé de l'employé et ses champs normalisés
+     */
+    private static final class DocumentIndexe {
+        private final EmployeDTO resume;
+        private final String[] champs;
+        private final Set<String> trigrammes = new HashSet<>();
+        private final Set<String> mots = new HashSet<>();
+        private final Set<String> motsNoms = new HashSet<>();
+
+        private DocumentIndexe(EmployeDTO resume) {
+            this.resume = resume;
+            this.champs = new String[]{
+                    normaliser(resume.getNom()),
+                    normaliser(resume.getPrenom()),
+                    normaliser(resume.getMatricule()),
+                    normaliser(resume.getCin()),
+                    normaliser(resume.getEmail())
+            };
+            for (int i = 0; i < champs.length; i++) {
+                trigrammes.addAll(decouperTrigrammes(champs[i]));
+                for (String mot : SEPARATEURS.split(champs[i])) {
+                    if (!mot.isEmpty()) {
+                        mots.add(mot);
+                        // Seuls le nom (0) et le prénom (1) participent au mode approximatif
+                        if (i <= 1) {
+                            motsNoms.add(mot);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void charger() {
+        long debut = System.currentTimeMillis();
+        verrou.writeLock().lock();
+        try {
+            documents.clear();
+            trigrammes.clear();
+            mots.clear();
+            motsNoms.clear();
+            motsParCle.clear();
+            clesParVariante.clear();
+            for (EmployeDTO resume : employeRepository.findAllResumes()) {
+                indexer(resume);
+            }
+            pret = true;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+        log.info("Index de recherche employés chargé : {} employés en {} ms",
+                documents.size(), System.currentTimeMillis() - debut);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeModifie(EmployeModifieEvent event) {
+        verrou.writeLock().lock();
+        try {
+            retirer(event.getEmployeId());
+            if (!event.isSupprime()) {
+                indexer(event.getResume());
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public boolean isPret() {
+        return pret;
+    }
+
+    /**
+     * Recherche les employés correspondant à tous les mots de la requête, triés par pertinence.
+     * @return les identifiants des employés, du plus pertinent au moins pertinent (au plus `limite`)
+     */
+    public List<Long> rechercher(String requete, int limite) {
+        List<String> termes = decouperTermes(requete);
+        if (termes.isEmpty() || limite <= 0) {
+            return Collections.emptyList();
+        }
+
+        verrou.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String terme : termes) {
+                Map<Long, Integer> scoresTerme = scorerTerme(terme, scores == null ? null : scores.keySet());
+                if (scores == null) {
+                    scores = scoresTerme;
+                } else {
+                    scores.keySet().retainAll(scoresTerme.keySet());
+                    scores.replaceAll((id, score) -> score + scoresTerme.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            return meilleurs(scores, limite);
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recherche tolérante aux accents, aux fautes de frappe et aux variantes de graphie.
+     * Les correspondances exactes restent prioritaires ; chaque mot de la requête doit correspondre
+     * (exactement ou approximativement) à un mot du nom ou du prénom.
+     */
+    public List<Long> rechercherApproximatif(String requete, int limite) {
+        List<String> termes = decouperTermes(requete);
+        if (termes.isEmpty() || limite <= 0) {
+            return Collections.emptyList();
+        }
+
+        verrou.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String terme : termes) {
+                Map<Long, Integer> scoresTerme = scorerTerme(terme, null);
+                for (Map.Entry<Long, Integer> approche : scorerTermeApproximatif(terme).entrySet()) {
+                    scoresTerme.merge(approche.getKey(), approche.getValue(), Math::max);
+                }
+                if (scores == null) {
+                    scores = scoresTerme;
+                } else {
+                    scores.keySet().retainAll(scoresTerme.keySet());
+                    scores.replaceAll((id, score) -> score + scoresTerme.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            return meilleurs(scores, limite);
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Integer> scorerTermeApproximatif(String terme) {
+        String cle = CorrespondanceApprochee.clePhonetique(terme);
+        int tolere = CorrespondanceApprochee.distanceTolere(cle);
+
+        // Candidats : les clés partageant une variante (au plus `tolere` suppressions) avec la clé recherchée
+        Set<String> clesCandidates = new HashSet<>();
+        for (String variante : CorrespondanceApprochee.suppressions(cle, tolere)) {
+            Set<String> cles = clesParVariante.get(variante);
+            if (cles != null) {
+                clesCandidates.addAll(cles);
+            }
+        }
+
+        Map<Long, Integer> scores = new HashMap<>();
+        for (String cleCandidate : clesCandidates) {
+            int distance = CorrespondanceApprochee.distance(cle, cleCandidate, tolere);
+            if (distance > tolere) {
+                continue;
+            }
+            int score = SCORE_PHONETIQUE - distance * PENALITE_PAR_ERREUR;
+            for (String mot : motsParCle.get(cleCandidate)) {
+                for (Long id : motsNoms.get(mot)) {
+                    scores.merge(id, score, Math::max);
+                }
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Score chaque employé contenant le terme ; si `restreindreA` est fourni, seuls ces employés sont examinés
+     */
+    private Map<Long, Integer> scorerTerme(String terme, Set<Long> restreindreA) {
+        Collection<Long> candidats = terme.length() >= 3
+                ? candidatsParTrigrammes(terme)
+                : candidatsParPrefixe(terme);
+
+        Map<Long, Integer> scores = new HashMap<>();
+        for (Long id : candidats) {
+            if (restreindreA != null && !restreindreA.contains(id)) {
+                continue;
+            }
+            int score = scorer(documents.get(id), terme);
+            if (score > 0) {
+                scores.put(id, score);
+            }
+        }
+        return scores;
+    }
+
+    private Collection<Long> candidatsParTrigrammes(String terme) {
+        List<Set<Long>> listes = new ArrayList<>();
+        for (String trigramme : decouperTrigrammes(terme)) {
+            Set<Long> ids = trigrammes.get(trigramme);
+            if (ids == null) {
+                return Collections.emptyList();
+            }
+            listes.add(ids);
+        }
+        // On part de la liste la plus courte pour limiter les intersections
+        listes.sort(Comparator.comparingInt(Set::size));
+        Set<Long> resultat = new HashSet<>(listes.get(0));
+        for (int i = 1; i < listes.size() && !resultat.isEmpty(); i++) {
+            resultat.retainAll(listes.get(i));
+        }
+        return resultat;
+    }
+
+    private Collection<Long> candidatsParPrefixe(String terme) {
+        Set<Long> resultat = new HashSet<>();
+        for (Set<Long> ids : mots.subMap(terme, true, terme + Character.MAX_VALUE, false).values()) {
+            resultat.addAll(ids);
+        }
+        return resultat;
+    }
+
+    private int scorer(DocumentIndexe document, String terme) {
+        int meilleur = 0;
+        for (String champ : document.champs) {
+            if (champ.isEmpty() || !champ.contains(terme)) {
+                continue;
+            }
+            if (champ.equals(terme)) {
+                return SCORE_CHAMP_EXACT;
+            }
+            meilleur = Math.max(meilleur, SCORE_SOUS_CHAINE);
+        }
+        if (meilleur > 0 || terme.length() < 3) {
+            for (String mot : document.mots) {
+                if (mot.equals(terme)) {
+                    meilleur = Math.max(meilleur, SCORE_MOT_EXACT);
+                } else if (mot.startsWith(terme)) {
+                    meilleur = Math.max(meilleur, SCORE_PREFIXE_MOT);
+                }
+            }
+        }
+        return meilleur;
+    }
+
+    private List<Long> meilleurs(Map<Long, Integer> scores, int limite) {
+        Comparator<Map.Entry<Long, Integer>> ordre = Map.Entry.<Long, Integer>comparingByValue()
+                .thenComparing(entree -> cleTri(entree.getKey()), Comparator.reverseOrder());
+
+        // Tas borné : on ne garde que les `limite` meilleurs résultats
+        PriorityQueue<Map.Entry<Long, Integer>> tas = new PriorityQueue<>(ordre);
+        for (Map.Entry<Long, Integer> entree : scores.entrySet()) {
+            tas.offer(entree);
+            if (tas.size() > limite) {
+                tas.poll();
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(tas.size());
+        while (!tas.isEmpty()) {
+            ids.add(tas.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    private String cleTri(Long id) {
+        DocumentIndexe document = documents.get(id);
+        return document.champs[0] + " " + document.champs[1];
+    }
+
+    private void indexer(EmployeDTO resume) {
+        DocumentIndexe document = new DocumentIndexe(resume);
+        documents.put(resume.getId(), document);
+        for (String trigramme : document.trigrammes) {
+            trigrammes.computeIfAbsent(trigramme, t -> new HashSet<>()).add(resume.getId());
+        }
+        for (String mot : document.mots) {
+            mots.computeIfAbsent(mot, m -> new HashSet<>()).add(resume.getId());
+        }
+        for (String mot : document.motsNoms) {
+            boolean nouveauMot = !motsNoms.containsKey(mot);
+            motsNoms.computeIfAbsent(mot, m -> new HashSet<>()).add(resume.getId());
+            if (nouveauMot) {
+                String cle = CorrespondanceApprochee.clePhonetique(mot);
+                if (!motsParCle.containsKey(cle)) {
+                    for (String variante : CorrespondanceApprochee.suppressions(cle, CorrespondanceApprochee.DISTANCE_MAX)) {
+                        clesParVariante.computeIfAbsent(variante, v -> new HashSet<>()).add(cle);
+                    }
+                }
+                motsParCle.computeIfAbsent(cle, c -> new HashSet<>()).add(mot);
+            }
+        }
+    }
+
+    private void retirer(Long id) {
+        DocumentIndexe document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String trigramme : document.trigrammes) {
+            retirerDe(trigrammes, trigramme, id);
+        }
+        for (String mot : document.mots) {
+            retirerDe(mots, mot, id);
+        }
+        for (String mot : document.motsNoms) {
+            retirerDe(motsNoms, mot, id);
+            if (motsNoms.containsKey(mot)) {
+                continue;
+            }
+            // Plus aucun employé ne porte ce mot : on le retire des structures phonétiques
+            String cle = CorrespondanceApprochee.clePhonetique(mot);
+            retirerDe(motsParCle, cle, mot);
+            if (!motsParCle.containsKey(cle)) {
+                for (String variante : CorrespondanceApprochee.suppressions(cle, CorrespondanceApprochee.DISTANCE_MAX)) {
+                    retirerDe(clesParVariante, variante, cle);
+                }
+            }
+        }
+    }
+
+    private static <T> void retirerDe(Map<String, Set<T>> postings, String cle, T valeur) {
+        Set<T> valeurs = postings.get(cle);
+        if (valeurs != null) {
+            valeurs.remove(valeur);
+            if (valeurs.isEmpty()) {
+                postings.remove(cle);
+            }
+        }
+    }
+
+    private static List<String> decouperTermes(String requete) {
+        List<String> termes = new ArrayList<>();
+        for (String terme : normaliser(requete).split("\\s+")) {
+            if (!terme.isEmpty()) {
+                termes.add(terme);
+            }
+        }
+        return termes;
+    }
+
+    private static Set<String> decouperTrigrammes(String valeur) {
+        Set<String> resultat = new HashSet<>();
+        for (int i = 0; i + 3 <= valeur.length(); i++) {
+            resultat.add(valeur.substring(i, i + 3));
+        }
+        return resultat;
+    }
+
+    /**
+     * Minuscules et suppression des accents ("Hérivelo" devient "herivelo")
+     */
+    static String normaliser(String valeur) {
+        if (valeur == null) {
+            return "";
+        }
+        String decompose = Normalizer.normalize(valeur.trim(), Normalizer.Form.NFD);
+        return DIACRITIQUES.matcher(decompose).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,317 @@
+package com.rhmanagement.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Miniatures des photos de profil, rangées à côté de l'original ("abc.png" -> "abc_avatar.jpg", "abc_pdf.jpg").
+ *
+ * Elles sont produites en tâche de fond après chaque upload, puis servies aux listes et intégrées aux PDF
+ * à la place de l'original : quelques kilo-octets de JPEG au lieu de la photo pleine résolution à décoder.
+ * Tant qu'une miniature n'existe pas, l'original est utilisé et la génération est relancée.
+ *
+ * La suppression retire de la file les générations encore en attente, et une génération déjà lancée
+ * ne publie une miniature que si l'original existe toujours, sous le même verrou que la suppression :
+ * une photo supprimée ne voit jamais ses miniatures réapparaître.
+ */
+@Service
+public class MiniaturePhotoService {
+
+    private static final Logger log = LoggerFactory.getLogger(MiniaturePhotoService.class);
+
+    private static final Pattern EXTENSIONS_IMAGE = Pattern.compile("(?i).+\\.(jpe?g|png|gif|bmp)$");
+    private static final Pattern NOM_MINIATURE = Pattern.compile(".+_(avatar|pdf)\\.jpg$");
+
+    /**
+     * Formats produits ; dimensions en pixels, doublées par rapport à l'affichage pour les écrans haute densité
+     */
+    public enum Format {
+        // Listes et cartes (jusqu'à 80 px de côté), recadrée au carré comme l'affichage (object-cover)
+        AVATAR(160, 160, true),
+        // Fiche employé PDF (80 x 100 pt), photo entière
+        PDF(160, 200, false);
+
+        private final int largeur;
+        private final int hauteur;
+        private final boolean recadrer;
+
+        Format(int largeur, int hauteur, boolean recadrer) {
+            this.largeur = largeur;
+            this.hauteur = hauteur;
+            this.recadrer = recadrer;
+        }
+
+        private String suffixe() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Path repertoire;
+    private final ThreadPoolExecutor executeur;
+    // Originaux en file ou en cours de traitement, pour ne pas les traiter deux fois
+    private final Set<String> enCours = ConcurrentHashMap.newKeySet();
+    // Sérialise la publication d'une miniature et la suppression des miniatures d'une photo
+    private final Object verrouPublication = new Object();
+
+    public MiniaturePhotoService(@Value("${upload.directory:./uploads}") String repertoire,
+                                 @Value("${app.miniatures.file-max:500}") int fileMax) {
+        this.repertoire = Paths.get(repertoire);
+        this.executeur = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(fileMax), tache -> {
+                    Thread thread = new Thread(tache, "miniatures-photo");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    /**
+     * Complète au démarrage les miniatures manquantes des photos déjà présentes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void completerMiniatures() {
+        if (!Files.isDirectory(repertoire)) {
+            return;
+        }
+        try (Stream<Path> fichiers = Files.list(repertoire)) {
+            long manquantes = fichiers
+                    .map(fichier -> fichier.getFileName().toString())
+                    .filter(MiniaturePhotoService::estOriginal)
+                    .filter(nom -> !Files.exists(repertoire.resolve(nomMiniature(nom, Format.AVATAR)))
+                            || !Files.exists(repertoire.resolve(nomMiniature(nom, Format.PDF))))
+                    .peek(this::generer)
+                    .count();
+            if (manquantes > 0) {
+                log.info("Miniatures : {} photos à traiter en tâche de fond", manquantes);
+            }
+        } catch (IOException e) {
+            log.warn("Impossible de parcourir le répertoire des photos {}", repertoire, e);
+        }
+    }
+
+    /**
+     * Planifie la génération des miniatures d'une photo qui vient d'être enregistrée
+     */
+    public void generer(String nomFichier) {
+        if (!estOriginal(nomFichier) || !enCours.add(nomFichier)) {
+            return;
+        }
+        try {
+            executeur.execute(new Generation(nomFichier));
+        } catch (RejectedExecutionException e) {
+            // File pleine : la miniature sera redemandée au prochain affichage
+            enCours.remove(nomFichier);
+            log.debug("Miniatures de {} non planifiées : file pleine", nomFichier);
+        }
+    }
+
+    /**
+     * Chemin de la miniature si elle existe, sinon de l'original (et la génération est relancée) ; null sans photo
+     */
+    public Path chemin(String nomFichier, Format format) {
+        if (!estNomValide(nomFichier)) {
+            return null;
+        }
+        Path miniature = repertoire.resolve(nomMiniature(nomFichier, format));
+        if (Files.exists(miniature)) {
+            return miniature;
+        }
+        Path original = repertoire.resolve(nomFichier);
+        if (!Files.exists(original)) {
+            return null;
+        }
+        generer(nomFichier);
+        return original;
+    }
+
+    /**
+     * Supprime les miniatures d'une photo remplacée ou supprimée
+     */
+    public void supprimer(String nomFichier) {
+        if (!estNomValide(nomFichier)) {
+            return;
+        }
+        if (executeur.getQueue().removeIf(tache -> tache instanceof Generation generation
+                && generation.nomFichier.equals(nomFichier))) {
+            enCours.remove(nomFichier);
+        }
+        synchronized (verrouPublication) {
+            for (Format format : Format.values()) {
+                try {
+                    Files.deleteIfExists(repertoire.resolve(nomMiniature(nomFichier, format)));
+                } catch (IOException e) {
+                    log.warn("Miniature {} de {} non supprimée", format, nomFichier, e);
+                }
+            }
+        }
+    }
+
+    public static String nomMiniature(String nomFichier, Format format) {
+        int point = nomFichier.lastIndexOf('.');
+        String base = point > 0 ? nomFichier.substring(0, point) : nomFichier;
+        return base + "_" + format.suffixe() + ".jpg";
+    }
+
+    private final class Generation implements Runnable {
+        private final String nomFichier;
+
+        private Generation(String nomFichier) {
+            this.nomFichier = nomFichier;
+        }
+
+        @Override
+        public void run() {
+            try {
+                genererMaintenant(nomFichier);
+            } finally {
+                enCours.remove(nomFichier);
+            }
+        }
+    }
+
+    private void genererMaintenant(String nomFichier) {
+        Path original = repertoire.resolve(nomFichier);
+        if (!Files.exists(original)) {
+            return;
+        }
+        long debut = System.currentTimeMillis();
+        try {
+            BufferedImage image = lire(original, Format.PDF.largeur, Format.PDF.hauteur);
+            if (image == null) {
+                log.warn("Photo {} illisible : aucune miniature générée", nomFichier);
+                return;
+            }
+            for (Format format : Format.values()) {
+                if (!ecrire(redimensionner(image, format), original, repertoire.resolve(nomMiniature(nomFichier, format)))) {
+                    log.debug("Photo {} supprimée pendant la génération : miniatures abandonnées", nomFichier);
+                    return;
+                }
+            }
+            log.debug("Miniatures de {} générées en {} ms", nomFichier, System.currentTimeMillis() - debut);
+        } catch (Exception e) {
+            log.warn("Échec de la génération des miniatures de {}", nomFichier, e);
+        }
+    }
+
+    /**
+     * Décode l'image en sous-échantillonnant dès la lecture : une photo de 4000 px n'est jamais décodée en entier
+     */
+    private static BufferedImage lire(Path fichier, int largeurMin, int hauteurMin) throws IOException {
+        try (ImageInputStream entree = ImageIO.createImageInputStream(fichier.toFile())) {
+            if (entree == null) {
+                return null;
+            }
+            Iterator<ImageReader> lecteurs = ImageIO.getImageReaders(entree);
+            if (!lecteurs.hasNext()) {
+                return null;
+            }
+            ImageReader lecteur = lecteurs.next();
+            try {
+                lecteur.setInput(entree, true, true);
+                // Garder au moins deux fois la taille cible pour un redimensionnement final de bonne qualité
+                int pas = Math.max(1, Math.min(lecteur.getWidth(0) / (largeurMin * 2), lecteur.getHeight(0) / (hauteurMin * 2)));
+                ImageReadParam parametres = lecteur.getDefaultReadParam();
+                parametres.setSourceSubsampling(pas, pas, 0, 0);
+                return lecteur.read(0, parametres);
+            } finally {
+                lecteur.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage redimensionner(BufferedImage source, Format format) {
+        int largeurSource = source.getWidth();
+        int hauteurSource = source.getHeight();
+        int x = 0;
+        int y = 0;
+        double echelle;
+        if (format.recadrer) {
+            echelle = Math.max((double) format.largeur / largeurSource, (double) format.hauteur / hauteurSource);
+        } else {
+            echelle = Math.min((double) format.largeur / largeurSource, (double) format.hauteur / hauteurSource);
+        }
+        // Jamais d'agrandissement
+        echelle = Math.min(echelle, 1.0);
+        int largeur = Math.max(1, (int) Math.round(largeurSource * echelle));
+        int hauteur = Math.max(1, (int) Math.round(hauteurSource * echelle));
+        int largeurCible = format.recadrer ? Math.min(largeur, format.largeur) : largeur;
+        int hauteurCible = format.recadrer ? Math.min(hauteur, format.hauteur) : hauteur;
+        if (format.recadrer) {
+            x = (largeurCible - largeur) / 2;
+            y = (hauteurCible - hauteur) / 2;
+        }
+
+        // JPEG sans canal alpha : les zones transparentes deviennent blanches
+        BufferedImage cible = new BufferedImage(largeurCible, hauteurCible, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphique = cible.createGraphics();
+        try {
+            graphique.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphique.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphique.setColor(Color.WHITE);
+            graphique.fillRect(0, 0, largeurCible, hauteurCible);
+            graphique.drawImage(source, x, y, largeur, hauteur, null);
+        } finally {
+            graphique.dispose();
+        }
+        return cible;
+    }
+
+    /**
+     * Écrit dans un fichier temporaire puis le renomme : une miniature à moitié écrite n'est jamais servie.
+     *
+     * @return faux si l'original a disparu entre-temps (rien n'est alors publié)
+     */
+    private boolean ecrire(BufferedImage image, Path original, Path destination) throws IOException {
+        Path temporaire = destination.resolveSibling(destination.getFileName() + ".tmp");
+        try {
+            if (!ImageIO.write(image, "jpg", temporaire.toFile())) {
+                throw new IOException("Aucun encodeur JPEG disponible");
+            }
+            synchronized (verrouPublication) {
+                if (!Files.exists(original)) {
+                    return false;
+                }
+                Files.move(temporaire, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return true;
+        } finally {
+            Files.deleteIfExists(temporaire);
+        }
+    }
+
+    private static boolean estOriginal(String nomFichier) {
+        return estNomValide(nomFichier)
+                && EXTENSIONS_IMAGE.matcher(nomFichier).matches()
+                && !NOM_MINIATURE.matcher(nomFichier).matches();
+    }
+
+    private static boolean estNomValide(String nomFichier) {
+        return nomFichier != null && !nomFichier.isEmpty()
+                && !nomFichier.contains("/") && !nomFichier.contains("\\") && !nomFichier.contains("..");
+    }
+
+    @PreDestroy
+    public void arreter() {
+        executeur.shutdownNow();
+    }
+}
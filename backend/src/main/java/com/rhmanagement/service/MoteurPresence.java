@@ -0,0 +1,428 @@
+package com.rhmanagement.service;
+
+import com.rhmanagement.entity.Absence;
+import com.rhmanagement.entity.DemandeConge;
+import com.rhmanagement.entity.Employe;
+import com.rhmanagement.event.AbsenceModifieeEvent;
+import com.rhmanagement.event.DemandeCongeModifieeEvent;
+import com.rhmanagement.event.DemandesCongeDecideesEvent;
+import com.rhmanagement.event.EmployeModifieEvent;
+import com.rhmanagement.repository.AbsenceRepository;
+import com.rhmanagement.repository.AffectationPastoraleRepository;
+import com.rhmanagement.repository.DemandeCongeRepository;
+import com.rhmanagement.repository.EmployeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Présence des employés jour par jour, sous forme de bitsets en mémoire.
+ *
+ * Pour chaque employé et chaque année, un bit par jour (indice = jour de l'année - 1) indique un congé approuvé,
+ * un autre une absence validée. Un employé INACTIF n'est jamais disponible. Les questions « qui est disponible
+ * le jour J », « combien de présents par jour dans un district » ou « première fenêtre libre de N jours »
+ * se résolvent par des opérations sur ces bits, sans requête.
+ *
+ * Chargé au démarrage (ou à la première requête), puis mis à jour à chaque événement de congé, d'absence
+ * ou d'employé. Les bits d'un employé sont reconstruits à partir de ses périodes gardées en mémoire,
+ * ce qui reste juste si deux congés ou deux demi-journées d'absence se recouvrent.
+ */
+@Component
+public class MoteurPresence {
+
+    private static final Logger log = LoggerFactory.getLogger(MoteurPresence.class);
+
+    // Horizon de recherche d'une fenêtre libre
+    private static final int HORIZON_ANNEES = 2;
+
+    private final EmployeRepository employeRepository;
+    private final DemandeCongeRepository demandeCongeRepository;
+    private final AbsenceRepository absenceRepository;
+    private final AffectationPastoraleRepository affectationPastoraleRepository;
+
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    private final Set<Long> employes = new HashSet<>();
+    private final Set<Long> inactifs = new HashSet<>();
+
+    // Sources des bits : employeId -> demandeId -> [debut, fin] ; employeId -> absenceId -> date
+    private final Map<Long, Map<Long, LocalDate[]>> congesParEmploye = new HashMap<>();
+    private final Map<Long, Map<Long, LocalDate>> absencesParEmploye = new HashMap<>();
+
+    // annee -> employeId -> un bit par jour (seuls les bitsets non vides sont gardés)
+    private final Map<Integer, Map<Long, BitSet>> bitsConges = new HashMap<>();
+    private final Map<Integer, Map<Long, BitSet>> bitsAbsences = new HashMap<>();
+
+    private volatile boolean pret = false;
+
+    public MoteurPresence(EmployeRepository employeRepository,
+                          DemandeCongeRepository demandeCongeRepository,
+                          AbsenceRepository absenceRepository,
+                          AffectationPastoraleRepository affectationPastoraleRepository) {
+        this.employeRepository = employeRepository;
+        this.demandeCongeRepository = demandeCongeRepository;
+        this.absenceRepository = absenceRepository;
+        this.affectationPastoraleRepository = affectationPastoraleRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void charger() {
+        long debut = System.currentTimeMillis();
+        List<Object[]> statuts = employeRepository.findIdsEtStatuts();
+        List<DemandeConge> conges = demandeCongeRepository.findByStatut(DemandeConge.StatutDemande.APPROUVE);
+        List<Absence> absences = absenceRepository.findByStatut(Absence.StatutAbsence.VALIDE);
+
+        verrou.writeLock().lock();
+        try {
+            employes.clear();
+            inactifs.clear();
+            congesParEmploye.clear();
+            absencesParEmploye.clear();
+            bitsConges.clear();
+            bitsAbsences.clear();
+
+            for (Object[] ligne : statuts) {
+                Long employeId = (Long) ligne[0];
+                employes.add(employeId);
+                if (ligne[1] == Employe.StatutEmploye.INACTIF) {
+                    inactifs.add(employeId);
+                }
+            }
+            for (DemandeConge conge : conges) {
+                congesParEmploye.computeIfAbsent(conge.getEmployeId(), id -> new HashMap<>())
+                        .put(conge.getId(), new LocalDate[]{conge.getDateDebut(), conge.getDateFin()});
+            }
+            for (Absence absence : absences) {
+                absencesParEmploye.computeIfAbsent(absence.getEmployeId(), id -> new HashMap<>())
+                        .put(absence.getId(), absence.getDateAbsence());
+            }
+            congesParEmploye.keySet().forEach(employeId -> reconstruireConges(employeId, null));
+            absencesParEmploye.keySet().forEach(employeId -> reconstruireAbsences(employeId, null));
+            pret = true;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+        log.info("Moteur de présence chargé : {} employés, {} congés, {} absences en {} ms",
+                statuts.size(), conges.size(), absences.size(), System.currentTimeMillis() - debut);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDemandeCongeModifiee(DemandeCongeModifieeEvent event) {
+        modifier(() -> appliquerConges(event.getEmployeId(), List.of(event)));
+    }
+
+    /**
+     * Décision en lot : les années de chaque employé ne sont reconstruites qu'une fois
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDemandesCongeDecidees(DemandesCongeDecideesEvent event) {
+        modifier(() -> event.parEmploye().forEach(this::appliquerConges));
+    }
+
+    private void appliquerConges(Long employeId, List<DemandeCongeModifieeEvent> modifications) {
+        Map<Long, LocalDate[]> conges = congesParEmploye.computeIfAbsent(employeId, id -> new HashMap<>());
+        Set<Integer> annees = new HashSet<>();
+        for (DemandeCongeModifieeEvent modification : modifications) {
+            LocalDate[] ancienne = conges.remove(modification.getDemandeId());
+            if (ancienne != null) {
+                ajouterAnnees(annees, ancienne[0], ancienne[1]);
+            }
+            if (modification.getStatut() == DemandeConge.StatutDemande.APPROUVE) {
+                conges.put(modification.getDemandeId(),
+                        new LocalDate[]{modification.getDateDebut(), modification.getDateFin()});
+                ajouterAnnees(annees, modification.getDateDebut(), modification.getDateFin());
+            }
+        }
+        reconstruireConges(employeId, annees);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAbsenceModifiee(AbsenceModifieeEvent event) {
+        modifier(() -> {
+            Map<Long, LocalDate> absences = absencesParEmploye.computeIfAbsent(event.getEmployeId(), id -> new HashMap<>());
+            Set<Integer> annees = new HashSet<>();
+            LocalDate ancienne = absences.remove(event.getAbsenceId());
+            if (ancienne != null) {
+                annees.add(ancienne.getYear());
+            }
+            if (event.getStatut() == Absence.StatutAbsence.VALIDE) {
+                absences.put(event.getAbsenceId(), event.getDateAbsence());
+                annees.add(event.getDateAbsence().getYear());
+            }
+            reconstruireAbsences(event.getEmployeId(), annees);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeModifie(EmployeModifieEvent event) {
+        modifier(() -> {
+            Long employeId = event.getEmployeId();
+            if (event.isSupprime()) {
+                employes.remove(employeId);
+                inactifs.remove(employeId);
+                congesParEmploye.remove(employeId);
+                absencesParEmploye.remove(employeId);
+                bitsConges.values().forEach(parEmploye -> parEmploye.remove(employeId));
+                bitsAbsences.values().forEach(parEmploye -> parEmploye.remove(employeId));
+                return;
+            }
+            employes.add(employeId);
+            if (Employe.StatutEmploye.INACTIF.name().equals(event.getResume().getStatut())) {
+                inactifs.add(employeId);
+            } else {
+                inactifs.remove(employeId);
+            }
+        });
+    }
+
+    /**
+     * Employés disponibles à une date : ni inactifs, ni en congé approuvé, ni absents (absence validée)
+     */
+    public List<Long> employesDisponibles(LocalDate date) {
+        verifierCharge();
+        verrou.readLock().lock();
+        try {
+            Map<Long, BitSet> conges = bitsConges.getOrDefault(date.getYear(), Map.of());
+            Map<Long, BitSet> absences = bitsAbsences.getOrDefault(date.getYear(), Map.of());
+            int jour = date.getDayOfYear() - 1;
+
+            List<Long> disponibles = new ArrayList<>();
+            for (Long employeId : employes) {
+                if (!inactifs.contains(employeId)
+                        && !estPositionne(conges.get(employeId), jour)
+                        && !estPositionne(absences.get(employeId), jour)) {
+                    disponibles.add(employeId);
+                }
+            }
+            Collections.sort(disponibles);
+            return disponibles;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Nombre de pasteurs présents par jour du mois dans un district : affectés ce jour-là au district,
+     * actifs, ni en congé ni absents
+     */
+    public Map<LocalDate, Integer> couvertureDistrict(String district, YearMonth mois) {
+        Map<Long, List<LocalDate[]>> membres = new HashMap<>();
+        for (Object[] ligne : affectationPastoraleRepository.findPeriodesParDistrict(
+                district, mois.atDay(1), mois.atEndOfMonth())) {
+            membres.computeIfAbsent((Long) ligne[0], id -> new ArrayList<>())
+                    .add(new LocalDate[]{(LocalDate) ligne[1], (LocalDate) ligne[2]});
+        }
+        return couvertureParJour(membres, mois);
+    }
+
+    /**
+     * Nombre de présents par jour du mois parmi les employés donnés.
+     *
+     * @param membres employeId -> [debut, fin] de son affectation (fin null = en cours) ; un employé n'est
+     *                compté que les jours où il est affecté
+     */
+    public Map<LocalDate, Integer> couvertureParJour(Map<Long, List<LocalDate[]>> membres, YearMonth mois) {
+        verifierCharge();
+        int longueur = mois.lengthOfMonth();
+        int premierJour = mois.atDay(1).getDayOfYear() - 1;
+        int[] presents = new int[longueur];
+
+        verrou.readLock().lock();
+        try {
+            Map<Long, BitSet> conges = bitsConges.getOrDefault(mois.getYear(), Map.of());
+            Map<Long, BitSet> absences = bitsAbsences.getOrDefault(mois.getYear(), Map.of());
+
+            for (Map.Entry<Long, List<LocalDate[]>> membre : membres.entrySet()) {
+                Long employeId = membre.getKey();
+                if (inactifs.contains(employeId) || !employes.contains(employeId)) {
+                    continue;
+                }
+                // Jours du mois couverts par une affectation
+                BitSet disponible = new BitSet(longueur);
+                for (LocalDate[] affectation : membre.getValue()) {
+                    int debut = affectation[0].isBefore(mois.atDay(1)) ? 0 : affectation[0].getDayOfMonth() - 1;
+                    int fin = affectation[1] == null || affectation[1].isAfter(mois.atEndOfMonth())
+                            ? longueur : affectation[1].getDayOfMonth();
+                    if (debut < fin) {
+                        disponible.set(debut, fin);
+                    }
+                }
+                // Moins les jours de congé et d'absence (tranche du mois dans les bits de l'année)
+                BitSet conge = conges.get(employeId);
+                if (conge != null) {
+                    disponible.andNot(conge.get(premierJour, premierJour + longueur));
+                }
+                BitSet absence = absences.get(employeId);
+                if (absence != null) {
+                    disponible.andNot(absence.get(premierJour, premierJour + longueur));
+                }
+                for (int jour = disponible.nextSetBit(0); jour >= 0; jour = disponible.nextSetBit(jour + 1)) {
+                    presents[jour]++;
+                }
+            }
+        } finally {
+            verrou.readLock().unlock();
+        }
+
+        Map<LocalDate, Integer> couverture = new LinkedHashMap<>();
+        for (int jour = 0; jour < longueur; jour++) {
+            couverture.put(mois.atDay(jour + 1), presents[jour]);
+        }
+        return couverture;
+    }
+
+    /**
+     * Premier jour à partir duquel l'employé est libre (ni congé, ni absence) pendant `jours` jours consécutifs,
+     * dans un horizon de deux ans ; vide si l'employé est inactif, inconnu ou sans fenêtre assez longue
+     */
+    public Optional<LocalDate> premiereFenetreLibre(Long employeId, LocalDate aPartirDe, int jours) {
+        verifierCharge();
+        verrou.readLock().lock();
+        try {
+            if (!employes.contains(employeId) || inactifs.contains(employeId)) {
+                return Optional.empty();
+            }
+            LocalDate limite = aPartirDe.plusYears(HORIZON_ANNEES);
+            LocalDate debutFenetre = null;
+            int libresConsecutifs = 0;
+
+            for (int annee = aPartirDe.getYear(); annee <= limite.getYear(); annee++) {
+                int longueurAnnee = LocalDate.of(annee, 1, 1).lengthOfYear();
+                int jour = annee == aPartirDe.getYear() ? aPartirDe.getDayOfYear() - 1 : 0;
+                int dernier = annee == limite.getYear() ? limite.getDayOfYear() : longueurAnnee;
+                BitSet occupe = occupe(employeId, annee);
+
+                while (jour < dernier) {
+                    int prochainOccupe = occupe.nextSetBit(jour);
+                    int finLibre = prochainOccupe < 0 || prochainOccupe > dernier ? dernier : prochainOccupe;
+                    if (finLibre > jour) {
+                        if (libresConsecutifs == 0) {
+                            debutFenetre = LocalDate.ofYearDay(annee, jour + 1);
+                        }
+                        libresConsecutifs += finLibre - jour;
+                        if (libresConsecutifs >= jours) {
+                            return Optional.of(debutFenetre);
+                        }
+                    }
+                    if (finLibre == dernier) {
+                        break;
+                    }
+                    // Jour occupé : la fenêtre repart après la plage occupée
+                    libresConsecutifs = 0;
+                    jour = occupe.nextClearBit(finLibre);
+                }
+            }
+            return Optional.empty();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    private BitSet occupe(Long employeId, int annee) {
+        BitSet occupe = new BitSet();
+        BitSet conge = bitsConges.getOrDefault(annee, Map.of()).get(employeId);
+        if (conge != null) {
+            occupe.or(conge);
+        }
+        BitSet absence = bitsAbsences.getOrDefault(annee, Map.of()).get(employeId);
+        if (absence != null) {
+            occupe.or(absence);
+        }
+        return occupe;
+    }
+
+    /**
+     * Recalcule les bits de congé de l'employé pour les années données (null : toutes ses années)
+     */
+    private void reconstruireConges(Long employeId, Set<Integer> annees) {
+        Collection<LocalDate[]> periodes = congesParEmploye.getOrDefault(employeId, Map.of()).values();
+        if (annees == null) {
+            annees = new HashSet<>();
+            for (LocalDate[] periode : periodes) {
+                ajouterAnnees(annees, periode[0], periode[1]);
+            }
+        }
+        for (Integer annee : annees) {
+            BitSet bits = new BitSet();
+            for (LocalDate[] periode : periodes) {
+                if (periode[0].getYear() <= annee && periode[1].getYear() >= annee) {
+                    int debut = periode[0].getYear() < annee ? 0 : periode[0].getDayOfYear() - 1;
+                    int fin = periode[1].getYear() > annee ? LocalDate.of(annee, 12, 31).getDayOfYear() : periode[1].getDayOfYear();
+                    bits.set(debut, fin);
+                }
+            }
+            ranger(bitsConges, annee, employeId, bits);
+        }
+    }
+
+    private void reconstruireAbsences(Long employeId, Set<Integer> annees) {
+        Collection<LocalDate> dates = absencesParEmploye.getOrDefault(employeId, Map.of()).values();
+        if (annees == null) {
+            annees = new HashSet<>();
+            for (LocalDate date : dates) {
+                annees.add(date.getYear());
+            }
+        }
+        for (Integer annee : annees) {
+            BitSet bits = new BitSet();
+            for (LocalDate date : dates) {
+                if (date.getYear() == annee) {
+                    bits.set(date.getDayOfYear() - 1);
+                }
+            }
+            ranger(bitsAbsences, annee, employeId, bits);
+        }
+    }
+
+    private static void ranger(Map<Integer, Map<Long, BitSet>> parAnnee, Integer annee, Long employeId, BitSet bits) {
+        if (bits.isEmpty()) {
+            Map<Long, BitSet> parEmploye = parAnnee.get(annee);
+            if (parEmploye != null) {
+                parEmploye.remove(employeId);
+            }
+        } else {
+            parAnnee.computeIfAbsent(annee, a -> new HashMap<>()).put(employeId, bits);
+        }
+    }
+
+    private static void ajouterAnnees(Set<Integer> annees, LocalDate debut, LocalDate fin) {
+        for (int annee = debut.getYear(); annee <= fin.getYear(); annee++) {
+            annees.add(annee);
+        }
+    }
+
+    private static boolean estPositionne(BitSet bits, int jour) {
+        return bits != null && bits.get(jour);
+    }
+
+    private void modifier(Runnable modification) {
+        verrou.writeLock().lock();
+        try {
+            if (!pret) {
+                // Le chargement initial lira l'état à jour en base
+                return;
+            }
+            modification.run();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    private void verifierCharge() {
+        if (!pret) {
+            synchronized (this) {
+                if (!pret) {
+                    charger();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.rhmanagement.service;
+
+import com.lowagie.text.*;
+import com.lowagie.text.Font;
+import com.lowagie.text.Image;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import org.springframework.stereotype.Component;
+
+import java.awt.*;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Moteur de rendu commun à tous les PDF de l'application (OpenPDF uniquement).
+ *
+ * Les polices sont créées une seule fois, avec leur BaseFont explicite : elles ne sont jamais modifiées
+ * et peuvent être partagées entre threads. Les gabarits (sections, tableaux libellé / valeur, cellules)
+ * fixent la mise en page une fois pour toutes. Les rendus en mémoire réutilisent des tampons pris
+ * dans un pool borné au lieu d'allouer un nouveau tableau d'octets à chaque document.
+ */
+@Component
+public class MoteurRenduPdf {
+
+    public static final String NON_SPECIFIE = "Non spécifié";
+
+    private static final DateTimeFormatter FORMAT_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final Color GRIS_EN_TETE = new Color(240, 240, 240);
+
+    // Assez pour les rendus simultanés de l'export groupé (deux par cœur)
+    private static final int TAMPONS_MAX = Math.max(16, 2 * Runtime.getRuntime().availableProcessors());
+    private static final int TAILLE_TAMPON_INITIALE = 64 * 1024;
+    // Un tampon qui a grossi au-delà n'est pas remis dans le pool, pour ne pas retenir la mémoire
+    private static final int TAILLE_TAMPON_MAX = 4 * 1024 * 1024;
+
+    /**
+     * Styles de texte, chacun associé à une police préchargée
+     */
+    public enum Style {
+        TITRE(BaseFont.HELVETICA_BOLD, 16),
+        SECTION(BaseFont.HELVETICA_BOLD, 12),
+        TEXTE(BaseFont.HELVETICA, 10),
+        TEXTE_GRAS(BaseFont.HELVETICA_BOLD, 10),
+        INFO(BaseFont.HELVETICA, 12),
+        INFO_GRAS(BaseFont.HELVETICA_BOLD, 12),
+        CELLULE(BaseFont.HELVETICA, 9),
+        PIED(BaseFont.HELVETICA_OBLIQUE, 8);
+
+        private final Font police;
+
+        Style(String nomBase, float taille) {
+            try {
+                this.police = new Font(BaseFont.createFont(nomBase, BaseFont.CP1252, BaseFont.NOT_EMBEDDED), taille);
+            } catch (Exception e) {
+                throw new IllegalStateException("Police PDF introuvable : " + nomBase, e);
+            }
+        }
+
+        public Font police() {
+            return police;
+        }
+    }
+
+    /**
+     * Contenu d'un document, écrit entre l'ouverture et la fermeture
+     */
+    @FunctionalInterface
+    public interface Contenu {
+        void ecrire(Document document) throws Exception;
+    }
+
+    /**
+     * Tampon de rendu en mémoire ; close() le rend au pool
+     */
+    public final class TamponPdf extends ByteArrayOutputStream implements AutoCloseable {
+
+        private TamponPdf() {
+            super(TAILLE_TAMPON_INITIALE);
+        }
+
+        /**
+         * Octets écrits, sans copie (valides jusqu'à close())
+         */
+        public byte[] octets() {
+            return buf;
+        }
+
+        @Override
+        public void close() {
+            if (buf.length <= TAILLE_TAMPON_MAX) {
+                reset();
+                tampons.offer(this);
+            }
+        }
+    }
+
+    private final BlockingQueue<TamponPdf> tampons = new ArrayBlockingQueue<>(TAMPONS_MAX);
+
+    /**
+     * Rend un document dans le flux, sans le fermer
+     */
+    public void rendre(Rectangle format, OutputStream out, Contenu contenu) {
+        Document document = new Document(format);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
+            document.open();
+            contenu.ecrire(document);
+        } catch (Exception e) {
+            throw new RuntimeException("Erreur lors de la génération du PDF", e);
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+        }
+    }
+
+    /**
+     * Exécute l'écriture dans un tampon du pool ; l'appelant doit fermer le tampon après usage
+     */
+    public TamponPdf enMemoire(Consumer<OutputStream> ecriture) {
+        TamponPdf tampon = tampons.poll();
+        if (tampon == null) {
+            tampon = new TamponPdf();
+        }
+        try {
+            ecriture.accept(tampon);
+            return tampon;
+        } catch (RuntimeException e) {
+            tampon.close();
+            throw e;
+        }
+    }
+
+    // ====== GABARITS ======
+
+    public Paragraph paragraphe(String texte, Style style) {
+        return new Paragraph(texte, style.police());
+    }
+
+    public Paragraph titre(String texte, float espaceApres) {
+        Paragraph titre = paragraphe(texte, Style.TITRE);
+        titre.setAlignment(Element.ALIGN_CENTER);
+        titre.setSpacingAfter(espaceApres);
+        return titre;
+    }
+
+    public void section(Document document, String titre) throws DocumentException {
+        Paragraph section = paragraphe(titre, Style.SECTION);
+        section.setSpacingAfter(10);
+        document.add(section);
+    }
+
+    public void separateur(Document document) throws DocumentException {
+        document.add(new Paragraph("---"));
+        document.add(new Paragraph(" "));
+    }
+
+    public void piedDePage(Document document) throws DocumentException {
+        document.add(new Paragraph(" "));
+        Paragraph pied = paragraphe("Document généré le " + LocalDate.now().format(FORMAT_DATE), Style.PIED);
+        pied.setAlignment(Element.ALIGN_RIGHT);
+        document.add(pied);
+    }
+
+    public PdfPTable tableau(float... largeurs) throws DocumentException {
+        PdfPTable table = new PdfPTable(largeurs.length);
+        table.setWidthPercentage(100);
+        table.setWidths(largeurs);
+        return table;
+    }
+
+    /**
+     * Tableau de paires libellé / valeur, deux paires par ligne
+     */
+    public PdfPTable tableauLibelleValeur() throws DocumentException {
+        return tableau(1, 2, 1, 2);
+    }
+
+    public void libelleValeur(PdfPTable table, String libelle, String valeur) {
+        table.addCell(celluleSansBordure(libelle, Style.TEXTE));
+        table.addCell(celluleSansBordure(valeur != null ? valeur : NON_SPECIFIE, Style.TEXTE));
+    }
+
+    public void enTete(PdfPTable table, String texte) {
+        PdfPCell cellule = celluleSansBordure(texte, Style.TEXTE_GRAS);
+        cellule.setBackgroundColor(GRIS_EN_TETE);
+        table.addCell(cellule);
+    }
+
+    public PdfPCell celluleSansBordure(String texte, Style style) {
+        PdfPCell cellule = new PdfPCell(new Phrase(texte != null ? texte : NON_SPECIFIE, style.police()));
+        cellule.setBorder(Rectangle.NO_BORDER);
+        cellule.setPadding(5);
+        return cellule;
+    }
+
+    /**
+     * Cellule centrée des tableaux à grille (état de service)
+     */
+    public PdfPCell celluleCentree(String texte, Style style) {
+        PdfPCell cellule = new PdfPCell(new Phrase(texte, style.police()));
+        cellule.setHorizontalAlignment(Element.ALIGN_CENTER);
+        cellule.setVerticalAlignment(Element.ALIGN_MIDDLE);
+        cellule.setPadding(3);
+        return cellule;
+    }
+
+    /**
+     * Image affichée au format donné ; null si absente ou illisible
+     */
+    public Image photo(Path fichier, float largeur, float hauteur) {
+        if (fichier == null) {
+            return null;
+        }
+        try {
+            Image photo = Image.getInstance(fichier.toString());
+            photo.scaleToFit(largeur, hauteur);
+            return photo;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // ====== FORMATS ======
+
+    public static String date(LocalDate date) {
+        return date == null ? NON_SPECIFIE : date.format(FORMAT_DATE);
+    }
+
+    public static String texte(String valeur) {
+        return valeur != null && !valeur.trim().isEmpty() ? valeur : NON_SPECIFIE;
+    }
+}
@@ -1,129 +1,107 @@
 package com.rhmanagement.service;
 
-import com.itextpdf.text.Image;
-import com.lowagie.text.Font;
-import com.lowagie.text.Rectangle;
-import com.rhmanagement.entity.Employe;
-import com.rhmanagement.entity.HistoriquePoste;
-import com.rhmanagement.entity.Enfant;
 import com.lowagie.text.*;
+import com.lowagie.text.Image;
+import com.lowagie.text.Rectangle;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
-import com.lowagie.text.pdf.PdfWriter;
+import com.rhmanagement.entity.Employe;
+import com.rhmanagement.entity.Enfant;
+import com.rhmanagement.entity.HistoriquePoste;
+import com.rhmanagement.service.MoteurRenduPdf.Style;
 import org.springframework.stereotype.Service;
 
-import java.awt.*;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static com.rhmanagement.service.MoteurRenduPdf.date;
+import static com.rhmanagement.service.MoteurRenduPdf.texte;
+
+/**
+ * Génération des PDF (état de service, fiche employé).
+ *
+ * Les documents sont écrits directement dans le flux fourni (en pratique la réponse HTTP) : aucune copie
+ * complète du PDF n'est gardée en mémoire. Le flux n'est pas fermé, c'est à l'appelant de le faire.
+ * Polices, cellules et sections viennent du {@link MoteurRenduPdf} partagé.
+ */
 @Service
 public class PdfExportService {
 
-    public ByteArrayInputStream generateEtatServicePdf(Employe employe, List<HistoriquePoste> historique) {
-        try {
-            // 🔹 TRIER LA LISTE PAR DATE DE DÉBUT (CROISSANT)
-            List<HistoriquePoste> historiqueTrie = historique.stream()
-                    .sorted(Comparator.comparing(HistoriquePoste::getDateDebut))
-                    .collect(Collectors.toList());
+    // Lignes de l'état de service envoyées au document par paquet : seul un paquet est gardé en mémoire
+    private static final int LIGNES_PAR_PAQUET = 50;
 
-            Document document = new Document(PageSize.A4.rotate());
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            PdfWriter.getInstance(document, out);
-            document.open();
+    private static final String[] EN_TETES_ETAT_SERVICE = {
+            "Année", "Poste/Genre de Travail", "Organisation qui engage",
+            "Commence le J/M/A", "Termine le J/M/A", "Salaire à plein temps",
+            "Salaire à temps partiel", "Salaire à l'heure", "% de Salaire",
+            "100% de Salaire de base", "Signature des adminis"
+    };
 
+    private final MoteurRenduPdf moteur;
+    private final MiniaturePhotoService miniaturePhotoService;
+
+    public PdfExportService(MoteurRenduPdf moteur, MiniaturePhotoService miniaturePhotoService) {
+        this.moteur = moteur;
+        this.miniaturePhotoService = miniaturePhotoService;
+    }
+
+    public void ecrireEtatServicePdf(Employe employe, List<HistoriquePoste> historique, OutputStream out) {
+        // 🔹 TRIER LA LISTE PAR DATE DE DÉBUT (CROISSANT)
+        List<HistoriquePoste> historiqueTrie = historique.stream()
+                .sorted(Comparator.comparing(HistoriquePoste::getDateDebut))
+                .collect(Collectors.toList());
+
+        moteur.rendre(PageSize.A4.rotate(), out, document -> {
             // ====== TITRE ======
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 16);
-            Paragraph title = new Paragraph("ÉTAT DE SERVICE ANNUEL", titleFont);
-            title.setAlignment(Element.ALIGN_CENTER);
-            title.setSpacingAfter(20);
-            document.add(title);
+            document.add(moteur.titre("ÉTAT DE SERVICE ANNUEL", 20));
 
             // ====== INFORMATIONS EMPLOYÉ ======
-            Font infoFont = FontFactory.getFont(FontFactory.HELVETICA, 12);
-            document.add(new Paragraph("Nom : " + employe.getPrenom() + " " + employe.getNom(), infoFont));
-            document.add(new Paragraph("Matricule : " + employe.getMatricule(), infoFont));
-
-            // ✅ CORRECTION : Utiliser getPosteLibelle au lieu de employe.getPoste()
-            document.add(new Paragraph("Poste actuel : " + getPosteLibelle(employe), infoFont));
+            document.add(moteur.paragraphe("Nom : " + employe.getPrenom() + " " + employe.getNom(), Style.INFO));
+            document.add(moteur.paragraphe("Matricule : " + employe.getMatricule(), Style.INFO));
+            document.add(moteur.paragraphe("Poste actuel : " + getPosteLibelle(employe), Style.INFO));
             document.add(new Paragraph(" "));
 
             // ====== TABLEAU ÉTAT DE SERVICE ======
-            PdfPTable table = new PdfPTable(11);
+            PdfPTable table = new PdfPTable(EN_TETES_ETAT_SERVICE.length);
             table.setWidthPercentage(100);
             table.setSpacingBefore(10);
+            // Tableau écrit au fil de l'eau, en-têtes répétés sur chaque page
+            table.setHeaderRows(1);
+            table.setComplete(false);
 
-            // En-têtes du tableau
-            String[] headers = {
-                    "Année", "Poste/Genre de Travail", "Organisation qui engage",
-                    "Commence le J/M/A", "Termine le J/M/A", "Salaire à plein temps",
-                    "Salaire à temps partiel", "Salaire à l'heure", "% de Salaire",
-                    "100% de Salaire de base", "Signature des adminis"
-            };
-
-            for (String header : headers) {
-                PdfPCell cell = new PdfPCell(new Phrase(header, FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10)));
-                cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
-                table.addCell(cell);
+            for (String enTete : EN_TETES_ETAT_SERVICE) {
+                table.addCell(moteur.celluleCentree(enTete, Style.TEXTE_GRAS));
             }
 
             // ====== CONTENU DU TABLEAU ======
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-
+            int lignes = 0;
             for (HistoriquePoste poste : historiqueTrie) {
-                // Année
+                if (++lignes % LIGNES_PAR_PAQUET == 0) {
+                    document.add(table);
+                }
                 table.addCell(createCell(String.valueOf(poste.getDateDebut().getYear())));
-
-                // ✅ CORRECTION : Utiliser getPosteLibelle pour l'historique
-                String libellePoste = getPosteLibelleHistorique(poste, employe);
-                table.addCell(createCell(libellePoste));
-
-                // Organisation
+                table.addCell(createCell(getPosteLibelleHistorique(poste, employe)));
                 table.addCell(createCell(poste.getOrganisation()));
-
-                // Date début
-                table.addCell(createCell(poste.getDateDebut().format(formatter)));
-
-                // Date fin
-                String dateFin = poste.getDateFin() != null
-                        ? poste.getDateFin().format(formatter)
-                        : "Présent";
-                table.addCell(createCell(dateFin));
-
-                // Salaire plein temps
+                table.addCell(createCell(date(poste.getDateDebut())));
+                table.addCell(createCell(poste.getDateFin() != null ? date(poste.getDateFin()) : "Présent"));
                 table.addCell(createCell(formatCurrency(poste.getSalairePleinTemps())));
-
-                // Salaire temps partiel (calculé)
                 table.addCell(createCell(formatCurrency(calculateSalaireTempsPartiel(poste))));
-
-                // Salaire à l'heure (calculé)
                 table.addCell(createCell(formatCurrency(calculateSalaireHeure(poste))));
-
-                // Pourcentage salaire
                 table.addCell(createCell(poste.getPourcentageSalaire() + "%"));
-
-                // Salaire base 100%
                 table.addCell(createCell(formatCurrency(poste.getSalaireBase100())));
-
                 // Signature vide
                 table.addCell(createCell(""));
             }
 
+            table.setComplete(true);
             document.add(table);
 
             // ====== SECTION SIGNATURE ======
             document.add(new Paragraph("\n\n"));
-            document.close();
-            return new ByteArrayInputStream(out.toByteArray());
-
-        } catch (Exception e) {
-            throw new RuntimeException("Erreur lors de la génération du PDF", e);
-        }
+        });
     }
 
     /**
@@ -163,72 +141,36 @@ public class PdfExportService {
         }
     }
 
-    public ByteArrayInputStream generateFicheEmployePdf(Employe employe, List<Enfant> enfants) {
-        try {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            Document document = new Document(PageSize.A4);
-            PdfWriter.getInstance(document, out);
-
-            document.open();
-
+    public void ecrireFicheEmployePdf(Employe employe, List<Enfant> enfants, OutputStream out) {
+        moteur.rendre(PageSize.A4, out, document -> {
             // ====== EN-TÊTE AVEC PHOTO ======
-            PdfPTable headerTable = new PdfPTable(2);
-            headerTable.setWidthPercentage(100);
-            headerTable.setWidths(new float[]{1, 3}); // Photo à gauche, informations à droite
+            PdfPTable headerTable = moteur.tableau(1, 3); // Photo à gauche, informations à droite
 
-            // Cellule pour la photo
             PdfPCell photoCell = new PdfPCell();
             photoCell.setBorder(Rectangle.NO_BORDER);
             photoCell.setHorizontalAlignment(Element.ALIGN_CENTER);
             photoCell.setVerticalAlignment(Element.ALIGN_MIDDLE);
             photoCell.setPadding(10);
 
-            // Ajouter la photo si elle existe
-            boolean photoLoaded = false;
-            if (employe.getPhotoProfil() != null && !employe.getPhotoProfil().isEmpty()) {
-                try {
-                    // Charger l'image depuis le système de fichiers
-                    Image photo = Image.getInstance("uploads/" + employe.getPhotoProfil());
-                    photo.scaleToFit(80, 100); // Taille fixe pour la photo
-                    photoCell.addElement((Element) photo);
-                } catch (Exception e) {
-                    // Si l'image ne peut pas être chargée, afficher un placeholder
-                    Paragraph placeholder = new Paragraph("Photo\nnon disponible",
-                            FontFactory.getFont(FontFactory.HELVETICA, 10));
-                    placeholder.setAlignment(Element.ALIGN_CENTER);
-                    photoCell.addElement(placeholder);
-                }
+            // Miniature pré-réduite : l'original pleine résolution n'est décodé que si elle n'existe pas encore
+            Image photo = moteur.photo(
+                    miniaturePhotoService.chemin(employe.getPhotoProfil(), MiniaturePhotoService.Format.PDF), 80, 100);
+            if (photo != null) {
+                photoCell.addElement(photo);
             } else {
-                // Aucune photo disponible
-                Paragraph noPhoto = new Paragraph("Aucune\nphoto",
-                        FontFactory.getFont(FontFactory.HELVETICA, 10));
-                noPhoto.setAlignment(Element.ALIGN_CENTER);
-                photoCell.addElement(noPhoto);
+                boolean aUnePhoto = employe.getPhotoProfil() != null && !employe.getPhotoProfil().isEmpty();
+                Paragraph placeholder = moteur.paragraphe(aUnePhoto ? "Photo\nnon disponible" : "Aucune\nphoto", Style.TEXTE);
+                placeholder.setAlignment(Element.ALIGN_CENTER);
+                photoCell.addElement(placeholder);
             }
 
-            // Cellule pour les informations principales
             PdfPCell infoCell = new PdfPCell();
             infoCell.setBorder(Rectangle.NO_BORDER);
             infoCell.setPadding(10);
-
-            // Titre principal
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 16);
-            Paragraph title = new Paragraph("FICHE EMPLOYÉ", titleFont);
-            title.setAlignment(Element.ALIGN_CENTER);
-            title.setSpacingAfter(10);
-
-            // Informations principales
-            Font infoFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
-            Paragraph nomComplet = new Paragraph(employe.getPrenom() + " " + employe.getNom(), infoFont);
-            Paragraph matricule = new Paragraph("Matricule: " + getSafeString(employe.getMatricule()),
-                    FontFactory.getFont(FontFactory.HELVETICA, 10));
-            Paragraph poste = new Paragraph("Poste: " + getPosteLibelle(employe),
-                    FontFactory.getFont(FontFactory.HELVETICA, 10));
-
-            infoCell.addElement(title);
-            infoCell.addElement(nomComplet);
-            infoCell.addElement(matricule);
-            infoCell.addElement(poste);
+            infoCell.addElement(moteur.titre("FICHE EMPLOYÉ", 10));
+            infoCell.addElement(moteur.paragraphe(employe.getPrenom() + " " + employe.getNom(), Style.INFO_GRAS));
+            infoCell.addElement(moteur.paragraphe("Matricule: " + texte(employe.getMatricule()), Style.TEXTE));
+            infoCell.addElement(moteur.paragraphe("Poste: " + getPosteLibelle(employe), Style.TEXTE));
 
             headerTable.addCell(photoCell);
             headerTable.addCell(infoCell);
@@ -237,217 +179,101 @@ public class PdfExportService {
             document.add(new Paragraph(" ")); // Espacement
 
             // ====== INFORMATIONS PERSONNELLES ======
-            Font sectionFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
-            Paragraph section1 = new Paragraph("INFORMATIONS PERSONNELLES", sectionFont);
-            section1.setSpacingAfter(10);
-            document.add(section1);
-
-            // Tableau pour les informations personnelles
-            PdfPTable table1 = new PdfPTable(4);
-            table1.setWidthPercentage(100);
-            table1.setWidths(new float[]{1, 2, 1, 2});
-
-            addSimpleTableRow(table1, "Nom", getSafeString(employe.getNom()));
-            addSimpleTableRow(table1, "Prénom", getSafeString(employe.getPrenom()));
-            addSimpleTableRow(table1, "Date de naissance", formatDate(employe.getDateNaissance()));
-            addSimpleTableRow(table1, "Lieu de naissance", getSafeString(employe.getLieuNaissance()));
-            addSimpleTableRow(table1, "Nationalité", getSafeString(employe.getNationalite()));
-            addSimpleTableRow(table1, "Numéro CIN", getSafeString(employe.getCin()));
-            addSimpleTableRow(table1, "Adresse", getSafeString(employe.getAdresse()));
-            addSimpleTableRow(table1, "Téléphone", getSafeString(employe.getTelephone()));
-            addSimpleTableRow(table1, "Email", getSafeString(employe.getEmail()));
-            addSimpleTableRow(table1, "Statut matrimonial", getStatutMatrimonialLibelle(employe.getStatutMatrimonial()));
-            addSimpleTableRow(table1, "Nom du père", getSafeString(employe.getNomPere()));
-            addSimpleTableRow(table1, "Nom de la mère", getSafeString(employe.getNomMere()));
-            addSimpleTableRow(table1, "Numéro CNAPS", getSafeString(employe.getNumeroCNAPS()));
-
+            moteur.section(document, "INFORMATIONS PERSONNELLES");
+            PdfPTable table1 = moteur.tableauLibelleValeur();
+            moteur.libelleValeur(table1, "Nom", texte(employe.getNom()));
+            moteur.libelleValeur(table1, "Prénom", texte(employe.getPrenom()));
+            moteur.libelleValeur(table1, "Date de naissance", date(employe.getDateNaissance()));
+            moteur.libelleValeur(table1, "Lieu de naissance", texte(employe.getLieuNaissance()));
+            moteur.libelleValeur(table1, "Nationalité", texte(employe.getNationalite()));
+            moteur.libelleValeur(table1, "Numéro CIN", texte(employe.getCin()));
+            moteur.libelleValeur(table1, "Adresse", texte(employe.getAdresse()));
+            moteur.libelleValeur(table1, "Téléphone", texte(employe.getTelephone()));
+            moteur.libelleValeur(table1, "Email", texte(employe.getEmail()));
+            moteur.libelleValeur(table1, "Statut matrimonial", getStatutMatrimonialLibelle(employe.getStatutMatrimonial()));
+            moteur.libelleValeur(table1, "Nom du père", texte(employe.getNomPere()));
+            moteur.libelleValeur(table1, "Nom de la mère", texte(employe.getNomMere()));
+            moteur.libelleValeur(table1, "Numéro CNAPS", texte(employe.getNumeroCNAPS()));
             document.add(table1);
-
-            // Ligne de séparation
-            document.add(new Paragraph("---"));
-            document.add(new Paragraph(" "));
+            moteur.separateur(document);
 
             // ====== CONTACT D'URGENCE ======
-            Paragraph section2 = new Paragraph("CONTACT D'URGENCE", sectionFont);
-            section2.setSpacingAfter(10);
-            document.add(section2);
-
-            // Tableau pour contact d'urgence avec en-têtes
-            PdfPTable table2 = new PdfPTable(3);
-            table2.setWidthPercentage(100);
-            table2.setWidths(new float[]{1, 1, 1});
-
-            // En-têtes
-            addTableHeader(table2, "Nom");
-            addTableHeader(table2, "Lien avec l'employé");
-            addTableHeader(table2, "Téléphone");
-
-            // Données
-            addSimpleCell(table2, getSafeString(employe.getContactUrgenceNom()));
-            addSimpleCell(table2, getSafeString(employe.getContactUrgenceLien()));
-            addSimpleCell(table2, getSafeString(employe.getContactUrgenceTelephone()));
-
+            moteur.section(document, "CONTACT D'URGENCE");
+            PdfPTable table2 = moteur.tableau(1, 1, 1);
+            moteur.enTete(table2, "Nom");
+            moteur.enTete(table2, "Lien avec l'employé");
+            moteur.enTete(table2, "Téléphone");
+            table2.addCell(moteur.celluleSansBordure(texte(employe.getContactUrgenceNom()), Style.TEXTE));
+            table2.addCell(moteur.celluleSansBordure(texte(employe.getContactUrgenceLien()), Style.TEXTE));
+            table2.addCell(moteur.celluleSansBordure(texte(employe.getContactUrgenceTelephone()), Style.TEXTE));
             document.add(table2);
-
-            document.add(new Paragraph("---"));
-            document.add(new Paragraph(" "));
+            moteur.separateur(document);
 
             // ====== INFORMATIONS PROFESSIONNELLES ======
-            Paragraph section3 = new Paragraph("INFORMATIONS PROFESSIONNELLES", sectionFont);
-            section3.setSpacingAfter(10);
-            document.add(section3);
-
-            PdfPTable table3 = new PdfPTable(4);
-            table3.setWidthPercentage(100);
-            table3.setWidths(new float[]{1, 2, 1, 2});
-
-            addSimpleTableRow(table3, "Matricule", getSafeString(employe.getMatricule()));
-            addSimpleTableRow(table3, "Poste", getPosteLibelle(employe));
-            addSimpleTableRow(table3, "Catégorie", getStatutEmployeLibelle(employe.getStatut()));
-            addSimpleTableRow(table3, "Organisation employeur", getSafeString(employe.getOrganisationEmployeur()));
-            addSimpleTableRow(table3, "Type de contrat", getTypeContratLibelle(employe.getTypeContrat()));
-            addSimpleTableRow(table3, "Date de début du contrat", formatDate(employe.getDateDebut()));
-            addSimpleTableRow(table3, "Date de fin (si applicable)", formatDate(employe.getDateFin()));
-            addSimpleTableRow(table3, "Salaire de base", formatSalaire(employe.getSalaireBase()));
-            addSimpleTableRow(table3, "Pourcentage salaire", formatPourcentage(employe.getPourcentageSalaire()));
-            addSimpleTableRow(table3, "Superviseur hiérarchique", getSafeString(employe.getSuperviseurHierarchique()));
-            addSimpleTableRow(table3, "Affectation actuelle", getSafeString(employe.getAffectationActuelle()));
-
+            moteur.section(document, "INFORMATIONS PROFESSIONNELLES");
+            PdfPTable table3 = moteur.tableauLibelleValeur();
+            moteur.libelleValeur(table3, "Matricule", texte(employe.getMatricule()));
+            moteur.libelleValeur(table3, "Poste", getPosteLibelle(employe));
+            moteur.libelleValeur(table3, "Catégorie", getStatutEmployeLibelle(employe.getStatut()));
+            moteur.libelleValeur(table3, "Organisation employeur", texte(employe.getOrganisationEmployeur()));
+            moteur.libelleValeur(table3, "Type de contrat", getTypeContratLibelle(employe.getTypeContrat()));
+            moteur.libelleValeur(table3, "Date de début du contrat", date(employe.getDateDebut()));
+            moteur.libelleValeur(table3, "Date de fin (si applicable)", date(employe.getDateFin()));
+            moteur.libelleValeur(table3, "Salaire de base", formatSalaire(employe.getSalaireBase()));
+            moteur.libelleValeur(table3, "Pourcentage salaire", formatPourcentage(employe.getPourcentageSalaire()));
+            moteur.libelleValeur(table3, "Superviseur hiérarchique", texte(employe.getSuperviseurHierarchique()));
+            moteur.libelleValeur(table3, "Affectation actuelle", texte(employe.getAffectationActuelle()));
             document.add(table3);
-
-            document.add(new Paragraph("---"));
-            document.add(new Paragraph(" "));
+            moteur.separateur(document);
 
             // ====== ACCRÉDITATION ======
-            Paragraph section4 = new Paragraph("ACCRÉDITATION", sectionFont);
-            section4.setSpacingAfter(10);
-            document.add(section4);
-
-            PdfPTable table4 = new PdfPTable(4);
-            table4.setWidthPercentage(100);
-            table4.setWidths(new float[]{1, 2, 1, 2});
-
-            addSimpleTableRow(table4, "Date d'accréditation", formatDate(employe.getDateAccreditation()));
-            addSimpleTableRow(table4, "Niveau d'accréditation", getSafeString(String.valueOf(employe.getNiveauAccreditation())));
-            addSimpleTableRow(table4, "Groupe d'accréditation", getSafeString(employe.getGroupeAccreditation()));
-
+            moteur.section(document, "ACCRÉDITATION");
+            PdfPTable table4 = moteur.tableauLibelleValeur();
+            moteur.libelleValeur(table4, "Date d'accréditation", date(employe.getDateAccreditation()));
+            moteur.libelleValeur(table4, "Niveau d'accréditation", texte(String.valueOf(employe.getNiveauAccreditation())));
+            moteur.libelleValeur(table4, "Groupe d'accréditation", texte(employe.getGroupeAccreditation()));
             document.add(table4);
-
-            document.add(new Paragraph("---"));
-            document.add(new Paragraph(" "));
+            moteur.separateur(document);
 
             // ====== SUIVI ======
-            Paragraph section5 = new Paragraph("SUIVI", sectionFont);
-            section5.setSpacingAfter(10);
-            document.add(section5);
-
-            PdfPTable table5 = new PdfPTable(4);
-            table5.setWidthPercentage(100);
-            table5.setWidths(new float[]{1, 2, 1, 2});
-
+            moteur.section(document, "SUIVI");
+            PdfPTable table5 = moteur.tableauLibelleValeur();
             LocalDate now = LocalDate.now();
-            addSimpleTableRow(table5, "Date de création de la fiche", formatDate(now));
-            addSimpleTableRow(table5, "Dernière mise à jour", formatDate(now));
-            addSimpleTableRow(table5, "Créé par", "RH");
-            addSimpleTableRow(table5, "Mis à jour par", "RH");
-
+            moteur.libelleValeur(table5, "Date de création de la fiche", date(now));
+            moteur.libelleValeur(table5, "Dernière mise à jour", date(now));
+            moteur.libelleValeur(table5, "Créé par", "RH");
+            moteur.libelleValeur(table5, "Mis à jour par", "RH");
             document.add(table5);
 
             // ====== INFORMATIONS FAMILIALES (si marié) ======
-            if (employe.getStatutMatrimonial() != null &&
-                    employe.getStatutMatrimonial().name().equals("MARIE")) {
-
-                document.add(new Paragraph("---"));
-                document.add(new Paragraph(" "));
-
-                Paragraph section6 = new Paragraph("INFORMATIONS FAMILIALES", sectionFont);
-                section6.setSpacingAfter(10);
-                document.add(section6);
-
-                PdfPTable table6 = new PdfPTable(4);
-                table6.setWidthPercentage(100);
-                table6.setWidths(new float[]{1, 2, 1, 2});
-
-                addSimpleTableRow(table6, "Nom du conjoint", getSafeString(employe.getNomConjoint()));
-                addSimpleTableRow(table6, "Date de mariage", formatDate(employe.getDateMariage()));
-                addSimpleTableRow(table6, "Date de naissance du conjoint", formatDate(employe.getDateNaissanceConjoint()));
-                addSimpleTableRow(table6, "Nombre d'enfants", String.valueOf(enfants != null ? enfants.size() : 0));
-
+            if (employe.getStatutMatrimonial() == Employe.StatutMatrimonial.MARIE) {
+                moteur.separateur(document);
+                moteur.section(document, "INFORMATIONS FAMILIALES");
+                PdfPTable table6 = moteur.tableauLibelleValeur();
+                moteur.libelleValeur(table6, "Nom du conjoint", texte(employe.getNomConjoint()));
+                moteur.libelleValeur(table6, "Date de mariage", date(employe.getDateMariage()));
+                moteur.libelleValeur(table6, "Date de naissance du conjoint", date(employe.getDateNaissanceConjoint()));
+                moteur.libelleValeur(table6, "Nombre d'enfants", String.valueOf(enfants != null ? enfants.size() : 0));
                 document.add(table6);
 
-                // Liste des enfants
                 if (enfants != null && !enfants.isEmpty()) {
                     document.add(new Paragraph(" "));
-                    Paragraph enfantsTitle = new Paragraph("Liste des enfants:",
-                            FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10));
-                    document.add(enfantsTitle);
-
+                    document.add(moteur.paragraphe("Liste des enfants:", Style.TEXTE_GRAS));
                     for (Enfant enfant : enfants) {
-                        Paragraph enfantInfo = new Paragraph("• " + getSafeString(enfant.getNom()) +
-                                " - Né(e) le " + formatDate(enfant.getDateNaissance()),
-                                FontFactory.getFont(FontFactory.HELVETICA, 10));
-                        document.add(enfantInfo);
+                        document.add(moteur.paragraphe("• " + texte(enfant.getNom()) +
+                                " - Né(e) le " + date(enfant.getDateNaissance()), Style.TEXTE));
                     }
                 }
             }
 
-            // Pied de page
-            document.add(new Paragraph(" "));
-            Font footerFont = FontFactory.getFont(FontFactory.HELVETICA_OBLIQUE, 8);
-            Paragraph footer = new Paragraph("Document généré le " +
-                    LocalDate.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), footerFont);
-            footer.setAlignment(Element.ALIGN_RIGHT);
-            document.add(footer);
-
-            document.close();
-            return new ByteArrayInputStream(out.toByteArray());
-
-        } catch (Exception e) {
-            throw new RuntimeException("Erreur lors de la génération de la fiche employé PDF", e);
-        }
+            moteur.piedDePage(document);
+        });
     }
 
     // ====== MÉTHODES UTILITAIRES ======
 
-    private void addSimpleTableRow(PdfPTable table, String label, String value) {
-        // Cellule label
-        PdfPCell labelCell = new PdfPCell(new Phrase(label,
-                FontFactory.getFont(FontFactory.HELVETICA, 10)));
-        labelCell.setBorder(Rectangle.NO_BORDER);
-        labelCell.setPadding(5);
-        table.addCell(labelCell);
-
-        // Cellule valeur
-        PdfPCell valueCell = new PdfPCell(new Phrase(value != null ? value : "Non spécifié",
-                FontFactory.getFont(FontFactory.HELVETICA, 10)));
-        valueCell.setBorder(Rectangle.NO_BORDER);
-        valueCell.setPadding(5);
-        table.addCell(valueCell);
-    }
-
-    private void addTableHeader(PdfPTable table, String header) {
-        PdfPCell headerCell = new PdfPCell(new Phrase(header,
-                FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10)));
-        headerCell.setBorder(Rectangle.NO_BORDER);
-        headerCell.setPadding(5);
-        headerCell.setBackgroundColor(new Color(240, 240, 240));
-        table.addCell(headerCell);
-    }
-
-    private void addSimpleCell(PdfPTable table, String content) {
-        PdfPCell cell = new PdfPCell(new Phrase(content != null ? content : "Non spécifié",
-                FontFactory.getFont(FontFactory.HELVETICA, 10)));
-        cell.setBorder(Rectangle.NO_BORDER);
-        cell.setPadding(5);
-        table.addCell(cell);
-    }
-
     private PdfPCell createCell(String content) {
-        PdfPCell cell = new PdfPCell(new Phrase(content, FontFactory.getFont(FontFactory.HELVETICA, 9)));
-        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-        cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
-        cell.setPadding(3);
-        return cell;
+        return moteur.celluleCentree(content, Style.CELLULE);
     }
 
     private String formatCurrency(Number amount) {
@@ -534,11 +360,6 @@ public class PdfExportService {
         }
     }
 
-    private String formatDate(LocalDate date) {
-        if (date == null) return "Non spécifié";
-        return date.format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-    }
-
     private String formatSalaire(Number salaire) {
         if (salaire == null) return "Non spécifié";
         try {
@@ -566,8 +387,4 @@ public class PdfExportService {
             return pourcentage.toString() + "%";
         }
     }
-
-    private String getSafeString(String value) {
-        return (value != null && !value.trim().isEmpty()) ? value : "Non spécifié";
-    }
 }
\ No newline at end of file
@@ -0,0 +1,184 @@
+package com.rhmanagement.service;
+
+import com.rhmanagement.entity.Poste;
+import com.rhmanagement.entity.TypeAbsence;
+import com.rhmanagement.entity.TypeLettrePastorale;
+import com.rhmanagement.repository.PosteRepository;
+import com.rhmanagement.repository.TypeAbsenceRepository;
+import com.rhmanagement.repository.TypeLettrePastoraleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Cache en mémoire des données de référence (types d'absence, types de lettre pastorale, postes).
+ *
+ * Ces tables ne comptent que quelques lignes et changent très rarement : on les garde dans un
+ * instantané immuable, remplacé en bloc par {@link #rafraichir()} après chaque écriture. Les lectures
+ * ne prennent aucun verrou. La version de l'instantané sert d'ETag aux contrôleurs.
+ *
+ * L'instantané ne contient que des copies détachées des entités lues, et chaque lecture renvoie
+ * de nouvelles copies : modifier un objet renvoyé (ou l'entité gérée d'une session en cours)
+ * n'altère jamais le cache partagé.
+ */
+@Service
+public class ReferenceDataService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceDataService.class);
+
+    private final TypeAbsenceRepository typeAbsenceRepository;
+    private final TypeLettrePastoraleRepository typeLettrePastoraleRepository;
+    private final PosteRepository posteRepository;
+
+    // Initialisée à l'heure de démarrage : une version ne se répète pas d'un redémarrage à l'autre
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis());
+
+    private record Instantane(long version,
+                              Map<Integer, TypeAbsence> typesAbsence,
+                              Map<Integer, TypeLettrePastorale> typesLettre,
+                              Map<Long, Poste> postes) {
+    }
+
+    private volatile Instantane instantane;
+
+    public ReferenceDataService(TypeAbsenceRepository typeAbsenceRepository,
+                                TypeLettrePastoraleRepository typeLettrePastoraleRepository,
+                                PosteRepository posteRepository) {
+        this.typeAbsenceRepository = typeAbsenceRepository;
+        this.typeLettrePastoraleRepository = typeLettrePastoraleRepository;
+        this.posteRepository = posteRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rafraichir() {
+        Map<Integer, TypeAbsence> typesAbsence = new LinkedHashMap<>();
+        for (TypeAbsence type : typeAbsenceRepository.findAll()) {
+            typesAbsence.put(type.getId(), copie(type));
+        }
+        Map<Integer, TypeLettrePastorale> typesLettre = new LinkedHashMap<>();
+        for (TypeLettrePastorale type : typeLettrePastoraleRepository.findAll()) {
+            typesLettre.put(type.getId(), copie(type));
+        }
+        Map<Long, Poste> postes = new LinkedHashMap<>();
+        for (Poste poste : posteRepository.findAll()) {
+            postes.put(poste.getId(), copie(poste));
+        }
+        instantane = new Instantane(versions.incrementAndGet(),
+                Collections.unmodifiableMap(typesAbsence),
+                Collections.unmodifiableMap(typesLettre),
+                Collections.unmodifiableMap(postes));
+        log.info("Données de référence chargées : {} types d'absence, {} types de lettre, {} postes",
+                typesAbsence.size(), typesLettre.size(), postes.size());
+    }
+
+    /**
+     * ETag de l'instantané courant, change à chaque écriture
+     */
+    public String getEtag() {
+        return "\"ref-" + Long.toString(instantane().version(), 36) + "\"";
+    }
+
+    public List<TypeAbsence> getTypesAbsence() {
+        return instantane().typesAbsence().values().stream().map(ReferenceDataService::copie).collect(Collectors.toList());
+    }
+
+    public Optional<TypeAbsence> getTypeAbsence(Integer id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(instantane().typesAbsence().get(id)).map(ReferenceDataService::copie);
+    }
+
+    public List<TypeLettrePastorale> getTypesLettrePastorale() {
+        return instantane().typesLettre().values().stream().map(ReferenceDataService::copie).collect(Collectors.toList());
+    }
+
+    public Optional<TypeLettrePastorale> getTypeLettrePastorale(Integer id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(instantane().typesLettre().get(id)).map(ReferenceDataService::copie);
+    }
+
+    public List<Poste> getPostes() {
+        return instantane().postes().values().stream().map(ReferenceDataService::copie).collect(Collectors.toList());
+    }
+
+    public Optional<Poste> getPoste(Long id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(instantane().postes().get(id)).map(ReferenceDataService::copie);
+    }
+
+    // Écritures : validées en base (transaction du repository) puis instantané reconstruit
+
+    public TypeAbsence saveTypeAbsence(TypeAbsence typeAbsence) {
+        TypeAbsence enregistre = typeAbsenceRepository.save(typeAbsence);
+        rafraichir();
+        return enregistre;
+    }
+
+    public void deleteTypeAbsence(Integer id) {
+        typeAbsenceRepository.deleteById(id);
+        rafraichir();
+    }
+
+    public TypeLettrePastorale saveTypeLettrePastorale(TypeLettrePastorale typeLettre) {
+        TypeLettrePastorale enregistre = typeLettrePastoraleRepository.save(typeLettre);
+        rafraichir();
+        return enregistre;
+    }
+
+    public void deleteTypeLettrePastorale(Integer id) {
+        typeLettrePastoraleRepository.deleteById(id);
+        rafraichir();
+    }
+
+    public Poste savePoste(Poste poste) {
+        Poste enregistre = posteRepository.save(poste);
+        rafraichir();
+        return enregistre;
+    }
+
+    public void deletePoste(Long id) {
+        posteRepository.deleteById(id);
+        rafraichir();
+    }
+
+    // Copies détachées : aucune référence partagée avec un contexte de persistance ou un appelant
+
+    private static TypeAbsence copie(TypeAbsence type) {
+        return TypeAbsence.builder()
+                .id(type.getId())
+                .code(type.getCode())
+                .nom(type.getNom())
+                .estPaye(type.getEstPaye())
+                .necessiteJustificatif(type.getNecessiteJustificatif())
+                .plafondAnnuel(type.getPlafondAnnuel())
+                .couleur(type.getCouleur())
+                .description(type.getDescription())
+                .build();
+    }
+
+    private static TypeLettrePastorale copie(TypeLettrePastorale type) {
+        return TypeLettrePastorale.builder()
+                .id(type.getId())
+                .code(type.getCode())
+                .nom(type.getNom())
+                .niveauAutorite(type.getNiveauAutorite())
+                .validiteAnnees(type.getValiditeAnnees())
+                .build();
+    }
+
+    private static Poste copie(Poste poste) {
+        return new Poste(poste.getId(), poste.getNom(), poste.isActif());
+    }
+
+    private Instantane instantane() {
+        Instantane courant = instantane;
+        if (courant == null) {
+            // Appel avant ApplicationReadyEvent (initialisation, tests) : chargement à la demande
+            rafraichir();
+            courant = instantane;
+        }
+        return courant;
+    }
+}
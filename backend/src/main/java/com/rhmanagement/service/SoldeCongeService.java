@@ -0,0 +1,328 @@
+package com.rhmanagement.service;
+
+import com.rhmanagement.entity.DemandeConge;
+import com.rhmanagement.entity.Employe;
+import com.rhmanagement.entity.MouvementConge;
+import com.rhmanagement.entity.SoldeConge;
+import com.rhmanagement.repository.DemandeCongeRepository;
+import com.rhmanagement.repository.EmployeRepository;
+import com.rhmanagement.repository.MouvementCongeRepository;
+import com.rhmanagement.repository.SoldeCongeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Journal des congés : un solde par employé et par année, alimenté par des mouvements.
+ *
+ * Le solde est ouvert à la première utilisation de l'année (acquisition du droit annuel et report
+ * du reliquat de l'année précédente, elle-même ouverte au besoin). Chaque demande approuvée impute ses jours
+ * ouvrables ; l'annulation, le rejet ou la suppression d'une demande approuvée les restitue. Tout changement
+ * du disponible d'une année réajuste le report de l'année suivante.
+ * Les soldes d'un employé sont toujours verrouillés par année croissante.
+ * Un rapprochement nocturne compare le journal aux demandes approuvées.
+ */
+@Service
+public class SoldeCongeService {
+
+    private static final Logger log = LoggerFactory.getLogger(SoldeCongeService.class);
+
+    private static final int DROIT_ANNUEL_DEFAUT = 25;
+    // Plafond du reliquat reporté d'une année sur l'autre
+    private static final int REPORT_MAX = 90;
+
+    private final SoldeCongeRepository soldeCongeRepository;
+    private final MouvementCongeRepository mouvementCongeRepository;
+    private final DemandeCongeRepository demandeCongeRepository;
+    private final EmployeRepository employeRepository;
+    private final CalculJoursOuvrables calculJoursOuvrables;
+
+    public SoldeCongeService(SoldeCongeRepository soldeCongeRepository,
+                             MouvementCongeRepository mouvementCongeRepository,
+                             DemandeCongeRepository demandeCongeRepository,
+                             EmployeRepository employeRepository,
+                             CalculJoursOuvrables calculJoursOuvrables) {
+        this.soldeCongeRepository = soldeCongeRepository;
+        this.mouvementCongeRepository = mouvementCongeRepository;
+        this.demandeCongeRepository = demandeCongeRepository;
+        this.employeRepository = employeRepository;
+        this.calculJoursOuvrables = calculJoursOuvrables;
+    }
+
+    /**
+     * Solde de l'employé pour l'année (ouvert à la première lecture)
+     */
+    @Transactional
+    public SoldeConge getSolde(Long employeId, Integer annee) {
+        return soldeCongeRepository.findByEmployeIdAndAnnee(employeId, annee)
+                .orElseGet(() -> ouvrirSolde(employeId, annee));
+    }
+
+    @Transactional(readOnly = true)
+    public List<MouvementConge> getMouvements(Long employeId, Integer annee) {
+        return mouvementCongeRepository.findByEmployeIdAndAnneeOrderByDateMouvementAsc(employeId, annee);
+    }
+
+    /**
+     * Met le journal en accord avec l'état de la demande : ses jours sont imputés si elle est approuvée,
+     * restitués sinon. Idempotent : seul l'écart avec les mouvements déjà passés est enregistré.
+     */
+    @Transactional
+    public void appliquerDemande(DemandeConge demande) {
+        long joursAttendus = demande.getStatut() == DemandeConge.StatutDemande.APPROUVE
+                ? calculJoursOuvrables.joursOuvrables(demande.getDateDebut(), demande.getDateFin())
+                : 0;
+        imputer(demande, anneeDe(demande), joursAttendus);
+    }
+
+    /**
+     * Restitue les jours imputés par une demande supprimée
+     */
+    @Transactional
+    public void retirerDemande(DemandeConge demande) {
+        imputer(demande, anneeDe(demande), 0);
+    }
+
+    /**
+     * Rapprochement du journal avec les demandes approuvées de l'année.
+     * @param corriger si vrai, les demandes des employés en écart sont réimputées
+     * @return les écarts constatés (employeId, attendu, journal, solde)
+     */
+    @Transactional
+    public List<Map<String, Object>> rapprocher(Integer annee, boolean corriger) {
+        Map<Long, List<DemandeConge>> demandesParEmploye = new HashMap<>();
+        Map<Long, Long> attendus = new HashMap<>();
+        for (DemandeConge demande : demandeCongeRepository.findByAnneeAndStatut(annee, DemandeConge.StatutDemande.APPROUVE)) {
+            demandesParEmploye.computeIfAbsent(demande.getEmployeId(), id -> new ArrayList<>()).add(demande);
+            attendus.merge(demande.getEmployeId(),
+                    calculJoursOuvrables.joursOuvrables(demande.getDateDebut(), demande.getDateFin()), Long::sum);
+        }
+
+        Map<Long, Long> journal = new HashMap<>();
+        for (Object[] ligne : mouvementCongeRepository.joursPrisParEmploye(annee)) {
+            journal.put((Long) ligne[0], ((Number) ligne[1]).longValue());
+        }
+
+        Map<Long, Integer> soldes = new HashMap<>();
+        for (SoldeConge solde : soldeCongeRepository.findByAnnee(annee)) {
+            soldes.put(solde.getEmployeId(), solde.getJoursPris());
+        }
+
+        Set<Long> employes = new TreeSet<>(attendus.keySet());
+        employes.addAll(journal.keySet());
+        employes.addAll(soldes.keySet());
+
+        List<Map<String, Object>> ecarts = new ArrayList<>();
+        for (Long employeId : employes) {
+            long attendu = attendus.getOrDefault(employeId, 0L);
+            long impute = journal.getOrDefault(employeId, 0L);
+            Integer soldeJoursPris = soldes.get(employeId);
+            boolean soldeCoherent = soldeJoursPris == null ? impute == 0 : soldeJoursPris == impute;
+            if (attendu == impute && soldeCoherent) {
+                continue;
+            }
+            Map<String, Object> ecart = new HashMap<>();
+            ecart.put("employeId", employeId);
+            ecart.put("joursAttendus", attendu);
+            ecart.put("joursJournal", impute);
+            ecart.put("joursPrisSolde", soldeJoursPris);
+            ecarts.add(ecart);
+
+            if (corriger) {
+                try {
+                    corrigerEmploye(employeId, annee, demandesParEmploye.getOrDefault(employeId, List.of()));
+                } catch (RuntimeException e) {
+                    log.error("Correction du solde {} de l'employé {} impossible : {}", annee, employeId, e.getMessage());
+                }
+            }
+        }
+
+        if (!ecarts.isEmpty()) {
+            log.warn("Rapprochement des soldes {} : {} écart(s){}", annee, ecarts.size(), corriger ? " corrigé(s)" : "");
+        }
+        return ecarts;
+    }
+
+    /**
+     * Rapprochement nocturne de l'année en cours, sans correction automatique
+     */
+    @Scheduled(cron = "0 30 2 * * ?")
+    public void rapprochementPlanifie() {
+        rapprocher(LocalDate.now().getYear(), false);
+    }
+
+    private void corrigerEmploye(Long employeId, Integer annee, List<DemandeConge> demandesApprouvees) {
+        // Réimpute les demandes approuvées, puis restitue celles qui ne le sont plus
+        Set<Long> approuvees = new HashSet<>();
+        for (DemandeConge demande : demandesApprouvees) {
+            approuvees.add(demande.getId());
+            appliquerDemande(demande);
+        }
+        Set<Long> autres = new HashSet<>();
+        for (MouvementConge mouvement : mouvementCongeRepository.findByEmployeIdAndAnneeOrderByDateMouvementAsc(employeId, annee)) {
+            if (mouvement.getDemandeId() != null && !approuvees.contains(mouvement.getDemandeId())) {
+                autres.add(mouvement.getDemandeId());
+            }
+        }
+        for (Long demandeId : autres) {
+            demandeCongeRepository.findById(demandeId).ifPresentOrElse(this::appliquerDemande, () -> {
+                DemandeConge supprimee = DemandeConge.builder().id(demandeId).employeId(employeId).annee(annee).build();
+                imputer(supprimee, annee, 0);
+            });
+        }
+
+        // Le solde reprend la somme exacte de ses mouvements de prise et de restitution
+        SoldeConge solde = verrouiller(employeId, annee);
+        int joursPris = mouvementCongeRepository.findByEmployeIdAndAnneeOrderByDateMouvementAsc(employeId, annee).stream()
+                .filter(m -> m.getType() == MouvementConge.TypeMouvement.PRISE
+                        || m.getType() == MouvementConge.TypeMouvement.RESTITUTION)
+                .mapToInt(m -> -m.getJours())
+                .sum();
+        solde.setJoursPris(joursPris);
+        soldeCongeRepository.save(solde);
+        reporterSurAnneeSuivante(solde);
+    }
+
+    /**
+     * Enregistre les mouvements nécessaires pour que la demande impute exactement `joursAttendus`
+     * sur `annee` et rien sur les autres années
+     */
+    private void imputer(DemandeConge demande, Integer annee, long joursAttendus) {
+        // Ouvre (et verrouille) le solde avant de lire les mouvements : l'ouverture peut elle-même imputer la demande
+        verrouiller(demande.getEmployeId(), annee);
+
+        Map<Integer, Long> dejaImpute = new HashMap<>();
+        for (Object[] ligne : mouvementCongeRepository.sommeParAnneePourDemande(demande.getId())) {
+            // Les mouvements d'une demande sont négatifs (prise) : on les ramène en jours pris
+            dejaImpute.put((Integer) ligne[0], -((Number) ligne[1]).longValue());
+        }
+        dejaImpute.putIfAbsent(annee, 0L);
+
+        for (Map.Entry<Integer, Long> entree : dejaImpute.entrySet()) {
+            long cible = entree.getKey().equals(annee) ? joursAttendus : 0;
+            long ecart = cible - entree.getValue();
+            if (ecart != 0) {
+                mouvement(demande, entree.getKey(), ecart);
+            }
+        }
+    }
+
+    private void mouvement(DemandeConge demande, Integer annee, long joursPrisEnPlus) {
+        SoldeConge solde = verrouiller(demande.getEmployeId(), annee);
+        solde.setJoursPris((int) (solde.getJoursPris() + joursPrisEnPlus));
+        soldeCongeRepository.save(solde);
+        reporterSurAnneeSuivante(solde);
+
+        mouvementCongeRepository.save(MouvementConge.builder()
+                .employeId(demande.getEmployeId())
+                .annee(annee)
+                .type(joursPrisEnPlus > 0 ? MouvementConge.TypeMouvement.PRISE : MouvementConge.TypeMouvement.RESTITUTION)
+                .jours((int) -joursPrisEnPlus)
+                .demandeId(demande.getId())
+                .libelle((joursPrisEnPlus > 0 ? "Congé approuvé" : "Congé restitué") + " (demande " + demande.getId() + ")")
+                .build());
+    }
+
+    private SoldeConge verrouiller(Long employeId, Integer annee) {
+        return soldeCongeRepository.findPourMiseAJour(employeId, annee)
+                .orElseGet(() -> ouvrirSolde(employeId, annee));
+    }
+
+    /**
+     * Réajuste le report de l'année suivante (si son solde est ouvert) sur le disponible de `solde`,
+     * puis de proche en proche tant que le disponible change
+     */
+    private void reporterSurAnneeSuivante(SoldeConge solde) {
+        Optional<SoldeConge> suivant = soldeCongeRepository.findPourMiseAJour(solde.getEmployeId(), solde.getAnnee() + 1);
+        if (suivant.isEmpty()) {
+            return;
+        }
+        SoldeConge anneeSuivante = suivant.get();
+        int report = reportPlafonne(solde);
+        int ecart = report - anneeSuivante.getReport();
+        if (ecart == 0) {
+            return;
+        }
+        anneeSuivante.setReport(report);
+        soldeCongeRepository.save(anneeSuivante);
+        mouvementCongeRepository.save(MouvementConge.builder()
+                .employeId(solde.getEmployeId()).annee(anneeSuivante.getAnnee()).type(MouvementConge.TypeMouvement.REPORT)
+                .jours(ecart).libelle("Ajustement du report du reliquat " + solde.getAnnee()).build());
+        reporterSurAnneeSuivante(anneeSuivante);
+    }
+
+    /**
+     * Report de l'année précédente : son solde est ouvert au besoin, à partir du début de l'historique
+     * de l'employé (sa première demande de congé, et au plus tôt son année d'embauche)
+     */
+    private int reportDepuisAnneePrecedente(Employe employe, Integer annee) {
+        Integer premiereAnnee = demandeCongeRepository.findPremiereAnnee(employe.getId()).orElse(null);
+        if (premiereAnnee == null) {
+            return 0;
+        }
+        if (employe.getDateDebut() != null) {
+            premiereAnnee = Math.max(premiereAnnee, employe.getDateDebut().getYear());
+        }
+        if (annee - 1 < premiereAnnee) {
+            return 0;
+        }
+        return reportPlafonne(verrouiller(employe.getId(), annee - 1));
+    }
+
+    private static int reportPlafonne(SoldeConge precedent) {
+        return Math.max(0, Math.min(precedent.getDisponible(), REPORT_MAX));
+    }
+
+    /**
+     * Crée le solde de l'année : acquisition du droit annuel, report plafonné du reliquat
+     * de l'année précédente, puis imputation des demandes déjà approuvées (données antérieures au journal).
+     * Sans risque en concurrence : si une autre transaction l'a créé entre-temps, son solde est repris tel quel.
+     */
+    private SoldeConge ouvrirSolde(Long employeId, Integer annee) {
+        Employe employe = employeRepository.findById(employeId)
+                .orElseThrow(() -> new RuntimeException("Employé non trouvé"));
+        int droitAnnuel = employe.getSoldeCongeAnnuel() != null ? employe.getSoldeCongeAnnuel() : DROIT_ANNUEL_DEFAUT;
+        int report = reportDepuisAnneePrecedente(employe, annee);
+
+        boolean cree = soldeCongeRepository.creerSiAbsent(employeId, annee, droitAnnuel, report, LocalDateTime.now()) == 1;
+        SoldeConge solde = soldeCongeRepository.findPourMiseAJour(employeId, annee)
+                .orElseThrow(() -> new RuntimeException("Solde de congé introuvable après ouverture"));
+        if (!cree) {
+            return solde;
+        }
+
+        mouvementCongeRepository.save(MouvementConge.builder()
+                .employeId(employeId).annee(annee).type(MouvementConge.TypeMouvement.ACQUISITION)
+                .jours(droitAnnuel).libelle("Droit annuel " + annee).build());
+        if (report > 0) {
+            mouvementCongeRepository.save(MouvementConge.builder()
+                    .employeId(employeId).annee(annee).type(MouvementConge.TypeMouvement.REPORT)
+                    .jours(report).libelle("Report du reliquat " + (annee - 1)).build());
+        }
+
+        for (DemandeConge demande : demandeCongeRepository.findByEmployeIdAndAnneeAndStatut(
+                employeId, annee, DemandeConge.StatutDemande.APPROUVE)) {
+            long jours = calculJoursOuvrables.joursOuvrables(demande.getDateDebut(), demande.getDateFin());
+            if (jours > 0 && mouvementCongeRepository.sommeParAnneePourDemande(demande.getId()).isEmpty()) {
+                solde.setJoursPris((int) (solde.getJoursPris() + jours));
+                mouvementCongeRepository.save(MouvementConge.builder()
+                        .employeId(employeId).annee(annee).type(MouvementConge.TypeMouvement.PRISE)
+                        .jours((int) -jours).demandeId(demande.getId())
+                        .libelle("Congé approuvé (demande " + demande.getId() + ")").build());
+            }
+        }
+        solde = soldeCongeRepository.save(solde);
+        reporterSurAnneeSuivante(solde);
+        return solde;
+    }
+
+    private static Integer anneeDe(DemandeConge demande) {
+        return demande.getAnnee() != null ? demande.getAnnee() : demande.getDateDebut().getYear();
+    }
+}
@@ -0,0 +1,188 @@
+package com.rhmanagement.service;
+
+import com.rhmanagement.entity.Absence;
+import com.rhmanagement.entity.DemandeConge;
+import com.rhmanagement.entity.TypeAbsence;
+import com.rhmanagement.event.AbsenceModifieeEvent;
+import com.rhmanagement.event.DemandeCongeModifieeEvent;
+import com.rhmanagement.event.DemandesCongeDecideesEvent;
+import com.rhmanagement.repository.AbsenceRepository;
+import com.rhmanagement.repository.DemandeCongeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Statistiques annuelles des demandes de congé et des absences (par statut, et par type d'absence).
+ *
+ * Chaque année est agrégée en base à sa première consultation puis gardée en mémoire : les années closes
+ * ne sont plus jamais recalculées. Les changements de statut, créations et suppressions sont ensuite
+ * répercutés par différence à partir des événements (ancien statut / nouveau statut, ancienne / nouvelle année).
+ * L'année en cours et la précédente sont recalculées chaque nuit pour rattraper un éventuel écart.
+ */
+@Service
+public class StatistiquesAnnuellesService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatistiquesAnnuellesService.class);
+
+    private final DemandeCongeRepository demandeCongeRepository;
+    private final AbsenceRepository absenceRepository;
+    private final ReferenceDataService referenceDataService;
+
+    /**
+     * Compteurs d'une année ; jamais modifiés une fois publiés (remplacés par une copie à chaque événement)
+     */
+    private record StatistiquesAnnee(Map<DemandeConge.StatutDemande, Long> demandesParStatut,
+                                     Map<Absence.StatutAbsence, Long> absencesParStatut,
+                                     Map<Integer, Long> absencesParType) {
+    }
+
+    private final Map<Integer, StatistiquesAnnee> parAnnee = new ConcurrentHashMap<>();
+
+    public StatistiquesAnnuellesService(DemandeCongeRepository demandeCongeRepository,
+                                        AbsenceRepository absenceRepository,
+                                        ReferenceDataService referenceDataService) {
+        this.demandeCongeRepository = demandeCongeRepository;
+        this.absenceRepository = absenceRepository;
+        this.referenceDataService = referenceDataService;
+    }
+
+    public Map<String, Long> getStatistiquesDemandes(Integer annee) {
+        Map<String, Long> result = new HashMap<>();
+        obtenir(annee).demandesParStatut().forEach((statut, nombre) -> result.put(statut.name(), nombre));
+        return result;
+    }
+
+    public Map<String, Long> getStatistiquesAbsences(Integer annee) {
+        Map<String, Long> result = new HashMap<>();
+        obtenir(annee).absencesParStatut().forEach((statut, nombre) -> result.put(statut.name(), nombre));
+        return result;
+    }
+
+    /**
+     * Nombre d'absences par nom de type (les absences dont le type n'existe plus sont ignorées)
+     */
+    public Map<String, Long> getStatistiquesAbsencesParType(Integer annee) {
+        Map<String, Long> result = new HashMap<>();
+        obtenir(annee).absencesParType().forEach((typeId, nombre) -> {
+            Optional<TypeAbsence> type = referenceDataService.getTypeAbsence(typeId);
+            if (type.isPresent() && nombre > 0) {
+                result.merge(type.get().getNom(), nombre, Long::sum);
+            }
+        });
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onDemandeCongeModifiee(DemandeCongeModifieeEvent event) {
+        if (event.getAncienStatut() != null) {
+            appliquer(event.getAncienneAnnee(), stats -> ajouter(stats.demandesParStatut(), event.getAncienStatut(), -1));
+        }
+        if (event.getStatut() != null) {
+            appliquer(event.getAnnee(), stats -> ajouter(stats.demandesParStatut(), event.getStatut(), 1));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onDemandesCongeDecidees(DemandesCongeDecideesEvent event) {
+        event.getModifications().forEach(this::onDemandeCongeModifiee);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onAbsenceModifiee(AbsenceModifieeEvent event) {
+        if (event.getAncienStatut() != null) {
+            appliquer(event.getAncienneAnnee(), stats -> {
+                ajouter(stats.absencesParStatut(), event.getAncienStatut(), -1);
+                ajouter(stats.absencesParType(), event.getAncienTypeAbsenceId(), -1);
+            });
+        }
+        if (event.getStatut() != null) {
+            appliquer(event.getAnnee(), stats -> {
+                ajouter(stats.absencesParStatut(), event.getStatut(), 1);
+                ajouter(stats.absencesParType(), event.getTypeAbsenceId(), 1);
+            });
+        }
+    }
+
+    /**
+     * Recalcule chaque nuit l'année en cours et la précédente (demandes tardives de début d'année)
+     */
+    @Scheduled(cron = "0 30 0 * * ?")
+    public synchronized void rafraichirAnneesOuvertes() {
+        int anneeCourante = LocalDate.now().getYear();
+        for (Integer annee : new ArrayList<>(parAnnee.keySet())) {
+            if (annee >= anneeCourante - 1) {
+                parAnnee.put(annee, calculer(annee));
+            }
+        }
+        log.info("Statistiques annuelles : {} année(s) en mémoire, années ouvertes recalculées", parAnnee.size());
+    }
+
+    private StatistiquesAnnee obtenir(Integer annee) {
+        StatistiquesAnnee stats = parAnnee.get(annee);
+        if (stats != null) {
+            return stats;
+        }
+        synchronized (this) {
+            return parAnnee.computeIfAbsent(annee, this::calculer);
+        }
+    }
+
+    private StatistiquesAnnee calculer(Integer annee) {
+        Map<DemandeConge.StatutDemande, Long> demandes = new EnumMap<>(DemandeConge.StatutDemande.class);
+        for (DemandeConge.StatutDemande statut : DemandeConge.StatutDemande.values()) {
+            demandes.put(statut, 0L);
+        }
+        for (Object[] stat : demandeCongeRepository.countDemandesByStatutAndAnnee(annee)) {
+            demandes.put((DemandeConge.StatutDemande) stat[0], (Long) stat[1]);
+        }
+
+        Map<Absence.StatutAbsence, Long> absences = new EnumMap<>(Absence.StatutAbsence.class);
+        for (Absence.StatutAbsence statut : Absence.StatutAbsence.values()) {
+            absences.put(statut, 0L);
+        }
+        for (Object[] stat : absenceRepository.countAbsencesByStatutAndAnnee(annee)) {
+            absences.put((Absence.StatutAbsence) stat[0], (Long) stat[1]);
+        }
+
+        Map<Integer, Long> types = new HashMap<>();
+        for (Object[] stat : absenceRepository.countAbsencesByTypeIdAndAnnee(annee)) {
+            types.put((Integer) stat[0], (Long) stat[1]);
+        }
+
+        return new StatistiquesAnnee(Collections.unmodifiableMap(demandes),
+                Collections.unmodifiableMap(absences), Collections.unmodifiableMap(types));
+    }
+
+    /**
+     * Applique une modification à une copie des compteurs de l'année, si l'année est en mémoire
+     * (sinon elle sera agrégée à jour à sa première consultation)
+     */
+    private void appliquer(Integer annee, Consumer<StatistiquesAnnee> modification) {
+        StatistiquesAnnee actuelles = annee != null ? parAnnee.get(annee) : null;
+        if (actuelles == null) {
+            return;
+        }
+        StatistiquesAnnee copie = new StatistiquesAnnee(
+                new EnumMap<>(actuelles.demandesParStatut()),
+                new EnumMap<>(actuelles.absencesParStatut()),
+                new HashMap<>(actuelles.absencesParType()));
+        modification.accept(copie);
+        parAnnee.put(annee, new StatistiquesAnnee(Collections.unmodifiableMap(copie.demandesParStatut()),
+                Collections.unmodifiableMap(copie.absencesParStatut()),
+                Collections.unmodifiableMap(copie.absencesParType())));
+    }
+
+    private static <K> void ajouter(Map<K, Long> compteurs, K cle, long delta) {
+        if (cle != null) {
+            compteurs.merge(cle, delta, Long::sum);
+        }
+    }
+}
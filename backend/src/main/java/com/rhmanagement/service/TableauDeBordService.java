@@ -0,0 +1,147 @@
+package com.rhmanagement.service;
+
+import com.rhmanagement.entity.Employe;
+import com.rhmanagement.event.AbsenceModifieeEvent;
+import com.rhmanagement.event.DemandeCongeModifieeEvent;
+import com.rhmanagement.event.DemandesCongeDecideesEvent;
+import com.rhmanagement.event.EmployeModifieEvent;
+import com.rhmanagement.repository.EmployeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistiques du tableau de bord d'administration, calculées en deux requêtes agrégées
+ * (effectifs par statut et poste, compteurs globaux sur une ligne toujours présente).
+ *
+ * Le résultat est gardé en cache quelques secondes : les utilisateurs qui interrogent le tableau de bord
+ * en même temps partagent le même calcul (un seul calcul en cours à la fois). Toute modification d'un employé,
+ * d'une demande de congé ou d'une absence invalide le cache.
+ */
+@Service
+public class TableauDeBordService {
+
+    private final EmployeRepository employeRepository;
+    private final long dureeValiditeMs;
+
+    /**
+     * Incrémentée à chaque invalidation : un calcul commencé avant une modification n'est pas servi après elle
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private record Instantane(Map<String, Object> statistiques, LocalDate date, long generation, long expiration) {
+    }
+
+    private volatile Instantane instantane;
+
+    public TableauDeBordService(EmployeRepository employeRepository,
+                                @Value("${app.tableau-de-bord.ttl-secondes:15}") long ttlSecondes) {
+        this.employeRepository = employeRepository;
+        this.dureeValiditeMs = ttlSecondes * 1000;
+    }
+
+    public Map<String, Object> getStatistiques() {
+        Instantane courant = instantane;
+        if (estValide(courant)) {
+            return courant.statistiques();
+        }
+        synchronized (this) {
+            courant = instantane;
+            if (estValide(courant)) {
+                return courant.statistiques();
+            }
+            long generationCalcul = generation.get();
+            LocalDate aujourdhui = LocalDate.now();
+            Map<String, Object> statistiques = calculer(aujourdhui);
+            instantane = new Instantane(statistiques, aujourdhui, generationCalcul,
+                    System.currentTimeMillis() + dureeValiditeMs);
+            return statistiques;
+        }
+    }
+
+    public void invalider() {
+        generation.incrementAndGet();
+        instantane = null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeModifie(EmployeModifieEvent event) {
+        invalider();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDemandeCongeModifiee(DemandeCongeModifieeEvent event) {
+        invalider();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDemandesCongeDecidees(DemandesCongeDecideesEvent event) {
+        invalider();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAbsenceModifiee(AbsenceModifieeEvent event) {
+        invalider();
+    }
+
+    private boolean estValide(Instantane courant) {
+        return courant != null
+                && courant.generation() == generation.get()
+                && courant.expiration() > System.currentTimeMillis()
+                && courant.date().equals(LocalDate.now());
+    }
+
+    private Map<String, Object> calculer(LocalDate aujourdhui) {
+        List<Object[]> lignes = employeRepository.effectifsTableauDeBord();
+
+        Map<String, Long> parStatut = new LinkedHashMap<>();
+        for (Employe.StatutEmploye statut : Employe.StatutEmploye.values()) {
+            parStatut.put(statut.name(), 0L);
+        }
+        Map<String, Long> parPoste = new LinkedHashMap<>();
+        for (Employe.Poste poste : Employe.Poste.values()) {
+            parPoste.put(poste.name(), 0L);
+        }
+
+        long total = 0;
+        for (Object[] ligne : lignes) {
+            long effectif = ((Number) ligne[2]).longValue();
+            total += effectif;
+            parStatut.merge(ligne[0] != null ? ((Employe.StatutEmploye) ligne[0]).name() : "NON_RENSEIGNE", effectif, Long::sum);
+            parPoste.merge(ligne[1] != null ? ((Employe.Poste) ligne[1]).name() : "NON_RENSEIGNE", effectif, Long::sum);
+        }
+
+        Object[] compteurs = employeRepository.compteursTableauDeBord(aujourdhui).get(0);
+        long demandesEnAttente = ((Number) compteurs[0]).longValue();
+        long congesActifs = ((Number) compteurs[1]).longValue();
+        long absencesAujourdhui = ((Number) compteurs[2]).longValue();
+        long enCongeSansConge = ((Number) compteurs[3]).longValue();
+        long actifAvecConge = ((Number) compteurs[4]).longValue();
+
+        long incoherences = enCongeSansConge + actifAvecConge;
+        double coherencePercent = total > 0 ? ((double) (total - incoherences) / total) * 100 : 100.0;
+
+        Map<String, Long> incoherencesParType = new LinkedHashMap<>();
+        incoherencesParType.put(IncoherenceStatutService.TypeIncoherence.EN_CONGE_SANS_CONGE.name(), enCongeSansConge);
+        incoherencesParType.put(IncoherenceStatutService.TypeIncoherence.ACTIF_AVEC_CONGE.name(), actifAvecConge);
+
+        Map<String, Object> statistiques = new LinkedHashMap<>();
+        statistiques.put("totalEmployes", total);
+        statistiques.put("employesEnConge", parStatut.get(Employe.StatutEmploye.EN_CONGE.name()));
+        statistiques.put("employesParStatut", Collections.unmodifiableMap(parStatut));
+        statistiques.put("employesParPoste", Collections.unmodifiableMap(parPoste));
+        statistiques.put("congesActifs", congesActifs);
+        statistiques.put("demandesEnAttente", demandesEnAttente);
+        statistiques.put("absencesAujourdhui", absencesAujourdhui);
+        statistiques.put("incoherences", incoherences);
+        statistiques.put("incoherencesParType", Collections.unmodifiableMap(incoherencesParType));
+        statistiques.put("coherencePercent", Math.round(coherencePercent * 10.0) / 10.0);
+        statistiques.put("calculeLe", LocalDateTime.now());
+        return Collections.unmodifiableMap(statistiques);
+    }
+}
@@ -0,0 +1,78 @@
+package com.rhmanagement.backend;
+
+import com.rhmanagement.entity.DemandeConge;
+import com.rhmanagement.entity.Employe;
+import com.rhmanagement.event.DemandeCongeModifieeEvent;
+import com.rhmanagement.repository.DemandeCongeRepository;
+import com.rhmanagement.repository.EmployeRepository;
+import com.rhmanagement.service.CongeStatusService;
+import com.rhmanagement.service.IndexPeriodesConge;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statut-conge;MODE=MySQL",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never"
+})
+@Import({CongeStatusService.class, IndexPeriodesConge.class})
+// Transactions réelles : les écouteurs de congé ne s'exécutent qu'après un commit
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CongeStatusServiceTest {
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Autowired
+    private DemandeCongeRepository demandeCongeRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void statutEnregistreApresApprobationPuisAnnulation() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        LocalDate aujourdhui = LocalDate.now();
+
+        Employe employe = new Employe();
+        employe.setMatricule("EMP000001");
+        employe.setNom("Rakotoarisoa");
+        employe.setPrenom("Hery");
+        employe.setDateNaissance(LocalDate.of(1980, 1, 1));
+        employe.setPoste(Employe.Poste.PASTEUR_CONSACRE);
+        Long employeId = employeRepository.save(employe).getId();
+
+        DemandeConge demande = transaction.execute(statut -> {
+            DemandeConge conge = demandeCongeRepository.save(DemandeConge.builder()
+                    .employeId(employeId).typeConge("CONGE_ANNUEL")
+                    .dateDebut(aujourdhui.minusDays(1)).dateFin(aujourdhui.plusDays(5))
+                    .statut(DemandeConge.StatutDemande.APPROUVE).build());
+            eventPublisher.publishEvent(DemandeCongeModifieeEvent.of(conge, DemandeConge.StatutDemande.EN_ATTENTE));
+            return conge;
+        });
+        assertEquals(Employe.StatutEmploye.EN_CONGE, employeRepository.findById(employeId).orElseThrow().getStatut());
+
+        transaction.executeWithoutResult(statut -> {
+            DemandeConge conge = demandeCongeRepository.findById(demande.getId()).orElseThrow();
+            conge.setStatut(DemandeConge.StatutDemande.ANNULE);
+            demandeCongeRepository.save(conge);
+            eventPublisher.publishEvent(DemandeCongeModifieeEvent.of(conge, DemandeConge.StatutDemande.APPROUVE));
+        });
+        assertEquals(Employe.StatutEmploye.ACTIF, employeRepository.findById(employeId).orElseThrow().getStatut());
+    }
+}
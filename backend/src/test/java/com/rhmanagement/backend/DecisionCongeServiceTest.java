@@ -0,0 +1,70 @@
+package com.rhmanagement.backend;
+
+import com.rhmanagement.dto.DecisionLotDTO;
+import com.rhmanagement.entity.DemandeConge;
+import com.rhmanagement.repository.DemandeCongeRepository;
+import com.rhmanagement.service.DecisionCongeService;
+import com.rhmanagement.service.SoldeCongeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:decision-conge;MODE=MySQL",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never"
+})
+@Import(DecisionCongeService.class)
+// Transactions réelles : chaque demande du lot est validée dans sa propre transaction
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DecisionCongeServiceTest {
+
+    @Autowired
+    private DecisionCongeService decisionCongeService;
+
+    @Autowired
+    private DemandeCongeRepository demandeCongeRepository;
+
+    @MockitoBean
+    private SoldeCongeService soldeCongeService;
+
+    @Test
+    void unVerrouExpireNAnnulePasLesAutresDecisionsDuLot() {
+        LocalDate debut = LocalDate.now().plusDays(10);
+        Long acceptee = enAttente(1L, debut).getId();
+        Long bloquee = enAttente(2L, debut).getId();
+        doThrow(new CannotAcquireLockException("Lock wait timeout exceeded"))
+                .when(soldeCongeService).appliquerDemande(argThat(demande -> demande.getId().equals(bloquee)));
+
+        List<Map<String, Object>> resultats = decisionCongeService.deciderEnLot(DecisionLotDTO.builder()
+                .ids(List.of(bloquee, acceptee))
+                .decision(DecisionLotDTO.Decision.APPROUVER)
+                .build(), 99L);
+
+        assertEquals(false, resultats.get(0).get("success"));
+        assertEquals(true, resultats.get(1).get("success"));
+        assertEquals(DemandeConge.StatutDemande.EN_ATTENTE, demandeCongeRepository.findById(bloquee).orElseThrow().getStatut());
+        assertEquals(DemandeConge.StatutDemande.APPROUVE, demandeCongeRepository.findById(acceptee).orElseThrow().getStatut());
+    }
+
+    private DemandeConge enAttente(Long employeId, LocalDate debut) {
+        return demandeCongeRepository.save(DemandeConge.builder()
+                .employeId(employeId).typeConge("CONGE_ANNUEL")
+                .dateDebut(debut).dateFin(debut.plusDays(2)).annee(debut.getYear())
+                .statut(DemandeConge.StatutDemande.EN_ATTENTE).build());
+    }
+}
@@ -0,0 +1,79 @@
+package com.rhmanagement.backend;
+
+import com.rhmanagement.dto.DossierEmployeDTO;
+import com.rhmanagement.entity.*;
+import com.rhmanagement.service.DossierEmployeService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dossier;MODE=MySQL",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.sql.init.mode=never"
+})
+@Import(DossierEmployeService.class)
+class DossierEmployeServiceTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private DossierEmployeService dossierEmployeService;
+
+    @Test
+    void dossierChargeEnNombreBorneDeRequetes() {
+        Employe employe = new Employe();
+        employe.setMatricule("EMP000001");
+        employe.setNom("Rakotoarisoa");
+        employe.setPrenom("Hery");
+        employe.setDateNaissance(LocalDate.of(1980, 1, 1));
+        employe.setPoste(Employe.Poste.PASTEUR_CONSACRE);
+        entityManager.persist(employe);
+
+        for (int i = 0; i < 3; i++) {
+            entityManager.persist(Enfant.builder().nom("Enfant " + i).employe(employe).build());
+            entityManager.persist(Diplome.builder().typeDiplome(Diplome.TypeDiplome.LICENCE)
+                    .intitule("Diplôme " + i).employe(employe).build());
+            entityManager.persist(HistoriquePoste.builder().poste("Poste " + i).organisation("FMTA")
+                    .dateDebut(LocalDate.of(2000 + i, 1, 1)).employeId(employe.getId()).build());
+            entityManager.persist(Competence.builder().nom("Compétence " + i)
+                    .niveau(Competence.Niveau.AVANCE).employe(employe).build());
+            entityManager.persist(Formation.builder().intitule("Formation " + i)
+                    .dateDebut(LocalDate.of(2010 + i, 1, 1)).employe(employe).build());
+            entityManager.persist(Document.builder().nom("Document " + i).typeDocument(Document.TypeDocument.AUTRE)
+                    .cheminFichier("uploads/doc" + i).employe(employe).build());
+            entityManager.persist(AffectationPastorale.builder().district("District " + i)
+                    .dateDebut(LocalDate.of(2015 + i, 1, 1)).fonction(AffectationPastorale.Fonction.EVANGELISTE)
+                    .pasteur(employe).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistiques = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistiques.clear();
+
+        DossierEmployeDTO dossier = dossierEmployeService.getDossier(employe.getId()).orElseThrow();
+
+        // La fiche + une requête par collection, indépendamment du nombre d'éléments
+        assertEquals(8, statistiques.getPrepareStatementCount());
+        assertEquals(3, dossier.getEnfants().size());
+        assertEquals(3, dossier.getDiplomes().size());
+        assertEquals(3, dossier.getHistoriquePostes().size());
+        assertEquals(3, dossier.getCompetences().size());
+        assertEquals(3, dossier.getFormations().size());
+        assertEquals(3, dossier.getDocuments().size());
+        assertEquals(3, dossier.getAffectationsPastorales().size());
+    }
+}
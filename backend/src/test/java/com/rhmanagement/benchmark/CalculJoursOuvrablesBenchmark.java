@@ -0,0 +1,69 @@
+package com.rhmanagement.benchmark;
+
+import com.rhmanagement.config.JoursFeriesProperties;
+import com.rhmanagement.service.CalculJoursOuvrables;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare l'ancien calcul jour par jour (sans jours fériés) au calcul arithmétique.
+ * Lancement : exécuter main() depuis l'IDE, ou
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.rhmanagement.benchmark.CalculJoursOuvrablesBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CalculJoursOuvrablesBenchmark {
+
+    // Durée de la demande en jours calendaires : congé court, congé annuel, congé longue durée
+    @Param({"5", "30", "365"})
+    private int duree;
+
+    private LocalDate debut;
+    private LocalDate fin;
+    private CalculJoursOuvrables calcul;
+
+    @Setup
+    public void preparer() {
+        debut = LocalDate.of(2025, 3, 3);
+        fin = debut.plusDays(duree - 1);
+        calcul = new CalculJoursOuvrables(new JoursFeriesProperties());
+        calcul.joursOuvrables(debut, fin);
+    }
+
+    @Benchmark
+    public long boucleJourParJour() {
+        long joursOuvrables = 0;
+        LocalDate courant = debut;
+        while (!courant.isAfter(fin)) {
+            DayOfWeek jour = courant.getDayOfWeek();
+            if (jour != DayOfWeek.SATURDAY && jour != DayOfWeek.SUNDAY) {
+                joursOuvrables++;
+            }
+            courant = courant.plusDays(1);
+        }
+        return joursOuvrables;
+    }
+
+    @Benchmark
+    public long calculArithmetique() {
+        return calcul.joursOuvrables(debut, fin);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CalculJoursOuvrablesBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,137 @@
+package com.rhmanagement.benchmark;
+
+import com.lowagie.text.*;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import com.rhmanagement.entity.Employe;
+import com.rhmanagement.entity.HistoriquePoste;
+import com.rhmanagement.service.MiniaturePhotoService;
+import com.rhmanagement.service.MoteurRenduPdf;
+import com.rhmanagement.service.PdfExportService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare le rendu d'un état de service à l'ancienne (police résolue par FontFactory à chaque cellule,
+ * nouveau ByteArrayOutputStream puis copie par document) au rendu par le moteur partagé
+ * (polices préchargées, gabarits, tampons réutilisés).
+ * Le profileur GC donne l'allocation par document (gc.alloc.rate.norm).
+ * Lancement : exécuter main() depuis l'IDE, ou
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.rhmanagement.benchmark.RenduPdfBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RenduPdfBenchmark {
+
+    // Nombre de lignes d'historique : carrière courte, carrière longue
+    @Param({"10", "200"})
+    private int lignes;
+
+    private Employe employe;
+    private List<HistoriquePoste> historique;
+    private MoteurRenduPdf moteur;
+    private PdfExportService pdfExportService;
+
+    @Setup
+    public void preparer() {
+        employe = Employe.builder()
+                .id(1L).matricule("M0001").nom("Rakotomalala").prenom("Hery")
+                .poste(Employe.Poste.PASTEUR_CONSACRE)
+                .build();
+        historique = new ArrayList<>(lignes);
+        LocalDate debut = LocalDate.of(1990, 1, 1);
+        for (int i = 0; i < lignes; i++) {
+            historique.add(HistoriquePoste.builder()
+                    .poste(i % 2 == 0 ? "PASTEUR_AUTORISE" : "PASTEUR_CONSACRE")
+                    .organisation("Fédération du Centre")
+                    .dateDebut(debut.plusMonths(i * 2L))
+                    .dateFin(debut.plusMonths(i * 2L + 2).minusDays(1))
+                    .salairePleinTemps(new BigDecimal("450000"))
+                    .pourcentageSalaire(new BigDecimal("80"))
+                    .salaireBase100(new BigDecimal("560000"))
+                    .build());
+        }
+        moteur = new MoteurRenduPdf();
+        pdfExportService = new PdfExportService(moteur, new MiniaturePhotoService("uploads", 1));
+    }
+
+    @Benchmark
+    public byte[] ancienRendu() throws DocumentException {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document(PageSize.A4.rotate());
+        PdfWriter.getInstance(document, out);
+        document.open();
+
+        Paragraph title = new Paragraph("ÉTAT DE SERVICE ANNUEL", FontFactory.getFont(FontFactory.HELVETICA_BOLD, 16));
+        title.setAlignment(Element.ALIGN_CENTER);
+        title.setSpacingAfter(20);
+        document.add(title);
+        Font infoFont = FontFactory.getFont(FontFactory.HELVETICA, 12);
+        document.add(new Paragraph("Nom : " + employe.getPrenom() + " " + employe.getNom(), infoFont));
+        document.add(new Paragraph("Matricule : " + employe.getMatricule(), infoFont));
+
+        PdfPTable table = new PdfPTable(11);
+        table.setWidthPercentage(100);
+        for (int i = 0; i < 11; i++) {
+            table.addCell(new PdfPCell(new Phrase("En-tête " + i, FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10))));
+        }
+        for (HistoriquePoste poste : historique) {
+            table.addCell(ancienneCellule(String.valueOf(poste.getDateDebut().getYear())));
+            table.addCell(ancienneCellule(poste.getPoste()));
+            table.addCell(ancienneCellule(poste.getOrganisation()));
+            table.addCell(ancienneCellule(poste.getDateDebut().format(formatter)));
+            table.addCell(ancienneCellule(poste.getDateFin().format(formatter)));
+            table.addCell(ancienneCellule(String.format("%,.0f MGA", poste.getSalairePleinTemps().doubleValue())));
+            table.addCell(ancienneCellule(String.format("%,.0f MGA", poste.getSalairePleinTemps().doubleValue() * 0.8)));
+            table.addCell(ancienneCellule(String.format("%,.0f MGA", poste.getSalairePleinTemps().doubleValue() * 0.8 / 173.33)));
+            table.addCell(ancienneCellule(poste.getPourcentageSalaire() + "%"));
+            table.addCell(ancienneCellule(String.format("%,.0f MGA", poste.getSalaireBase100().doubleValue())));
+            table.addCell(ancienneCellule(""));
+        }
+        document.add(table);
+        document.close();
+        return out.toByteArray();
+    }
+
+    private static PdfPCell ancienneCellule(String contenu) {
+        PdfPCell cell = new PdfPCell(new Phrase(contenu, FontFactory.getFont(FontFactory.HELVETICA, 9)));
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+        cell.setPadding(3);
+        return cell;
+    }
+
+    @Benchmark
+    public int moteurPartage() {
+        try (MoteurRenduPdf.TamponPdf pdf = moteur.enMemoire(
+                out -> pdfExportService.ecrireEtatServicePdf(employe, historique, out))) {
+            return pdf.size();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RenduPdfBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -122,7 +122,7 @@ const AbsenceForm: React.FC<AbsenceFormProps> = ({ onClose, onSave, absence }) =
             };
 
             if (absence) {
-                await absenceService.updateAbsence(absence.id, requestData);
+                await absenceService.updateAbsence(absence.id, { ...requestData, version: absence.version });
             } else {
                 await absenceService.createAbsence(requestData);
             }
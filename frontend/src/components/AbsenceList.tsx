@@ -179,7 +179,7 @@ const AbsenceList: React.FC<AbsenceListProps> = ({}) => {
                                         <div className="flex items-center">
                                             {absence.employe?.photoProfil ? (
                                                 <img
-                                                    src={`http://localhost:8080/uploads/${absence.employe.photoProfil}`}
+                                                    src={`http://localhost:8080/uploads/miniatures/avatar/${absence.employe.photoProfil}`}
                                                     alt={`${absence.employe.prenom} ${absence.employe.nom}`}
                                                     className="w-8 h-8 rounded-full object-cover mr-3"
                                                 />
@@ -271,7 +271,7 @@ const CarrierePastoralePage: React.FC = () => {
                                     <div className="relative mb-4">
                                         {employe.photoProfil ? (
                                             <img
-                                                src={`http://localhost:8080/uploads/${employe.photoProfil}`}
+                                                src={`http://localhost:8080/uploads/miniatures/avatar/${employe.photoProfil}`}
                                                 alt={`${employe.prenom} ${employe.nom}`}
                                                 className="h-20 w-20 rounded-full object-cover border-4 border-white shadow-lg"
                                             />
@@ -342,7 +342,7 @@ const CarrierePastoralePage: React.FC = () => {
                                 {/* Photo */}
                                 {employe.photoProfil ? (
                                     <img
-                                        src={`http://localhost:8080/uploads/${employe.photoProfil}`}
+                                        src={`http://localhost:8080/uploads/miniatures/avatar/${employe.photoProfil}`}
                                         alt={`${employe.prenom} ${employe.nom}`}
                                         className="h-14 w-14 rounded-full object-cover mr-5 border-2 border-white shadow-sm"
                                     />
@@ -261,30 +261,14 @@ const DemandeCongeForm: React.FC<DemandeCongeFormProps> = ({
                 typeConge: formData.typeConge,
                 dateDebut: new Date(formData.dateDebut).toISOString(),
                 dateFin: new Date(formData.dateFin).toISOString(),
-                motif: formData.motif,
-                statut: formData.statut
+                motif: formData.motif
             };
 
             if (mode === 'create') {
-                await demandeCongeService.createDemandeConge(requestData);
+                await demandeCongeService.createDemandeConge({ ...requestData, statut: formData.statut });
             } else if (mode === 'edit' && demande?.id) {
-                await demandeCongeService.updateDemandeConge(demande.id, requestData);
-            }
-
-            // Mettre à jour le statut de l'employé si la demande est approuvée
-            if (formData.statut === 'APPROUVE') {
-                try {
-                    await employeService.updateEmploye(parseInt(formData.employeId), {
-                        statut: 'EN_CONGE'
-                    });
-
-                    // Afficher une notification
-                    alert(`Le statut de l'employé a été mis à jour: EN CONGÉ`);
-                } catch (employeError) {
-                    console.error('Erreur lors de la mise à jour du statut employé:', employeError);
-                    // Ne pas bloquer le processus principal pour cette erreur
-                    setError('Demande sauvegardée mais erreur lors de la mise à jour du statut employé');
-                }
+                // Le statut se change par les boutons approuver / rejeter / annuler, pas par ce formulaire
+                await demandeCongeService.updateDemandeConge(demande.id, { ...requestData, version: demande.version });
             }
 
             onSave();
@@ -635,14 +619,17 @@ const DemandeCongeForm: React.FC<DemandeCongeFormProps> = ({
                                         id="statut"
                                         name="statut"
                                         value={formData.statut}
-                                        onChange={handleChange}
-                                        className="mt-1 block w-full px-3 py-2 border border-gray-300 rounded-md shadow-sm focus:outline-none focus:ring-blue-500 focus:border-blue-500"
+                                        disabled
+                                        className="mt-1 block w-full px-3 py-2 border border-gray-300 rounded-md shadow-sm bg-gray-100 text-gray-500"
                                     >
                                         <option value="EN_ATTENTE">En attente</option>
                                         <option value="APPROUVE">Approuvé</option>
                                         <option value="REJETE">Rejeté</option>
                                         <option value="ANNULE">Annulé</option>
                                     </select>
+                                    <p className="mt-1 text-xs text-gray-500">
+                                        Le statut se modifie par les actions approuver, rejeter ou annuler.
+                                    </p>
                                 </div>
                             )}
 
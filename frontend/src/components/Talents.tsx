@@ -220,7 +220,7 @@ const Talents: React.FC = () => {
                                     <div className="flex items-center">
                                         {employe.photoProfil ? (
                                             <img
-                                                src={`http://localhost:8080/uploads/${employe.photoProfil}`}
+                                                src={`http://localhost:8080/uploads/miniatures/avatar/${employe.photoProfil}`}
                                                 alt={`${employe.prenom} ${employe.nom}`}
                                                 className="h-8 w-8 rounded-full object-cover mr-3"
                                             />
@@ -251,7 +251,7 @@ const Talents: React.FC = () => {
                                     <div className="flex items-center">
                                         {selectedEmploye.photoProfil ? (
                                             <img
-                                                src={`http://localhost:8080/uploads/${selectedEmploye.photoProfil}`}
+                                                src={`http://localhost:8080/uploads/miniatures/avatar/${selectedEmploye.photoProfil}`}
                                                 alt={`${selectedEmploye.prenom} ${selectedEmploye.nom}`}
                                                 className="h-16 w-16 rounded-full object-cover mr-4"
                                             />
@@ -653,7 +653,7 @@ function App() {
                         >
                             {user?.photoProfil ? (
                                 <img
-                                    src={`http://localhost:8080/uploads/${user.photoProfil}`}
+                                    src={`http://localhost:8080/uploads/miniatures/avatar/${user.photoProfil}`}
                                     alt={`${user.prenom} ${user.nom}`}
                                     className="h-9 w-9 rounded-full object-cover border-2 border-blue-400 shadow-sm"
                                 />
@@ -1137,7 +1137,7 @@ function App() {
                                                 <div className="flex items-center">
                                                     {employe.photoProfil ? (
                                                         <img
-                                                            src={`http://localhost:8080/uploads/${employe.photoProfil}`}
+                                                            src={`http://localhost:8080/uploads/miniatures/avatar/${employe.photoProfil}`}
                                                             alt={`${employe.prenom} ${employe.nom}`}
                                                             className="h-8 w-8 rounded-full object-cover mr-2"
                                                         />
@@ -1470,7 +1470,7 @@ function App() {
                                             <div className="flex items-center">
                                                 {demande.employe?.photoProfil ? (
                                                     <img
-                                                        src={`http://localhost:8080/uploads/${demande.employe.photoProfil}`}
+                                                        src={`http://localhost:8080/uploads/miniatures/avatar/${demande.employe.photoProfil}`}
                                                         alt={`${demande.employe.prenom} ${demande.employe.nom}`}
                                                         className="h-8 w-8 rounded-full object-cover mr-3"
                                                     />
@@ -1843,7 +1843,7 @@ function App() {
                         <div className="relative">
                             {user.photoProfil ? (
                                 <img
-                                    src={`http://localhost:8080/uploads/${user.photoProfil}`}
+                                    src={`http://localhost:8080/uploads/miniatures/avatar/${user.photoProfil}`}
                                     alt={`${user.prenom} ${user.nom}`}
                                     className="w-20 h-20 rounded-full object-cover border-2 border-gray-300"
                                 />
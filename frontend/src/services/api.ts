@@ -75,6 +75,7 @@ export interface DemandeConge {
     approuvePar?: number;
     dateTraitement?: string;
     motifRejet?: string;
+    version?: number;
     employe?: Employe;
 }
 
@@ -102,6 +103,7 @@ export interface Absence {
     dateCreation: string;
     dateModification?: string;
     annee: number;
+    version?: number;
     employe?: Employe;
     typeAbsence?: TypeAbsence;
 }
@@ -690,13 +692,14 @@ export const demandeCongeService = {
         await api.delete(`/demandes-conge/${id}`);
     },
 
+    // Le statut ne change que par approve / reject / cancel ; la version lue est obligatoire (409 sinon)
     updateDemandeConge: async (id: number, requestData: {
         employeId: number;
         typeConge: string;
         dateDebut: string;
         dateFin: string;
         motif: string;
-        statut: "EN_ATTENTE" | "APPROUVE" | "REJETE" | "ANNULE"
+        version?: number;
     }): Promise<DemandeConge> => {
         const response = await api.put(`/demandes-conge/${id}`, requestData);
         return response.data;
@@ -760,6 +763,7 @@ export const absenceService = {
         return response.data;
     },
 
+    // Le statut ne change que par les actions dédiées ; la version lue est obligatoire (409 sinon)
     updateAbsence: async (id: number, data: {
         employeId: number;
         typeAbsenceId: number;
@@ -767,6 +771,7 @@ export const absenceService = {
         duree: 'JOURNEE' | 'MATIN' | 'APRES_MIDI';
         motif?: string;
         justificatif?: string;
+        version?: number;
     }): Promise<Absence> => {
         const response = await api.put(`/absences/${id}`, data);
         return response.data;